@@ -6,6 +6,7 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import uk.ac.soton.comp1206.game.SchedulerClock;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 /**
@@ -67,6 +68,7 @@ public class App extends Application {
      */
     public static void shutdown() {
         logger.info("Shutting down");
+        SchedulerClock.getInstance().shutdown();
         System.exit(0);
     }
 
@@ -0,0 +1,226 @@
+package uk.ac.soton.comp1206.ai;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.util.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GameSnapshot;
+import uk.ac.soton.comp1206.game.GridSnapshot;
+import uk.ac.soton.comp1206.simulation.BeamSearchPolicy;
+import uk.ac.soton.comp1206.simulation.Heuristic;
+import uk.ac.soton.comp1206.simulation.Move;
+import uk.ac.soton.comp1206.simulation.Policy;
+import uk.ac.soton.comp1206.simulation.SearchPolicy;
+
+/**
+ * The AiPlayer plays a Game on its own, through the same swap, rotate and click actions as a human
+ * player, so that everything the scene does in response happens as it would normally. It is used
+ * to soak test the client under sustained play.
+ * <p>
+ * Every move interval the latest snapshot of the game is searched with a Policy on a thread of the
+ * player's own, so the search never holds up the game thread, which also runs the game timer. Only
+ * the chosen move is sent to the game, as a command which first checks that the game is still in
+ * the position searched; if a piece was played or the timer ran out meanwhile, the move is dropped
+ * and the next one is searched from the new position.
+ */
+public class AiPlayer {
+
+  private static final Logger logger = LogManager.getLogger(AiPlayer.class);
+
+  /**
+   * The time budget for choosing each move of the default policy, in milliseconds
+   */
+  private static final long BUDGET = 10;
+
+  /**
+   * The game being played
+   */
+  private final Game game;
+
+  /**
+   * The policy choosing the moves
+   */
+  private final Policy policy;
+
+  /**
+   * Random number generator given to the policy. Only used on the search thread.
+   */
+  private final SplittableRandom random = new SplittableRandom();
+
+  /**
+   * The thread the moves are searched on
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Whether a search is running, so that searches do not queue up behind a slow one
+   */
+  private final AtomicBoolean searching = new AtomicBoolean(false);
+
+  /**
+   * The position the policy searches from, made again if the size of the board changes. Only used
+   * on the search thread.
+   */
+  private GameEngine position;
+
+  /**
+   * The timeline making a move every move interval
+   */
+  private final Timeline timeline;
+
+  /**
+   * Create a new AiPlayer using a beam search with the default heuristic
+   *
+   * @param game         game to play
+   * @param moveInterval time between moves
+   */
+  public AiPlayer(Game game, Duration moveInterval) {
+    this(game, new BeamSearchPolicy(Heuristic.TUNED, BeamSearchPolicy.DEFAULT_WIDTH, BUDGET),
+        moveInterval);
+  }
+
+  /**
+   * Create a new AiPlayer
+   *
+   * @param game         game to play
+   * @param policy       policy choosing the moves
+   * @param moveInterval time between moves
+   */
+  public AiPlayer(Game game, Policy policy, Duration moveInterval) {
+    this.game = game;
+    this.policy = policy;
+    timeline = new Timeline(new KeyFrame(moveInterval, event -> makeMove()));
+    timeline.setCycleCount(Animation.INDEFINITE);
+    executor = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "AI player");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Start making moves
+   */
+  public void start() {
+    logger.info("Starting AI player with the {} policy", policy);
+    timeline.play();
+  }
+
+  /**
+   * Stop making moves
+   */
+  public void stop() {
+    timeline.stop();
+  }
+
+  /**
+   * Stop making moves and stop the search thread, as the game has been left
+   */
+  public void shutdown() {
+    stop();
+    executor.shutdownNow();
+  }
+
+  /**
+   * Whether the player is currently making moves
+   *
+   * @return true if running
+   */
+  public boolean isRunning() {
+    return timeline.getStatus() == Animation.Status.RUNNING;
+  }
+
+  /**
+   * Search for the next move from the latest snapshot of the game, unless it has ended or the last
+   * search is still running. Called on the JavaFX thread.
+   */
+  protected void makeMove() {
+    GameSnapshot snapshot = game.getSnapshot();
+    if (snapshot.isGameOver()) {
+      stop();
+      return;
+    }
+    if (snapshot.getGrid() == null || !searching.compareAndSet(false, true)) {
+      return;
+    }
+    executor.execute(() -> {
+      try {
+        chooseMove(snapshot);
+      } finally {
+        searching.set(false);
+      }
+    });
+  }
+
+  /**
+   * Choose the next move from a snapshot of the game and send it to the game. If no piece can be
+   * played, nothing is sent and the game timer is left to run out. Called on the search thread.
+   *
+   * @param snapshot snapshot of the game to search from
+   */
+  protected void chooseMove(GameSnapshot snapshot) {
+    GridSnapshot grid = snapshot.getGrid();
+    if (position == null || position.getCols() != grid.getCols()
+        || position.getRows() != grid.getRows()) {
+      position = SearchPolicy.createScratchEngine(grid.getCols(), grid.getRows());
+    }
+    position.restore(grid, snapshot.getScore(), snapshot.getLevel(), snapshot.getLives(),
+        snapshot.getMultiplier(), snapshot.getCurrentPiece(), snapshot.getFollowingPiece());
+
+    int move = policy.chooseMove(position, random);
+    if (move == Move.NONE) {
+      return;
+    }
+    game.submit(() -> playMove(snapshot, move));
+  }
+
+  /**
+   * Make a chosen move, if the game is still in the position it was chosen for. Called on the game
+   * thread, so the actions sent are run straight after, before any other input.
+   *
+   * @param snapshot snapshot of the game the move was chosen from
+   * @param move     packed Move
+   */
+  private void playMove(GameSnapshot snapshot, int move) {
+    GameEngine engine = game.getEngine();
+    if (engine.isGameOver() || !isPosition(engine, snapshot)) {
+      return;
+    }
+    if (Move.swap(move)) {
+      game.swapCurrentPiece();
+    }
+    for (int i = 0; i < Move.rotation(move); i++) {
+      game.rotateCurrentPieceClock();
+    }
+    game.blockClicked(Move.x(move), Move.y(move));
+  }
+
+  /**
+   * Check whether an engine holds the same pieces and filled blocks as a snapshot
+   *
+   * @param engine   engine to check, on the game thread
+   * @param snapshot snapshot to compare with
+   * @return true if the position is the same
+   */
+  private static boolean isPosition(GameEngine engine, GameSnapshot snapshot) {
+    GridSnapshot grid = snapshot.getGrid();
+    if (engine.getCurrentPiece() != snapshot.getCurrentPiece()
+        || engine.getFollowingPiece() != snapshot.getFollowingPiece()) {
+      return false;
+    }
+    for (var y = 0; y < grid.getRows(); y++) {
+      if (engine.getGrid().getRowBits(y) != grid.getRowBits(y)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
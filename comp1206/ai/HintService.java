@@ -0,0 +1,190 @@
+package uk.ac.soton.comp1206.ai;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javafx.application.Platform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.HintListener;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.GameSnapshot;
+import uk.ac.soton.comp1206.game.Placement;
+import uk.ac.soton.comp1206.game.PlacementFinder;
+import uk.ac.soton.comp1206.simulation.Heuristic;
+import uk.ac.soton.comp1206.simulation.SearchPolicy;
+
+/**
+ * The HintService finds the best place to play the current piece of a game, in any rotation, so
+ * that it can be shown to the player.
+ * <p>
+ * Hints are searched for on a thread of their own, so however long a search takes it never holds
+ * up the JavaFX thread or the game thread. Every request is numbered, and a new request cancels
+ * the one before: a search checks between placements whether it is still the latest, and gives up
+ * if not. Only the hint for the latest request is passed to the listener, on the JavaFX thread.
+ */
+public class HintService {
+
+  private static final Logger logger = LogManager.getLogger(HintService.class);
+
+  /**
+   * The heuristic used to compare the positions each placement leads to
+   */
+  private final Heuristic heuristic;
+
+  /**
+   * The thread the searches run on
+   */
+  private final ExecutorService executor;
+
+  /**
+   * The number of the latest request. A search stops as soon as it is no longer the latest.
+   */
+  private final AtomicInteger latest = new AtomicInteger();
+
+  /**
+   * Finds the placements of the current piece. Only used on the hint thread.
+   */
+  private final PlacementFinder finder = new PlacementFinder();
+
+  /**
+   * The position searched from and the position after each placement. Only used on the hint
+   * thread, and made again if the size of the board changes.
+   */
+  private GameEngine position;
+  private GameEngine trial;
+
+  /**
+   * The placements found. Only used on the hint thread.
+   */
+  private int[] placements;
+
+  /**
+   * The listener to call when a hint is found
+   */
+  private HintListener hintListener;
+
+  /**
+   * Create a new HintService using the tuned heuristic
+   */
+  public HintService() {
+    this(Heuristic.TUNED);
+  }
+
+  /**
+   * Create a new HintService
+   *
+   * @param heuristic heuristic used to compare placements
+   */
+  public HintService(Heuristic heuristic) {
+    this.heuristic = heuristic;
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "Hint");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Set the listener to handle a hint being found
+   *
+   * @param listener listener to add
+   */
+  public void setHintListener(HintListener listener) {
+    hintListener = listener;
+  }
+
+  /**
+   * Search for a hint for the game as it is in a snapshot, cancelling any search already running
+   *
+   * @param snapshot snapshot of the game
+   */
+  public void request(GameSnapshot snapshot) {
+    int request = latest.incrementAndGet();
+    if (snapshot.getGrid() == null || snapshot.isGameOver()) {
+      return;
+    }
+    executor.execute(() -> search(snapshot, request));
+  }
+
+  /**
+   * Cancel any search running, without starting another
+   */
+  public void cancel() {
+    latest.incrementAndGet();
+  }
+
+  /**
+   * Cancel any search running and stop the hint thread
+   */
+  public void shutdown() {
+    cancel();
+    executor.shutdownNow();
+  }
+
+  /**
+   * Search every placement of the current piece for the one leading to the best position, then pass
+   * it to the listener. Run on the hint thread.
+   *
+   * @param snapshot snapshot of the game
+   * @param request  number of the request being searched for
+   */
+  private void search(GameSnapshot snapshot, int request) {
+    if (latest.get() != request) {
+      return;
+    }
+    long started = System.nanoTime();
+
+    //Set up the position to search from, making the engines again if the board size has changed
+    int cols = snapshot.getGrid().getCols();
+    int rows = snapshot.getGrid().getRows();
+    if (position == null || position.getCols() != cols || position.getRows() != rows) {
+      position = SearchPolicy.createScratchEngine(cols, rows);
+      trial = SearchPolicy.createScratchEngine(cols, rows);
+      placements = new int[GamePiece.ROTATIONS * cols * rows];
+    }
+    position.restore(snapshot.getGrid(), snapshot.getScore(), snapshot.getLevel(),
+        snapshot.getLives(), snapshot.getMultiplier(), snapshot.getCurrentPiece(),
+        snapshot.getFollowingPiece());
+
+    GamePiece current = snapshot.getCurrentPiece();
+    int found = finder.findPlacements(position.getGrid(), current, placements);
+    int best = -1;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < found; i++) {
+      if (latest.get() != request) {
+        //A newer request has been made, so this hint would be out of date
+        return;
+      }
+
+      int placement = placements[i];
+      GamePiece piece = Placement.piece(placement);
+      trial.copyFrom(position);
+      trial.rotateCurrentPiece(piece.getRotation() - current.getRotation());
+      trial.playPiece(Placement.x(placement), Placement.y(placement));
+
+      double value = heuristic.evaluate(trial);
+      if (value > bestValue) {
+        bestValue = value;
+        best = placement;
+      }
+    }
+    logger.debug("Searched {} placements for a hint in {} ms", found,
+        (System.nanoTime() - started) / 1_000_000);
+
+    int hint = best;
+    Platform.runLater(() -> {
+      //Only show the hint if nothing has been requested since
+      if (latest.get() != request || hintListener == null) {
+        return;
+      }
+      if (hint < 0) {
+        hintListener.hintFound(null, 0, 0);
+      } else {
+        hintListener.hintFound(Placement.piece(hint), Placement.x(hint),
+            Placement.y(hint));
+      }
+    });
+  }
+}
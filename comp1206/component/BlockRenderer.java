@@ -0,0 +1,152 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.ArrayList;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.GridChange;
+import uk.ac.soton.comp1206.game.GridSnapshot;
+
+/**
+ * The BlockRenderer draws a GameBoard with one GameBlock canvas per block, laid out in the board's
+ * GridPane. Each block is bound to the grid through a GridPropertyView and repaints itself on the
+ * next pulse when its value changes, and has its own mouse handlers.
+ */
+class BlockRenderer implements BoardRenderer {
+
+  /**
+   * The board being drawn
+   */
+  private final GameBoard board;
+
+  /**
+   * The property view of the grid which the blocks are bound to
+   */
+  private final GridPropertyView gridView;
+
+  /**
+   * The blocks inside the grid
+   */
+  private final GameBlock[][] blocks;
+
+  /**
+   * The blocks currently showing a hint
+   */
+  private final ArrayList<GameBlock> hintBlocks = new ArrayList<>();
+
+  /**
+   * Create a new renderer for a board
+   *
+   * @param board board to draw
+   */
+  BlockRenderer(GameBoard board) {
+    this.board = board;
+    this.gridView = new GridPropertyView(board.getCols(), board.getRows());
+    this.blocks = new GameBlock[board.getCols()][board.getRows()];
+  }
+
+  /**
+   * Create a block at every x and y column and row
+   */
+  @Override
+  public void build() {
+    board.setGridLinesVisible(true);
+
+    for (var y = 0; y < board.getRows(); y++) {
+      for (var x = 0; x < board.getCols(); x++) {
+        createBlock(x, y);
+      }
+    }
+
+  }
+
+  /**
+   * Show a snapshot of the grid in the view the blocks are bound to
+   *
+   * @param snapshot snapshot to show
+   */
+  @Override
+  public void showGrid(GridSnapshot snapshot) {
+    gridView.sync(snapshot);
+  }
+
+  /**
+   * Show a snapshot of the grid taken after an update in the view the blocks are bound to,
+   * copying only the blocks the update changed
+   *
+   * @param snapshot snapshot to show
+   * @param change   the blocks changed since the snapshot shown before
+   */
+  @Override
+  public void showChange(GridSnapshot snapshot, GridChange change) {
+    gridView.apply(snapshot, change);
+  }
+
+  /**
+   * Create a block at the given x and y position in the GameBoard
+   *
+   * @param x column
+   * @param y row
+   */
+  private void createBlock(int x, int y) {
+    var blockWidth = board.getBoardWidth() / board.getCols();
+    var blockHeight = board.getBoardHeight() / board.getRows();
+
+    //Create a new GameBlock UI component
+    GameBlock block = new GameBlock(x, y, blockWidth, blockHeight);
+
+    //Add to the GridPane
+    board.add(block, x, y);
+
+    //Add to our block directory
+    blocks[x][y] = block;
+
+    //Link the GameBlock component to the corresponding value in the Grid
+    block.bind(gridView.getGridProperty(x, y));
+
+    //Add a mouse click handler to the block to trigger GameBoard blockClicked method
+    block.setOnMouseClicked((e) -> board.blockClicked(e, x, y));
+
+    block.setOnMouseEntered(mouseEvent -> board.blockHovered(x, y));
+
+    block.setOnMouseExited(mouseEvent -> board.blockExited(x, y));
+  }
+
+  /**
+   * Show where a piece is hinted to be played, replacing any hint already shown
+   *
+   * @param gamePiece piece to show
+   * @param x         column to show the piece centred on
+   * @param y         row to show the piece centred on
+   */
+  @Override
+  public void showHint(GamePiece gamePiece, int x, int y) {
+    clearHint();
+    for (var block = 0; block < gamePiece.getBlockCount(); block++) {
+      GameBlock hintBlock = blocks[x + gamePiece.getBlockX(block)][y + gamePiece.getBlockY(block)];
+      hintBlock.setHint(gamePiece.getValue());
+      hintBlocks.add(hintBlock);
+    }
+  }
+
+  /**
+   * Remove the hint shown, if any
+   */
+  @Override
+  public void clearHint() {
+    for (GameBlock hintBlock : hintBlocks) {
+      hintBlock.setHint(0);
+    }
+    hintBlocks.clear();
+  }
+
+  /**
+   * Repaint every block the colour it is currently assigned on the next pulse
+   */
+  @Override
+  public void paintAll() {
+    for (var y = 0; y < board.getRows(); y++) {
+      for (var x = 0; x < board.getCols(); x++) {
+        blocks[x][y].paintLater();
+      }
+    }
+  }
+}
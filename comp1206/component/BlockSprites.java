@@ -0,0 +1,283 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * The BlockSprites hold every look of a block of one size, each drawn once with GameBlock's paint
+ * methods into an image, so painting a block afterwards is a single drawImage instead of fills,
+ * strokes and effects.
+ * <p>
+ * A sprite is only drawn the first time it is needed. The sprites of the sizes used most recently
+ * are kept, up to MAX_SIZES sizes; a board of a new size simply uses a new set. If the colours or
+ * the way blocks are drawn change, invalidate throws every sprite away, and each is drawn again the
+ * next time it is needed.
+ * <p>
+ * Sprites are drawn and used on the JavaFX thread only.
+ */
+public final class BlockSprites {
+
+  /**
+   * The most sizes of block kept
+   */
+  private static final int MAX_SIZES = 8;
+
+  /**
+   * The sets of sprites kept, with the least recently used first
+   */
+  private static final Map<Long, BlockSprites> sizes = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, BlockSprites> eldest) {
+      return size() > MAX_SIZES;
+    }
+  };
+
+  /**
+   * Increased each time the sprites are invalidated, so sets still held by boards redraw theirs
+   */
+  private static int generation;
+
+  /**
+   * The size of a block
+   */
+  private final double width;
+  private final double height;
+
+  /**
+   * The size of the images the sprites are drawn into, rounded up to whole pixels
+   */
+  private final int imageWidth;
+  private final int imageHeight;
+
+  /**
+   * The generation the sprites were drawn in
+   */
+  private int drawn = generation;
+
+  /**
+   * The sprite of a block of each colour, by value
+   */
+  private final WritableImage[] filled = new WritableImage[GameBlock.COLOURS.length];
+
+  /**
+   * The sprite of an empty block showing a hint of each colour, by value
+   */
+  private final WritableImage[] hinted = new WritableImage[GameBlock.COLOURS.length];
+
+  /**
+   * The sprites of an empty block, a highlighted block, a block of a cleared line and the centre
+   * indicator, which is transparent apart from the indicator
+   */
+  private WritableImage empty;
+  private WritableImage hover;
+  private WritableImage flash;
+  private WritableImage indicator;
+
+  /**
+   * The canvas the sprites are drawn on, created the first time one is drawn
+   */
+  private Canvas scratch;
+
+  /**
+   * Create an empty set of sprites for a size of block
+   *
+   * @param width  width of a block
+   * @param height height of a block
+   */
+  private BlockSprites(double width, double height) {
+    this.width = width;
+    this.height = height;
+    this.imageWidth = (int) Math.ceil(width);
+    this.imageHeight = (int) Math.ceil(height);
+  }
+
+  /**
+   * Get the sprites for a size of block
+   *
+   * @param width  width of a block
+   * @param height height of a block
+   * @return the sprites
+   */
+  static BlockSprites forSize(double width, double height) {
+    //Sizes are told apart to a 256th of a pixel
+    long key = Math.round(width * 256) << 32 | Math.round(height * 256);
+    return sizes.computeIfAbsent(key, size -> new BlockSprites(width, height));
+  }
+
+  /**
+   * Throw away every sprite, so that each is drawn again the next time it is needed. Call after
+   * changing the colours of the blocks, then repaint the boards shown.
+   */
+  public static void invalidate() {
+    generation++;
+    sizes.clear();
+  }
+
+  /**
+   * Draw an empty block
+   *
+   * @param gc graphics context to draw on
+   * @param x  left of the block
+   * @param y  top of the block
+   */
+  void drawEmpty(GraphicsContext gc, double x, double y) {
+    checkGeneration();
+    if (empty == null) {
+      empty = render(sprite -> GameBlock.paintEmpty(sprite, 0, 0, width, height));
+    }
+    draw(gc, empty, x, y);
+  }
+
+  /**
+   * Draw a block of a colour
+   *
+   * @param gc    graphics context to draw on
+   * @param x     left of the block
+   * @param y     top of the block
+   * @param value value of the colour
+   */
+  void drawColor(GraphicsContext gc, double x, double y, int value) {
+    checkGeneration();
+    if (filled[value] == null) {
+      filled[value] = render(sprite -> GameBlock.paintColor(sprite, 0, 0, width, height,
+          GameBlock.COLOURS[value]));
+    }
+    draw(gc, filled[value], x, y);
+  }
+
+  /**
+   * Draw an empty block showing a hint of a colour
+   *
+   * @param gc   graphics context to draw on
+   * @param x    left of the block
+   * @param y    top of the block
+   * @param hint value of the piece hinted
+   */
+  void drawHint(GraphicsContext gc, double x, double y, int hint) {
+    checkGeneration();
+    if (hinted[hint] == null) {
+      hinted[hint] = render(sprite -> {
+        GameBlock.paintEmpty(sprite, 0, 0, width, height);
+        GameBlock.paintHint(sprite, 0, 0, width, height, hint);
+      });
+    }
+    draw(gc, hinted[hint], x, y);
+  }
+
+  /**
+   * Draw a highlighted block
+   *
+   * @param gc graphics context to draw on
+   * @param x  left of the block
+   * @param y  top of the block
+   */
+  void drawHover(GraphicsContext gc, double x, double y) {
+    checkGeneration();
+    if (hover == null) {
+      hover = render(sprite -> GameBlock.paintHover(sprite, 0, 0, width, height));
+    }
+    draw(gc, hover, x, y);
+  }
+
+  /**
+   * Draw a block of a line being cleared
+   *
+   * @param gc graphics context to draw on
+   * @param x  left of the block
+   * @param y  top of the block
+   */
+  void drawFlash(GraphicsContext gc, double x, double y) {
+    checkGeneration();
+    if (flash == null) {
+      flash = render(sprite -> GameBlock.paintColor(sprite, 0, 0, width, height,
+          Color.LIMEGREEN));
+    }
+    draw(gc, flash, x, y);
+  }
+
+  /**
+   * Draw the centre indicator over a block already drawn
+   *
+   * @param gc graphics context to draw on
+   * @param x  left of the block
+   * @param y  top of the block
+   */
+  void drawIndicator(GraphicsContext gc, double x, double y) {
+    checkGeneration();
+    if (indicator == null) {
+      indicator = render(sprite -> GameBlock.paintIndicator(sprite, 0, 0, width, height));
+    }
+    draw(gc, indicator, x, y);
+  }
+
+  /**
+   * Draw a sprite at the size of a block
+   *
+   * @param gc     graphics context to draw on
+   * @param sprite sprite to draw
+   * @param x      left of the block
+   * @param y      top of the block
+   */
+  private void draw(GraphicsContext gc, WritableImage sprite, double x, double y) {
+    gc.drawImage(sprite, 0, 0, width, height, x, y, width, height);
+  }
+
+  /**
+   * Throw away the sprites if they were drawn before the last invalidation
+   */
+  private void checkGeneration() {
+    if (drawn == generation) {
+      return;
+    }
+    drawn = generation;
+    for (var value = 0; value < filled.length; value++) {
+      filled[value] = null;
+      hinted[value] = null;
+    }
+    empty = null;
+    hover = null;
+    flash = null;
+    indicator = null;
+  }
+
+  /**
+   * Draw a new sprite onto a clear canvas and take an image of it
+   *
+   * @param painter paints the sprite
+   * @return the sprite
+   */
+  private WritableImage render(Painter painter) {
+    if (scratch == null) {
+      scratch = new Canvas(imageWidth, imageHeight);
+    }
+    var gc = scratch.getGraphicsContext2D();
+    gc.clearRect(0, 0, imageWidth, imageHeight);
+
+    //Start each sprite from a clean state, so effects set by one are not carried into the next
+    gc.save();
+    painter.paint(gc);
+    gc.restore();
+
+    var parameters = new SnapshotParameters();
+    parameters.setFill(Color.TRANSPARENT);
+    return scratch.snapshot(parameters, new WritableImage(imageWidth, imageHeight));
+  }
+
+  /**
+   * Paints a sprite
+   */
+  private interface Painter {
+
+    /**
+     * Paint the sprite
+     *
+     * @param gc graphics context of the canvas to paint on
+     */
+    void paint(GraphicsContext gc);
+  }
+}
@@ -0,0 +1,286 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * The BoardOverlay draws the passing decorations of a GameBoard on one canvas laid over its
+ * blocks: the highlighted block under the mouse or aim, the indicator on the centre of the
+ * current-piece board, the ghost preview of a piece, and the flash of blocks in cleared lines.
+ * <p>
+ * Keeping these off the blocks means moving the highlight or the preview never repaints the board
+ * underneath. Whenever a decoration changes, the whole overlay is cleared and redrawn on the next
+ * pulse, which is a handful of draws however large the board is. The canvas is only created once
+ * there is something to draw.
+ * <p>
+ * Cleared blocks are animated by the overlay as one animation, redrawn on every pulse while any
+ * block is still fading. The state of the animation is kept in arrays sized to the board when the
+ * overlay is created, so clearing lines, however many at once, allocates nothing.
+ */
+class BoardOverlay implements RepaintScheduler.Repaintable {
+
+  /**
+   * How long the blocks of a cleared line take to fade out, in nanoseconds
+   */
+  private static final long FADE_NANOS = 500_000_000L;
+
+  /**
+   * The board the overlay is laid over
+   */
+  private final GameBoard board;
+
+  /**
+   * The size of the board in blocks
+   */
+  private final int cols;
+  private final int rows;
+
+  /**
+   * The size of each block
+   */
+  private final double blockWidth;
+  private final double blockHeight;
+
+  /**
+   * The sprites the highlight, indicator and cleared blocks are drawn with
+   */
+  private final BlockSprites sprites;
+
+  /**
+   * The canvas laid over the board, created the first time there is something to draw
+   */
+  private Canvas canvas;
+
+  /**
+   * The block highlighted, or -1 if none is
+   */
+  private int hoverX = -1;
+  private int hoverY = -1;
+
+  /**
+   * Whether the centre block shows the indicator
+   */
+  private boolean indicator;
+
+  /**
+   * The ghost piece to draw, or null if none is shown, with its centre and whether it can be played
+   * there
+   */
+  private GamePiece ghost;
+  private int ghostX;
+  private int ghostY;
+  private boolean ghostValid;
+
+  /**
+   * The blocks cleared since the last pulse, whose fade starts on the next one, in the same layout
+   * as the grid's rows
+   */
+  private final long[] fadeStarting;
+
+  /**
+   * The blocks fading out, in the same layout as the grid's rows
+   */
+  private final long[] fading;
+
+  /**
+   * The pulse time each block started fading, packed row by row
+   */
+  private final long[] fadeStart;
+
+  /**
+   * Whether any block is fading or waiting to start
+   */
+  private boolean fadeActive;
+
+  /**
+   * Create a new overlay for a board
+   *
+   * @param board board to lay the overlay over
+   */
+  BoardOverlay(GameBoard board) {
+    this.board = board;
+    this.cols = board.getCols();
+    this.rows = board.getRows();
+    this.blockWidth = board.getBoardWidth() / cols;
+    this.blockHeight = board.getBoardHeight() / rows;
+    this.sprites = BlockSprites.forSize(blockWidth, blockHeight);
+    this.fadeStarting = new long[rows];
+    this.fading = new long[rows];
+    this.fadeStart = new long[cols * rows];
+  }
+
+  /**
+   * Highlight a block, moving the highlight from any block highlighted before
+   *
+   * @param x column, or -1 to remove the highlight
+   * @param y row, or -1 to remove the highlight
+   */
+  void hover(int x, int y) {
+    if (x == hoverX && y == hoverY) {
+      return;
+    }
+    hoverX = x;
+    hoverY = y;
+    invalidate();
+  }
+
+  /**
+   * Remove the highlight if it is on a given block
+   *
+   * @param x column
+   * @param y row
+   */
+  void unhover(int x, int y) {
+    if (x == hoverX && y == hoverY) {
+      hover(-1, -1);
+    }
+  }
+
+  /**
+   * Set whether the centre block shows the indicator
+   *
+   * @param indicator true to show the indicator
+   */
+  void setIndicator(boolean indicator) {
+    if (this.indicator != indicator) {
+      this.indicator = indicator;
+      invalidate();
+    }
+  }
+
+  /**
+   * Show a ghost piece, replacing any shown before
+   *
+   * @param gamePiece piece to preview
+   * @param x         column of the centre of the piece
+   * @param y         row of the centre of the piece
+   * @param valid     whether the piece can be played there, which decides the colour
+   */
+  void showGhost(GamePiece gamePiece, int x, int y, boolean valid) {
+    ghost = gamePiece;
+    ghostX = x;
+    ghostY = y;
+    ghostValid = valid;
+    invalidate();
+  }
+
+  /**
+   * Remove the ghost piece, if one is shown
+   */
+  void clearGhost() {
+    if (ghost != null) {
+      ghost = null;
+      invalidate();
+    }
+  }
+
+  /**
+   * Flash a set of cleared blocks and fade them out, starting on the next pulse. A block cleared
+   * again while it is still fading starts again.
+   *
+   * @param blocks the blocks cleared, with bit x of blocks[y] set for the block at (x, y)
+   */
+  void fadeOut(long[] blocks) {
+    for (var y = 0; y < rows; y++) {
+      fadeStarting[y] |= blocks[y];
+    }
+    fadeActive = true;
+    invalidate();
+  }
+
+  /**
+   * Redraw the overlay on the next pulse
+   */
+  private void invalidate() {
+    RepaintScheduler.schedule(this);
+  }
+
+  /**
+   * Clear the overlay and draw every decoration shown
+   *
+   * @param now the time of the pulse in nanoseconds
+   * @return true while blocks are fading out
+   */
+  @Override
+  public boolean repaint(long now) {
+    if (canvas == null) {
+      if (hoverX < 0 && !indicator && ghost == null && !fadeActive) {
+        return false;
+      }
+      canvas = new Canvas(board.getBoardWidth(), board.getBoardHeight());
+      canvas.setMouseTransparent(true);
+      board.add(canvas, 0, 0, cols, rows);
+    }
+
+    var gc = canvas.getGraphicsContext2D();
+    gc.clearRect(0, 0, board.getBoardWidth(), board.getBoardHeight());
+
+    if (fadeActive) {
+      fadeActive = paintFades(gc, now);
+    }
+
+    if (hoverX >= 0) {
+      sprites.drawHover(gc, hoverX * blockWidth, hoverY * blockHeight);
+    }
+
+    //On the current piece PieceBoard, place an indicator on the centre block
+    if (indicator) {
+      sprites.drawIndicator(gc, blockWidth, blockHeight);
+    }
+
+    //The ghost is drawn straight from the piece's row masks
+    if (ghost != null) {
+      gc.setGlobalAlpha(0.45);
+      gc.setFill(ghostValid ? Color.WHITE : Color.RED);
+      for (var row = 0; row < 3; row++) {
+        int blockY = ghostY + row - 1;
+        if (blockY < 0 || blockY >= rows) {
+          continue;
+        }
+        for (int mask = ghost.getRowMask(row); mask != 0; mask &= mask - 1) {
+          int blockX = ghostX + Integer.numberOfTrailingZeros(mask) - 1;
+          if (blockX >= 0 && blockX < cols) {
+            gc.fillRect(blockX * blockWidth, blockY * blockHeight, blockWidth, blockHeight);
+          }
+        }
+      }
+      gc.setGlobalAlpha(1);
+    }
+    return fadeActive;
+  }
+
+  /**
+   * Draw every fading block at the opacity it has reached, starting the fade of blocks cleared
+   * since the last pulse and ending the fade of blocks which have finished
+   *
+   * @param gc  graphics context of the overlay
+   * @param now the time of the pulse in nanoseconds
+   * @return true if any block is still fading
+   */
+  private boolean paintFades(GraphicsContext gc, long now) {
+    boolean active = false;
+    for (var y = 0; y < rows; y++) {
+      for (long bits = fadeStarting[y]; bits != 0; bits &= bits - 1) {
+        fadeStart[y * cols + Long.numberOfTrailingZeros(bits)] = now;
+      }
+      fading[y] |= fadeStarting[y];
+      fadeStarting[y] = 0;
+
+      for (long bits = fading[y]; bits != 0; bits &= bits - 1) {
+        int x = Long.numberOfTrailingZeros(bits);
+        long elapsed = now - fadeStart[y * cols + x];
+        if (elapsed >= FADE_NANOS) {
+          fading[y] &= ~(1L << x);
+          continue;
+        }
+        gc.setGlobalAlpha(1 - (double) elapsed / FADE_NANOS);
+        sprites.drawFlash(gc, x * blockWidth, y * blockHeight);
+      }
+      active |= fading[y] != 0;
+    }
+    gc.setGlobalAlpha(1);
+    return active;
+  }
+}
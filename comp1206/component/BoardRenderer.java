@@ -0,0 +1,52 @@
+package uk.ac.soton.comp1206.component;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.GridChange;
+import uk.ac.soton.comp1206.game.GridSnapshot;
+
+/**
+ * A BoardRenderer draws the blocks of a GameBoard and turns mouse input on them into block
+ * coordinates for the board. A board can be drawn with one node per block, or on one canvas.
+ */
+interface BoardRenderer {
+
+  /**
+   * Create the nodes which draw the board and add them to it
+   */
+  void build();
+
+  /**
+   * Show a snapshot of the grid, repainting the blocks which differ from the snapshot shown before
+   *
+   * @param snapshot snapshot to show
+   */
+  void showGrid(GridSnapshot snapshot);
+
+  /**
+   * Show a snapshot of the grid taken after an update, repainting only the blocks the update
+   * changed rather than comparing it with the snapshot shown before
+   *
+   * @param snapshot snapshot to show
+   * @param change   the blocks changed since the snapshot shown before
+   */
+  void showChange(GridSnapshot snapshot, GridChange change);
+
+  /**
+   * Show where a piece is hinted to be played, replacing any hint already shown
+   *
+   * @param gamePiece piece to show
+   * @param x         column to show the piece centred on
+   * @param y         row to show the piece centred on
+   */
+  void showHint(GamePiece gamePiece, int x, int y);
+
+  /**
+   * Remove the hint shown, if any
+   */
+  void clearHint();
+
+  /**
+   * Repaint every block
+   */
+  void paintAll();
+}
@@ -0,0 +1,287 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.GridChange;
+import uk.ac.soton.comp1206.game.GridSnapshot;
+
+/**
+ * The CanvasRenderer draws a whole GameBoard on a single Canvas, so a board costs one node however
+ * many blocks it has.
+ * <p>
+ * Blocks which need repainting are marked dirty in a bitmask per row, in the same layout as the
+ * grid, and the dirty blocks are repainted together on the next pulse by the RepaintScheduler.
+ * The blocks are painted from the last GridSnapshot shown, never from the grid itself, which may be
+ * changing on another thread. Showing a new snapshot marks only the blocks which differ from the
+ * one before, so a move repaints only the blocks it changed. Each block is painted with a single
+ * sprite from BlockSprites.
+ * <p>
+ * The mouse is handled by the canvas and hit-tested against the block sizes, rather than by a
+ * handler on every block.
+ */
+class CanvasRenderer implements BoardRenderer, RepaintScheduler.Repaintable {
+
+  /**
+   * The board being drawn
+   */
+  private final GameBoard board;
+
+  /**
+   * The size of the board in blocks
+   */
+  private final int cols;
+  private final int rows;
+
+  /**
+   * The size of each block
+   */
+  private final double blockWidth;
+  private final double blockHeight;
+
+  /**
+   * The canvas the whole board is drawn on
+   */
+  private final Canvas canvas;
+
+  /**
+   * The sprites the blocks are painted with
+   */
+  private final BlockSprites sprites;
+
+  /**
+   * The blocks to repaint on the next pulse, in the same layout as the grid's rows
+   */
+  private final long[] dirty;
+
+  /**
+   * The snapshot of the grid the blocks are painted from, or null if none has been shown yet
+   */
+  private GridSnapshot shown;
+
+  /**
+   * The value of the piece hinted to be played on each block, or 0, packed row by row
+   */
+  private final byte[] hints;
+
+  /**
+   * The blocks showing a hint, in the same layout as the grid's rows
+   */
+  private final long[] hinted;
+
+  /**
+   * The block the mouse is over, or -1 if it is not over the board
+   */
+  private int mouseX = -1;
+  private int mouseY = -1;
+
+  /**
+   * Create a new renderer for a board
+   *
+   * @param board board to draw
+   */
+  CanvasRenderer(GameBoard board) {
+    this.board = board;
+    this.cols = board.getCols();
+    this.rows = board.getRows();
+    this.blockWidth = board.getBoardWidth() / cols;
+    this.blockHeight = board.getBoardHeight() / rows;
+    this.canvas = new Canvas(board.getBoardWidth(), board.getBoardHeight());
+    this.sprites = BlockSprites.forSize(blockWidth, blockHeight);
+    this.dirty = new long[rows];
+    this.hints = new byte[cols * rows];
+    this.hinted = new long[rows];
+  }
+
+  /**
+   * Add the canvas to the board, start listening to the mouse, and paint every block
+   */
+  @Override
+  public void build() {
+    board.setGridLinesVisible(false);
+    board.add(canvas, 0, 0, cols, rows);
+
+    canvas.setOnMouseMoved(event -> {
+      int x = columnAt(event.getX());
+      int y = rowAt(event.getY());
+      if (x != mouseX || y != mouseY) {
+        mouseX = x;
+        mouseY = y;
+        board.blockHovered(x, y);
+      }
+    });
+    canvas.setOnMouseExited(event -> {
+      board.blockExited(mouseX, mouseY);
+      mouseX = -1;
+      mouseY = -1;
+    });
+    canvas.setOnMouseClicked(event -> board.blockClicked(event, columnAt(event.getX()),
+        rowAt(event.getY())));
+
+    paintAll();
+  }
+
+  /**
+   * Find the column a point on the canvas is in
+   *
+   * @param x distance from the left of the canvas
+   * @return column
+   */
+  private int columnAt(double x) {
+    return Math.max(0, Math.min(cols - 1, (int) (x / blockWidth)));
+  }
+
+  /**
+   * Find the row a point on the canvas is in
+   *
+   * @param y distance from the top of the canvas
+   * @return row
+   */
+  private int rowAt(double y) {
+    return Math.max(0, Math.min(rows - 1, (int) (y / blockHeight)));
+  }
+
+  /**
+   * Paint from a new snapshot of the grid, marking dirty every block which differs from the
+   * snapshot painted before
+   *
+   * @param snapshot snapshot to paint
+   */
+  @Override
+  public void showGrid(GridSnapshot snapshot) {
+    boolean changed = false;
+    for (var y = 0; y < rows; y++) {
+      long bits = snapshot.changedBlocks(shown, y);
+      dirty[y] |= bits;
+      changed |= bits != 0;
+    }
+    shown = snapshot;
+    if (changed) {
+      requestRepaint();
+    }
+  }
+
+  /**
+   * Paint from a snapshot of the grid taken after an update, marking dirty the blocks the update
+   * changed
+   *
+   * @param snapshot snapshot to paint
+   * @param change   the blocks changed since the snapshot painted before
+   */
+  @Override
+  public void showChange(GridSnapshot snapshot, GridChange change) {
+    for (var y = 0; y < rows; y++) {
+      dirty[y] |= change.getRowBits(y);
+    }
+    shown = snapshot;
+    if (change.getCount() > 0) {
+      requestRepaint();
+    }
+  }
+
+  /**
+   * Mark a block to be repainted on the next pulse
+   *
+   * @param x column
+   * @param y row
+   */
+  private void invalidate(int x, int y) {
+    dirty[y] |= 1L << x;
+    requestRepaint();
+  }
+
+  /**
+   * Make sure the dirty blocks are repainted on the next pulse
+   */
+  private void requestRepaint() {
+    RepaintScheduler.schedule(this);
+  }
+
+  /**
+   * Repaint every dirty block
+   *
+   * @param now the time of the pulse in nanoseconds
+   * @return false, as the blocks are not animated
+   */
+  @Override
+  public boolean repaint(long now) {
+    var gc = canvas.getGraphicsContext2D();
+    for (var y = 0; y < rows; y++) {
+      for (long bits = dirty[y]; bits != 0; bits &= bits - 1) {
+        paintBlock(gc, Long.numberOfTrailingZeros(bits), y);
+      }
+      dirty[y] = 0;
+    }
+    return false;
+  }
+
+  /**
+   * Paint a single block from its sprite
+   *
+   * @param gc graphics context of the canvas
+   * @param x  column
+   * @param y  row
+   */
+  private void paintBlock(GraphicsContext gc, int x, int y) {
+    double left = x * blockWidth;
+    double top = y * blockHeight;
+    long bit = 1L << x;
+
+    int value = shown == null ? 0 : shown.get(x, y);
+    if (value == 0) {
+      if ((hinted[y] & bit) != 0) {
+        sprites.drawHint(gc, left, top, hints[y * cols + x]);
+      } else {
+        sprites.drawEmpty(gc, left, top);
+      }
+    } else {
+      sprites.drawColor(gc, left, top, value);
+    }
+  }
+
+  /**
+   * Show where a piece is hinted to be played, replacing any hint already shown
+   *
+   * @param gamePiece piece to show
+   * @param x         column to show the piece centred on
+   * @param y         row to show the piece centred on
+   */
+  @Override
+  public void showHint(GamePiece gamePiece, int x, int y) {
+    clearHint();
+    for (var block = 0; block < gamePiece.getBlockCount(); block++) {
+      int blockX = x + gamePiece.getBlockX(block);
+      int blockY = y + gamePiece.getBlockY(block);
+      hints[blockY * cols + blockX] = (byte) gamePiece.getValue();
+      hinted[blockY] |= 1L << blockX;
+      invalidate(blockX, blockY);
+    }
+  }
+
+  /**
+   * Remove the hint shown, if any
+   */
+  @Override
+  public void clearHint() {
+    for (var y = 0; y < rows; y++) {
+      if (hinted[y] != 0) {
+        dirty[y] |= hinted[y];
+        hinted[y] = 0;
+        requestRepaint();
+      }
+    }
+  }
+
+  /**
+   * Mark every block to be repainted on the next pulse
+   */
+  @Override
+  public void paintAll() {
+    long fullRow = -1L >>> (Grid.MAX_COLS - cols);
+    for (var y = 0; y < rows; y++) {
+      dirty[y] = fullRow;
+    }
+    requestRepaint();
+  }
+}
@@ -1,15 +1,14 @@
 package uk.ac.soton.comp1206.component;
 
-import javafx.animation.FadeTransition;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.effect.Blend;
 import javafx.scene.effect.BoxBlur;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.paint.*;
-import javafx.util.Duration;
 
 /**
  * The Visual User Interface component representing a single block in the grid.
@@ -18,9 +17,12 @@ import javafx.util.Duration;
  * <p>
  * Displays an empty square (when the value is 0) or a coloured square depending on value.
  * <p>
+ * The static paint methods draw each look of a block; they are used to draw the BlockSprites, which
+ * the blocks are then painted with.
+ * <p>
  * The GameBlock value should be bound to a corresponding block in the Grid model.
  */
-public class GameBlock extends Canvas {
+public class GameBlock extends Canvas implements RepaintScheduler.Repaintable {
 
 
   /**
@@ -45,8 +47,6 @@ public class GameBlock extends Canvas {
       Color.PURPLE
   };
 
-  private final GameBoard gameBoard;
-
   private final double width;
   private final double height;
 
@@ -65,21 +65,30 @@ public class GameBlock extends Canvas {
    */
   private final IntegerProperty value = new SimpleIntegerProperty(0);
 
+  /**
+   * The value of the piece hinted to be played on this block, or 0 if there is no hint here
+   */
+  private int hint;
+
+  /**
+   * The sprites this block is painted with
+   */
+  private final BlockSprites sprites;
+
   /**
    * Create a new single Game Block
    *
-   * @param gameBoard the board this block belongs to
-   * @param x         the column the block exists in
-   * @param y         the row the block exists in
-   * @param width     the width of the canvas to render
-   * @param height    the height of the canvas to render
+   * @param x      the column the block exists in
+   * @param y      the row the block exists in
+   * @param width  the width of the canvas to render
+   * @param height the height of the canvas to render
    */
-  public GameBlock(GameBoard gameBoard, int x, int y, double width, double height) {
-    this.gameBoard = gameBoard;
+  public GameBlock(int x, int y, double width, double height) {
     this.width = width;
     this.height = height;
     this.x = x;
     this.y = y;
+    this.sprites = BlockSprites.forSize(width, height);
 
     //A canvas needs a fixed width and height
     setWidth(width);
@@ -101,60 +110,88 @@ public class GameBlock extends Canvas {
    */
   private void updateValue(ObservableValue<? extends Number> observable, Number oldValue,
       Number newValue) {
+    paintLater();
+  }
+
+  /**
+   * Repaint this block on the next pulse, however many times it changes before then
+   */
+  public void paintLater() {
+    RepaintScheduler.schedule(this);
+  }
+
+  /**
+   * Repaint this block on a pulse
+   *
+   * @param now the time of the pulse in nanoseconds
+   * @return false, as a block is never repainted again without changing
+   */
+  @Override
+  public boolean repaint(long now) {
     paint();
+    return false;
   }
 
   /**
-   * Handle painting of the block canvas
+   * Handle painting of the block canvas with a single sprite
    */
   public void paint() {
-    //If the block is empty, paint as empty
+    var gc = getGraphicsContext2D();
+
+    //If the block is empty, paint as empty, showing any hint on top
     if (value.get() == 0) {
-      paintEmpty();
+      if (hint != 0) {
+        sprites.drawHint(gc, 0, 0, hint);
+      } else {
+        sprites.drawEmpty(gc, 0, 0);
+      }
     } else {
       //If the block is not empty, paint with the colour represented by the value
-      paintColor(COLOURS[value.get()]);
-    }
-
-    //If the block is on the current piece PieceBoard, place an indicator on the centre block
-    if (gameBoard.getCurrentPieceBoard() && getX() == 1 && getY() == 1) {
-      paintIndicator();
+      sprites.drawColor(gc, 0, 0, value.get());
     }
   }
 
   /**
-   * Paint this canvas empty
+   * Paint an empty block into an area of a canvas
+   *
+   * @param gc     graphics context of the canvas
+   * @param x      left of the block
+   * @param y      top of the block
+   * @param width  width of the block
+   * @param height height of the block
    */
-  private void paintEmpty() {
-    var gc = getGraphicsContext2D();
-
+  static void paintEmpty(GraphicsContext gc, double x, double y, double width, double height) {
     //Clear
-    gc.clearRect(0, 0, width, height);
+    gc.clearRect(x, y, width, height);
 
     //Fill
     gc.setFill(Color.DIMGREY);
     gc.setEffect(new Blend());
-    gc.fillRect(0, 0, width, height);
+    gc.fillRect(x, y, width, height);
 
     //Border
     gc.setStroke(Color.ANTIQUEWHITE);
-    gc.strokeRect(0, 0, width, height);
+    gc.strokeRect(x, y, width, height);
   }
 
   /**
-   * Paint this canvas with the given colour
+   * Paint a block of the given colour into an area of a canvas
    *
+   * @param gc     graphics context of the canvas
+   * @param x      left of the block
+   * @param y      top of the block
+   * @param width  width of the block
+   * @param height height of the block
    * @param colour the colour to paint
    */
-  private void paintColor(Paint colour) {
-    var gc = getGraphicsContext2D();
-
+  static void paintColor(GraphicsContext gc, double x, double y, double width, double height,
+      Paint colour) {
     //Clear
-    gc.clearRect(0, 0, width, height);
+    gc.clearRect(x, y, width, height);
 
     //Colour fill
     gc.setFill(colour);
-    gc.fillRect(0, 0, width, height);
+    gc.fillRect(x, y, width, height);
 
     //Effects to make blocks more unique and futuristic
     gc.setEffect(new BoxBlur(2, 2, 2));
@@ -163,89 +200,81 @@ public class GameBlock extends Canvas {
 
     gc.setFill(colour);
     gc.setEffect(new DropShadow());
-    gc.fillPolygon(new double[]{0, width, height},
-        new double[]{width, height, 0}, 3);
+    gc.fillPolygon(new double[]{x, x + width, x + height},
+        new double[]{y + width, y + height, y}, 3);
 
     //Border
     gc.setStroke(Color.ANTIQUEWHITE);
-    gc.strokeRect(0, 0, width, height);
+    gc.strokeRect(x, y, width, height);
   }
 
   /**
-   * Paint the centre block of the current piece PieceBoard with a small circle indicator in the
-   * middle
+   * Paint the small circle indicator in the middle of a block of a canvas
+   *
+   * @param gc     graphics context of the canvas
+   * @param x      left of the block
+   * @param y      top of the block
+   * @param width  width of the block
+   * @param height height of the block
    */
-  private void paintIndicator() {
-    var gc = getGraphicsContext2D();
-
+  static void paintIndicator(GraphicsContext gc, double x, double y, double width,
+      double height) {
     gc.setFill(Color.LIGHTSLATEGREY);
-    gc.fillOval(getWidth() / 4, getHeight() / 4, width / 2, height / 2);
+    gc.fillOval(x + width / 4, y + height / 4, width / 2, height / 2);
   }
 
   /**
-   * Paint the block currently being hovered by the mouse a special hover colour
+   * Paint a faint block of the colour of a hinted piece into an area of a canvas
+   *
+   * @param gc     graphics context of the canvas
+   * @param x      left of the block
+   * @param y      top of the block
+   * @param width  width of the block
+   * @param height height of the block
+   * @param hint   value of the piece hinted
    */
-  public void paintHover() {
-    var gc = getGraphicsContext2D();
+  static void paintHint(GraphicsContext gc, double x, double y, double width, double height,
+      int hint) {
+    gc.setGlobalAlpha(0.4);
+    gc.setFill(COLOURS[hint]);
+    gc.fillRect(x, y, width, height);
+    gc.setGlobalAlpha(1);
+  }
 
+  /**
+   * Paint a block in the hover colour into an area of a canvas
+   *
+   * @param gc     graphics context of the canvas
+   * @param x      left of the block
+   * @param y      top of the block
+   * @param width  width of the block
+   * @param height height of the block
+   */
+  static void paintHover(GraphicsContext gc, double x, double y, double width, double height) {
     //Clear
-    gc.clearRect(0, 0, width, height);
+    gc.clearRect(x, y, width, height);
 
     //Colour fill
     gc.setFill(Color.LIGHTGREY);
-    gc.fillRect(0, 0, width, height);
+    gc.fillRect(x, y, width, height);
 
     //Border
     gc.setStroke(Color.ANTIQUEWHITE);
-    gc.strokeRect(0, 0, width, height);
+    gc.strokeRect(x, y, width, height);
   }
 
   /**
-   * Fade out effect applied to a row of blocks that are cleared
+   * Set the value of the piece hinted to be played on this block, repainting it if it changed
+   *
+   * @param hint value of the piece, or 0 to remove the hint
    */
-  public void fadeOutAT() {
-    var gc = getGraphicsContext2D();
-
-    //Colour fill
-    gc.setFill(Color.LIMEGREEN);
-    gc.fillRect(0, 0, width, height);
-
-    //Fade transition to make blocks fade.  Transition is reversed after to allow the blocks
-    //to become visible again and not invisible on the board
-    FadeTransition ft = new FadeTransition(Duration.millis(250), this);
-    ft.setFromValue(1.0);
-    ft.setToValue(0);
-    ft.setAutoReverse(true);
-    ft.setCycleCount(2);
-    ft.play();
-
-        /*
-        //Fade animation that is applied to a row of blocks that is cleared. Animation slowly
-        //decreases opacity until block colour is not visible anymore.
-        final double[] opacity = {1};
-        var gc = getGraphicsContext2D();
-        gc.setFill(Color.LIMEGREEN);
-        gc.fillRect(0,0, width, height);
-        AnimationTimer timer = new AnimationTimer() {
-            @Override
-            public void handle(long l) {
-                if (opacity[0] > 0) {
-                    opacity[0] = opacity[0] - 0.0003;
-                    gc.setGlobalAlpha(opacity[0]);
-                } else {
-                    stop();
-                }
-            }
-        };
-        timer.start();
-
-          */
-
-    //Paint blocks empty
-    paintEmpty();
+  public void setHint(int hint) {
+    if (this.hint != hint) {
+      this.hint = hint;
+      paintLater();
+    }
   }
 
-
   /**
    * Get the column of this block
    *
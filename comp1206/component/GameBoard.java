@@ -1,21 +1,35 @@
 package uk.ac.soton.comp1206.component;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.event.BlockClickedListener;
+import uk.ac.soton.comp1206.event.BlockHoveredListener;
+import uk.ac.soton.comp1206.game.GamePiece;
 import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.GridChange;
+import uk.ac.soton.comp1206.game.GridSnapshot;
 
 /**
  * A GameBoard is a visual component to represent the visual GameBoard. It extends a GridPane to
  * hold a grid of GameBlocks.
  * <p>
  * The GameBoard can hold an internal grid of its own, for example, for displaying an upcoming
- * block. It may also be linked to an external grid, for the main game board.
+ * block. It may also be linked to an external grid changed on the JavaFX thread. The main game
+ * board's grid is changed on the game thread, so that board is instead shown each GridSnapshot the
+ * game publishes with showGrid. Either way the board is only ever drawn from snapshots, never by
+ * reading a grid which may be changing.
+ * <p>
+ * The blocks are drawn by a BoardRenderer, chosen when the board is created: either one GameBlock
+ * canvas per block, or the whole board on a single canvas which only repaints the blocks that have
+ * changed. Either way, the listeners are told the column and row of the block clicked or hovered,
+ * and repaints are collected and made once per pulse by the RepaintScheduler. The highlight, the
+ * centre indicator, the ghost piece and the flash of cleared lines are drawn on a BoardOverlay
+ * above the blocks.
  * <p>
  * The GameBoard is only a visual representation and should not contain game logic or model logic in
  * it, which should take place in the Grid.
@@ -25,10 +39,26 @@ public class GameBoard extends GridPane {
   private static final Logger logger = LogManager.getLogger(GameBoard.class);
 
   /**
-   * The grid this GameBoard represents
+   * Whether boards created from now on are drawn on a single canvas, rather than with one canvas
+   * per block
+   */
+  public static final SimpleBooleanProperty singleCanvas = new SimpleBooleanProperty(true);
+
+  /**
+   * The grid this GameBoard represents, or null if it is shown snapshots of a grid it does not hold
    */
   final Grid grid;
 
+  /**
+   * The snapshot of the grid currently shown
+   */
+  private GridSnapshot shown;
+
+  /**
+   * Draws the blocks of the board
+   */
+  private final BoardRenderer renderer;
+
   /**
    * Number of columns in the board
    */
@@ -55,18 +85,34 @@ public class GameBoard extends GridPane {
   public boolean currentPieceBoard = false;
 
   /**
-   * The blocks inside the grid
+   * Whether blocks are highlighted when the mouse is over them
+   */
+  protected boolean hoverEnabled = true;
+
+  /**
+   * Draws the highlight, centre indicator and ghost piece over the blocks
    */
-  GameBlock[][] blocks;
+  private final BoardOverlay overlay;
+
+  /**
+   * The blocks of a cleared line passed to the overlay, reused for every line
+   */
+  private final long[] fadeMask;
 
   /**
    * The listener to call when a specific block is clicked
    */
   private BlockClickedListener blockClickedListener;
 
+  /**
+   * The listener to call when the mouse moves onto a block
+   */
+  private BlockHoveredListener blockHoveredListener;
+
 
   /**
-   * Create a new GameBoard, based off a given grid, with a visual width and height.
+   * Create a new GameBoard, based off a given grid, with a visual width and height. The grid must
+   * only be changed on the JavaFX thread.
    *
    * @param grid   linked grid
    * @param width  the visual width
@@ -78,6 +124,9 @@ public class GameBoard extends GridPane {
     this.width = width;
     this.height = height;
     this.grid = grid;
+    this.renderer = createRenderer();
+    this.overlay = new BoardOverlay(this);
+    this.fadeMask = new long[rows];
 
     //Build the GameBoard
     build();
@@ -98,24 +147,48 @@ public class GameBoard extends GridPane {
     this.width = width;
     this.height = height;
     this.grid = new Grid(cols, rows);
+    this.renderer = createRenderer();
+    this.overlay = new BoardOverlay(this);
+    this.fadeMask = new long[rows];
 
     //Build the GameBoard
     build();
   }
 
   /**
-   * Get a specific block from the GameBoard, specified by its row and column
+   * Create a new GameBoard showing snapshots of a grid which is changed on another thread, starting
+   * with the given snapshot. Each later snapshot is shown with showGrid.
    *
-   * @param x column
-   * @param y row
-   * @return game block at the given column and row
+   * @param snapshot first snapshot to show
+   * @param width    the visual width
+   * @param height   the visual height
    */
-  public GameBlock getBlock(int x, int y) {
-    return blocks[x][y];
+  public GameBoard(GridSnapshot snapshot, double width, double height) {
+    this.cols = snapshot.getCols();
+    this.rows = snapshot.getRows();
+    this.width = width;
+    this.height = height;
+    this.grid = null;
+    this.shown = snapshot;
+    this.renderer = createRenderer();
+    this.overlay = new BoardOverlay(this);
+    this.fadeMask = new long[rows];
+
+    //Build the GameBoard
+    build();
   }
 
   /**
-   * Build the GameBoard by creating a block at every x and y column and row
+   * Create the renderer chosen by the singleCanvas setting
+   *
+   * @return renderer
+   */
+  private BoardRenderer createRenderer() {
+    return singleCanvas.get() ? new CanvasRenderer(this) : new BlockRenderer(this);
+  }
+
+  /**
+   * Build the GameBoard by adding the nodes which draw its blocks
    */
   protected void build() {
     logger.info("Building grid: {} x {}", cols, rows);
@@ -123,54 +196,73 @@ public class GameBoard extends GridPane {
     setMaxWidth(width);
     setMaxHeight(height);
 
-    setGridLinesVisible(true);
-
-    blocks = new GameBlock[cols][rows];
+    renderer.build();
 
-    for (var y = 0; y < rows; y++) {
-      for (var x = 0; x < cols; x++) {
-        createBlock(x, y);
-      }
+    //A linked grid is snapshotted whenever an update to it is committed
+    if (grid != null) {
+      grid.setGridChangedListener(this::gridChanged);
+      shown = grid.snapshot(null);
     }
+    renderer.showGrid(shown);
   }
 
   /**
-   * Create a block at the given x and y position in the GameBoard
+   * Called on the JavaFX thread whenever an update to the linked grid is committed. Takes a
+   * snapshot sharing every row the update did not touch and repaints only the blocks it changed.
    *
-   * @param x column
-   * @param y row
+   * @param grid   the grid that changed
+   * @param change the blocks changed by the update
    */
-  protected GameBlock createBlock(int x, int y) {
-    var blockWidth = width / cols;
-    var blockHeight = height / rows;
-
-    //Create a new GameBlock UI component
-    GameBlock block = new GameBlock(this, x, y, blockWidth, blockHeight);
-
-    //Add to the GridPane
-    add(block, x, y);
-
-    //Add to our block directory
-    blocks[x][y] = block;
+  private void gridChanged(Grid grid, GridChange change) {
+    shown = grid.snapshot(shown, change);
+    renderer.showChange(shown, change);
+  }
 
-    //Link the GameBlock component to the corresponding value in the Grid
-    block.bind(grid.getGridProperty(x, y));
+  /**
+   * Show a snapshot of the grid, repainting the blocks which differ from the snapshot shown before.
+   * Must be called on the JavaFX thread.
+   *
+   * @param snapshot snapshot to show, of a grid the same size as the board
+   */
+  public void showGrid(GridSnapshot snapshot) {
+    renderer.showGrid(snapshot);
+    shown = snapshot;
+  }
 
-    //Add a mouse click handler to the block to trigger GameBoard blockClicked method
-    block.setOnMouseClicked((e) -> blockClicked(e, block));
+  /**
+   * Get the number of columns in the board
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
 
-    block.setOnMouseEntered(mouseEvent -> {
-      paintAll();
-      if (grid.getRows() == 5) {
-        block.paintHover();
-      }
-    });
+  /**
+   * Get the number of rows in the board
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
 
-    block.setOnMouseExited(mouseEvent -> {
-      block.paint();
-    });
+  /**
+   * Get the visual width of the board
+   *
+   * @return width
+   */
+  double getBoardWidth() {
+    return width;
+  }
 
-    return block;
+  /**
+   * Get the visual height of the board
+   *
+   * @return height
+   */
+  double getBoardHeight() {
+    return height;
   }
 
   /**
@@ -189,30 +281,87 @@ public class GameBoard extends GridPane {
    */
   public void setCurrentPieceBoard(boolean bool) {
     this.currentPieceBoard = bool;
+    overlay.setIndicator(bool);
   }
 
   /**
-   * Takes a cleared line of blocks and applies fade out animation on all of them
+   * Takes a cleared line of blocks and applies fade out animation on all of them. Every line
+   * cleared on the board is animated together on the overlay.
    *
-   * @param set the line of game-blocks cleared
+   * @param row   true if the line is a row, false if it is a column
+   * @param index index of the row or column
    */
-  public void fadeOut(Set<GameBlockCoordinate> set) {
-    //Takes all the coordinates of the blocks cleared and applies fadeOut method to them
-    for (GameBlockCoordinate coordinate : set) {
-      getBlock(coordinate.getX(), coordinate.getY()).fadeOutAT();
+  public void fadeOut(boolean row, int index) {
+    if (row) {
+      Arrays.fill(fadeMask, 0);
+      fadeMask[index] = -1L >>> (Grid.MAX_COLS - cols);
+    } else {
+      Arrays.fill(fadeMask, 1L << index);
     }
+    overlay.fadeOut(fadeMask);
   }
 
   /**
-   * Paints all the blocks on the board the colour they are currently assigned. Used in conjunction
-   * with keyboard input to place blocks after input
+   * Highlight a block on the overlay, moving the highlight from any block highlighted before. No
+   * blocks are repainted, and the overlay is only redrawn once however often the highlight moves
+   * before the next pulse.
+   *
+   * @param x column, or -1 to remove the highlight
+   * @param y row, or -1 to remove the highlight
    */
-  public void paintAll() {
-    for (var y = 0; y < rows; y++) {
-      for (var x = 0; x < cols; x++) {
-        getBlock(x, y).paint();
-      }
+  public void hover(int x, int y) {
+    overlay.hover(hoverEnabled ? x : -1, hoverEnabled ? y : -1);
+  }
+
+  /**
+   * Draw a translucent preview of a piece centred on a block, replacing any preview already drawn.
+   * The preview is drawn on the overlay on the next pulse, so no blocks are repainted and only the
+   * last preview asked for before then is drawn.
+   *
+   * @param gamePiece piece to preview
+   * @param x         column of the centre of the piece
+   * @param y         row of the centre of the piece
+   * @param valid     whether the piece can be played there, which decides the colour
+   */
+  public void showGhost(GamePiece gamePiece, int x, int y, boolean valid) {
+    overlay.showGhost(gamePiece, x, y, valid);
+  }
+
+  /**
+   * Remove the ghost piece preview, if one is drawn
+   */
+  public void clearGhost() {
+    overlay.clearGhost();
+  }
+
+  /**
+   * Show where a piece is hinted to be played, replacing any hint already shown
+   *
+   * @param gamePiece piece to show, or null to show no hint
+   * @param x         column to show the piece centred on
+   * @param y         row to show the piece centred on
+   */
+  public void showHint(GamePiece gamePiece, int x, int y) {
+    if (gamePiece == null) {
+      renderer.clearHint();
+      return;
     }
+    renderer.showHint(gamePiece, x, y);
+  }
+
+  /**
+   * Remove the hint shown, if any
+   */
+  public void clearHint() {
+    renderer.clearHint();
+  }
+
+  /**
+   * Paints all the blocks on the board the colour they are currently assigned on the next pulse.
+   * Used in conjunction with keyboard input to place blocks after input
+   */
+  public void paintAll() {
+    renderer.paintAll();
   }
 
 
@@ -226,18 +375,53 @@ public class GameBoard extends GridPane {
   }
 
   /**
-   * Triggered when a block is clicked. Call the attached listener.
+   * Set the listener to handle an event when the mouse moves onto a block
+   *
+   * @param listener listener to add
+   */
+  public void setOnBlockHover(BlockHoveredListener listener) {
+    this.blockHoveredListener = listener;
+  }
+
+  /**
+   * Triggered by the renderer when a block is clicked. Call the attached listener.
    *
    * @param event mouse event
-   * @param block block clicked on
+   * @param x     column of the block clicked on
+   * @param y     row of the block clicked on
    */
-  private void blockClicked(MouseEvent event, GameBlock block) {
-    logger.info("Block clicked: {}", block);
+  void blockClicked(MouseEvent event, int x, int y) {
+    logger.info("Block clicked: {}, {}", x, y);
 
     if (event.getButton() == MouseButton.PRIMARY) {
       if (blockClickedListener != null) {
-        blockClickedListener.blockClicked(block);
+        blockClickedListener.blockClicked(x, y);
       }
     }
   }
+
+  /**
+   * Triggered by the renderer when the mouse moves onto a block. Highlight it and call the
+   * attached listener.
+   *
+   * @param x column of the block
+   * @param y row of the block
+   */
+  void blockHovered(int x, int y) {
+    hover(x, y);
+    if (blockHoveredListener != null) {
+      blockHoveredListener.blockHovered(x, y);
+    }
+  }
+
+  /**
+   * Triggered by the renderer when the mouse leaves a block. Remove the highlight if it is still on
+   * that block.
+   *
+   * @param x column of the block
+   * @param y row of the block
+   */
+  void blockExited(int x, int y) {
+    overlay.unhover(x, y);
+  }
 }
@@ -0,0 +1,90 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import uk.ac.soton.comp1206.game.GridChange;
+import uk.ac.soton.comp1206.game.GridSnapshot;
+
+/**
+ * A GridPropertyView holds an IntegerProperty for every block of a Grid, so that the visual
+ * GameBlocks can be bound to it.
+ * <p>
+ * The view never reads the Grid itself, which may be changed on another thread. It is shown
+ * immutable GridSnapshots of the grid instead, and copies across only the blocks which differ from
+ * the snapshot shown before, so many changes made together result in one update per block. When
+ * the blocks changed are already known from a GridChange, only those are copied.
+ */
+public class GridPropertyView {
+
+  /**
+   * The properties of every block in the grid, bound to by the GameBlocks
+   */
+  private final SimpleIntegerProperty[][] properties;
+
+  /**
+   * The snapshot the properties hold, or null if none has been shown yet
+   */
+  private GridSnapshot shown;
+
+  /**
+   * Create a new GridPropertyView of a grid of the given size, with every block empty until a
+   * snapshot is shown
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public GridPropertyView(int cols, int rows) {
+    properties = new SimpleIntegerProperty[cols][rows];
+    for (var y = 0; y < rows; y++) {
+      for (var x = 0; x < cols; x++) {
+        properties[x][y] = new SimpleIntegerProperty(0);
+      }
+    }
+  }
+
+  /**
+   * Get the Integer property for a given row and column index. Can be used for binding.
+   *
+   * @param x column
+   * @param y row
+   * @return the IntegerProperty at the given x and y in this grid
+   */
+  public IntegerProperty getGridProperty(int x, int y) {
+    return properties[x][y];
+  }
+
+  /**
+   * Copy every block which differs from the snapshot shown before into its property. Must be called
+   * on the JavaFX thread.
+   *
+   * @param snapshot snapshot of the grid to show
+   */
+  public void sync(GridSnapshot snapshot) {
+    for (var y = 0; y < snapshot.getRows(); y++) {
+      long bits = snapshot.changedBlocks(shown, y);
+      while (bits != 0) {
+        int x = Long.numberOfTrailingZeros(bits);
+        properties[x][y].set(snapshot.get(x, y));
+        bits &= bits - 1;
+      }
+    }
+    shown = snapshot;
+  }
+
+  /**
+   * Copy the blocks changed by an update into their properties. Must be called on the JavaFX
+   * thread.
+   *
+   * @param snapshot snapshot of the grid taken after the update
+   * @param change   the blocks changed since the snapshot shown before
+   */
+  public void apply(GridSnapshot snapshot, GridChange change) {
+    for (var y = 0; y < snapshot.getRows(); y++) {
+      for (long bits = change.getRowBits(y); bits != 0; bits &= bits - 1) {
+        int x = Long.numberOfTrailingZeros(bits);
+        properties[x][y].set(snapshot.get(x, y));
+      }
+    }
+    shown = snapshot;
+  }
+}
@@ -22,6 +22,7 @@ public class PieceBoard extends GameBoard {
    */
   public PieceBoard(Grid grid, double width, double height) {
     super(grid, width, height);
+    hoverEnabled = false;
   }
 
   /**
@@ -30,33 +31,25 @@ public class PieceBoard extends GameBoard {
    * @param gamePiece GamePiece to be set as piece to be displayed
    */
   public void setPiece(GamePiece gamePiece) {
-    //the 3x3 array of blocks of the GamePiece
-    int[][] blocks = gamePiece.getBlocks();
+    //Show the new piece as one update to the grid
+    grid.beginUpdate();
 
     //Method to clear the current piece displayed
     clearPiece();
 
-    //Loop through every part of the game-piece
-    for (var x = 0; x < blocks.length; x++) {
-      for (var y = 0; y < blocks[x].length; y++) {
-        int val = blocks[x][y];
-        if (val != 0) {
-          //if the value is not equal to zero set the piece-board value to the block value
-          grid.set(x, y, gamePiece.getValue());
-        }
-      }
+    //Loop through every block of the game-piece, offset from the centre of the piece-board
+    for (var block = 0; block < gamePiece.getBlockCount(); block++) {
+      grid.set(gamePiece.getBlockX(block) + 1, gamePiece.getBlockY(block) + 1,
+          gamePiece.getValue());
     }
+    grid.commitUpdate();
   }
 
   /**
    * Clears the current piece being displayed in the PieceBoard
    */
   public void clearPiece() {
-    for (var x = 0; x < blocks.length; x++) {
-      for (var y = 0; y < blocks[x].length; y++) {
-        grid.set(x, y, 0);
-      }
-    }
+    grid.clear();
   }
 
   /**
@@ -74,6 +67,6 @@ public class PieceBoard extends GameBoard {
    * @param bool value
    */
   public void setCurrentPieceBoard(boolean bool) {
-    this.currentPieceBoard = bool;
+    super.setCurrentPieceBoard(bool);
   }
 }
\ No newline at end of file
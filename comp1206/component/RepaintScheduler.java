@@ -0,0 +1,96 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import javafx.animation.AnimationTimer;
+
+/**
+ * The RepaintScheduler collects the repaints asked for by the boards and runs them together once
+ * per JavaFX pulse. However many times something asks to be repainted between two pulses, for
+ * example while the mouse is swept across a board, it is repainted once, so the cost of a frame is
+ * bounded by what is on screen rather than by how fast input arrives.
+ * <p>
+ * One timer serves every board, and only runs while there is something waiting to be repainted.
+ * Everything here is used on the JavaFX thread only.
+ */
+final class RepaintScheduler {
+
+  /**
+   * Something which can be repainted on a pulse
+   */
+  interface Repaintable {
+
+    /**
+     * Repaint everything that has changed
+     *
+     * @param now the time of the pulse in nanoseconds
+     * @return true to be repainted again on the next pulse, such as while animating
+     */
+    boolean repaint(long now);
+  }
+
+  /**
+   * The things waiting to be repainted on the next pulse
+   */
+  private static final Set<Repaintable> scheduled = Collections.newSetFromMap(
+      new IdentityHashMap<>());
+
+  /**
+   * The things being repainted on the current pulse
+   */
+  private static final ArrayList<Repaintable> repainting = new ArrayList<>();
+
+  /**
+   * Runs the scheduled repaints on each pulse while any are waiting
+   */
+  private static final AnimationTimer pulse = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      flush(now);
+    }
+  };
+
+  /**
+   * Whether the pulse timer is running
+   */
+  private static boolean running;
+
+  private RepaintScheduler() {
+  }
+
+  /**
+   * Repaint something on the next pulse. Asking again before then makes no difference.
+   *
+   * @param target what to repaint
+   */
+  static void schedule(Repaintable target) {
+    if (scheduled.add(target) && !running) {
+      running = true;
+      pulse.start();
+    }
+  }
+
+  /**
+   * Run every repaint waiting, stopping the timer once nothing is left to do. Anything scheduled
+   * while repainting is left for the next pulse.
+   *
+   * @param now the time of the pulse in nanoseconds
+   */
+  static void flush(long now) {
+    repainting.addAll(scheduled);
+    scheduled.clear();
+    for (Repaintable target : repainting) {
+      if (target.repaint(now)) {
+        scheduled.add(target);
+      }
+    }
+    repainting.clear();
+
+    if (scheduled.isEmpty()) {
+      pulse.stop();
+      running = false;
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Block Hovered listener is used to handle the event when the mouse moves onto a block in a
+ * GameBoard. It passes the column and row of the block that the mouse is over in the message.
+ */
+public interface BlockHoveredListener {
+
+  /**
+   * Handle a block hovered event
+   *
+   * @param x the column of the block the mouse is over
+   * @param y the row of the block the mouse is over
+   */
+  public void blockHovered(int x, int y);
+}
@@ -0,0 +1,43 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.GridSnapshot;
+
+/**
+ * The Board Changed event is published when any block of the game's grid changes, with a snapshot
+ * of the grid to show
+ */
+public final class BoardChangedEvent extends GameEvent {
+
+  /**
+   * The snapshot of the grid after the change
+   */
+  private GridSnapshot grid;
+
+  /**
+   * Get the snapshot of the grid after the change
+   *
+   * @return grid snapshot
+   */
+  public GridSnapshot getGrid() {
+    return grid;
+  }
+
+  /**
+   * Set the snapshot of the grid after the change, before the event is published
+   *
+   * @param grid grid snapshot
+   * @return this event
+   */
+  public BoardChangedEvent set(GridSnapshot grid) {
+    this.grid = grid;
+    return this;
+  }
+
+  /**
+   * Clear the snapshot
+   */
+  @Override
+  protected void reset() {
+    grid = null;
+  }
+}
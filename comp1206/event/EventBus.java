@@ -0,0 +1,388 @@
+package uk.ac.soton.comp1206.event;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javafx.application.Platform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The EventBus passes GameEvents from the thread publishing them to any number of subscribers,
+ * each of which chooses how its events are delivered:
+ * <ul>
+ *   <li>SYNC subscribers are called straight away, on the publishing thread</li>
+ *   <li>FX subscribers are called on the JavaFX thread</li>
+ *   <li>BACKGROUND subscribers are called on a background thread shared by the bus</li>
+ * </ul>
+ * Events for the JavaFX and background threads are collected until flush is called, then handed
+ * over as one batch, so a batch of moves costs one hand over to each thread however many events it
+ * raised. Batches are delivered in the order they were flushed, and the events in a batch in the
+ * order they were published.
+ * <p>
+ * Each type of event has a pool, so once the pools have filled publishing creates nothing: an
+ * event is taken from its pool with obtain, filled in, published, and put back in the pool once
+ * every subscriber has handled it. Events are published from one thread at a time, normally the
+ * game thread; subscribers can be added and removed from any thread.
+ */
+public class EventBus {
+
+  private static final Logger logger = LogManager.getLogger(EventBus.class);
+
+  /**
+   * How a subscriber's events are delivered
+   */
+  public enum Delivery {
+    SYNC, FX, BACKGROUND
+  }
+
+  /**
+   * The most events of each type kept in its pool
+   */
+  private static final int POOL_SIZE = 64;
+
+  /**
+   * Marks the end of a batch in the queues for the other threads
+   */
+  private static final GameEvent BATCH_END = new GameEvent() {
+    @Override
+    protected void reset() {
+    }
+  };
+
+  /**
+   * The topic of each type of event
+   */
+  private final ConcurrentHashMap<Class<?>, Topic<?>> topics = new ConcurrentHashMap<>();
+
+  /**
+   * The events waiting for the JavaFX thread, and the number added since the last batch ended
+   */
+  private final ArrayDeque<GameEvent> fxQueue = new ArrayDeque<>();
+  private int fxUnflushed;
+
+  /**
+   * The events waiting for the background thread, and the number added since the last batch ended
+   */
+  private final ArrayDeque<GameEvent> backgroundQueue = new ArrayDeque<>();
+  private int backgroundUnflushed;
+
+  /**
+   * Deliver one batch from each queue
+   */
+  private final Runnable fxDrain = () -> drain(fxQueue, Delivery.FX);
+  private final Runnable backgroundDrain = () -> drain(backgroundQueue, Delivery.BACKGROUND);
+
+  /**
+   * The background thread, which is only kept while there are batches to deliver
+   */
+  private final ThreadPoolExecutor background = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(), runnable -> {
+    Thread thread = new Thread(runnable, "Events");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Register a type of event, so that it can be obtained
+   *
+   * @param type    type of event
+   * @param factory creates a new event of the type when its pool is empty
+   * @param <E>     type of event
+   */
+  public <E extends GameEvent> void register(Class<E> type, Supplier<E> factory) {
+    topic(type).factory = factory;
+  }
+
+  /**
+   * Subscribe to every event of a type
+   *
+   * @param type     type of event
+   * @param delivery which thread the listener is called on
+   * @param listener listener to call
+   * @param <E>      type of event
+   */
+  public <E extends GameEvent> void subscribe(Class<E> type, Delivery delivery,
+      GameEventListener<? super E> listener) {
+    topic(type).add(delivery, listener);
+  }
+
+  /**
+   * Stop a listener being called for a type of event, however it was subscribed
+   *
+   * @param type     type of event
+   * @param listener listener to remove
+   * @param <E>      type of event
+   */
+  public <E extends GameEvent> void unsubscribe(Class<E> type,
+      GameEventListener<? super E> listener) {
+    topic(type).remove(listener);
+  }
+
+  /**
+   * Take an event of a type from its pool, or create one if the pool is empty, to be filled in and
+   * published
+   *
+   * @param type type of event, which must be registered
+   * @param <E>  type of event
+   * @return the event
+   */
+  public <E extends GameEvent> E obtain(Class<E> type) {
+    Topic<E> topic = topic(type);
+    E event;
+    synchronized (topic) {
+      event = topic.pool.poll();
+    }
+    if (event != null) {
+      return event;
+    }
+    if (topic.factory == null) {
+      throw new IllegalStateException("Event type not registered: " + type.getSimpleName());
+    }
+    return topic.factory.get();
+  }
+
+  /**
+   * Publish an event obtained from this bus. SYNC subscribers are called straight away; other
+   * subscribers are called once the batch is flushed. The event must not be used by the publisher
+   * afterwards.
+   *
+   * @param event event to publish
+   * @param <E>   type of event
+   */
+  @SuppressWarnings("unchecked")
+  public <E extends GameEvent> void publish(E event) {
+    Topic<E> topic = topic((Class<E>) event.getClass());
+    for (GameEventListener<? super E> listener : topic.sync) {
+      call(listener, event);
+    }
+
+    boolean fx = topic.fx.length > 0;
+    boolean background = topic.background.length > 0;
+    if (!fx && !background) {
+      topic.recycle(event);
+      return;
+    }
+    synchronized (topic) {
+      event.pending = (fx ? 1 : 0) + (background ? 1 : 0);
+    }
+    if (fx) {
+      synchronized (fxQueue) {
+        fxQueue.add(event);
+        fxUnflushed++;
+      }
+    }
+    if (background) {
+      synchronized (backgroundQueue) {
+        backgroundQueue.add(event);
+        backgroundUnflushed++;
+      }
+    }
+  }
+
+  /**
+   * End the batch of events published since the last flush, and hand it over to the JavaFX and
+   * background threads
+   */
+  public void flush() {
+    boolean fx;
+    synchronized (fxQueue) {
+      fx = fxUnflushed > 0;
+      if (fx) {
+        fxQueue.add(BATCH_END);
+        fxUnflushed = 0;
+      }
+    }
+    if (fx) {
+      Platform.runLater(fxDrain);
+    }
+
+    boolean background;
+    synchronized (backgroundQueue) {
+      background = backgroundUnflushed > 0;
+      if (background) {
+        backgroundQueue.add(BATCH_END);
+        backgroundUnflushed = 0;
+      }
+    }
+    if (background) {
+      this.background.execute(backgroundDrain);
+    }
+  }
+
+  /**
+   * Deliver the oldest batch in a queue to the subscribers for its thread
+   *
+   * @param queue    queue to take the batch from
+   * @param delivery the subscribers to deliver to
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void drain(ArrayDeque<GameEvent> queue, Delivery delivery) {
+    while (true) {
+      GameEvent event;
+      synchronized (queue) {
+        event = queue.poll();
+      }
+      if (event == null || event == BATCH_END) {
+        return;
+      }
+
+      Topic topic = topics.get(event.getClass());
+      for (GameEventListener listener : topic.listeners(delivery)) {
+        call(listener, event);
+      }
+      synchronized (topic) {
+        if (--event.pending > 0) {
+          continue;
+        }
+      }
+      topic.recycle(event);
+    }
+  }
+
+  /**
+   * Call a listener, logging anything it throws so the other subscribers still get the event
+   *
+   * @param listener listener to call
+   * @param event    event to pass
+   * @param <E>      type of event
+   */
+  private static <E extends GameEvent> void call(GameEventListener<? super E> listener, E event) {
+    try {
+      listener.handle(event);
+    } catch (RuntimeException e) {
+      logger.error("Error handling " + event.getClass().getSimpleName(), e);
+    }
+  }
+
+  /**
+   * Get the topic of a type of event, creating it if this is the first use of the type
+   *
+   * @param type type of event
+   * @param <E>  type of event
+   * @return the topic
+   */
+  @SuppressWarnings("unchecked")
+  private <E extends GameEvent> Topic<E> topic(Class<E> type) {
+    Topic<?> topic = topics.get(type);
+    if (topic == null) {
+      topic = topics.computeIfAbsent(type, key -> new Topic<>());
+    }
+    return (Topic<E>) topic;
+  }
+
+  /**
+   * The subscribers and pool of one type of event. The subscriber arrays are replaced rather than
+   * changed, so they can be read without a lock.
+   *
+   * @param <E> type of event
+   */
+  private static class Topic<E extends GameEvent> {
+
+    /**
+     * Creates new events of the type
+     */
+    private volatile Supplier<E> factory;
+
+    /**
+     * The subscribers for each kind of delivery
+     */
+    private volatile GameEventListener<? super E>[] sync = empty();
+    private volatile GameEventListener<? super E>[] fx = empty();
+    private volatile GameEventListener<? super E>[] background = empty();
+
+    /**
+     * The events ready to be reused
+     */
+    private final ArrayDeque<E> pool = new ArrayDeque<>();
+
+    /**
+     * Get the subscribers for a kind of delivery
+     *
+     * @param delivery kind of delivery
+     * @return subscribers
+     */
+    private GameEventListener<? super E>[] listeners(Delivery delivery) {
+      return switch (delivery) {
+        case SYNC -> sync;
+        case FX -> fx;
+        case BACKGROUND -> background;
+      };
+    }
+
+    /**
+     * Add a subscriber
+     *
+     * @param delivery kind of delivery
+     * @param listener subscriber
+     */
+    private synchronized void add(Delivery delivery, GameEventListener<? super E> listener) {
+      GameEventListener<? super E>[] listeners = listeners(delivery);
+      listeners = Arrays.copyOf(listeners, listeners.length + 1);
+      listeners[listeners.length - 1] = listener;
+      switch (delivery) {
+        case SYNC -> sync = listeners;
+        case FX -> fx = listeners;
+        case BACKGROUND -> background = listeners;
+      }
+    }
+
+    /**
+     * Remove a subscriber from every kind of delivery
+     *
+     * @param listener subscriber
+     */
+    private synchronized void remove(GameEventListener<? super E> listener) {
+      sync = without(sync, listener);
+      fx = without(fx, listener);
+      background = without(background, listener);
+    }
+
+    /**
+     * Reset an event every subscriber has handled and put it back in the pool
+     *
+     * @param event event to reuse
+     */
+    private void recycle(E event) {
+      event.reset();
+      synchronized (this) {
+        if (pool.size() < POOL_SIZE) {
+          pool.push(event);
+        }
+      }
+    }
+
+    /**
+     * Copy an array of subscribers without one of them
+     *
+     * @param listeners subscribers
+     * @param listener  subscriber to leave out
+     * @return the subscribers left, or the same array if the subscriber was not in it
+     */
+    private static <E extends GameEvent> GameEventListener<? super E>[] without(
+        GameEventListener<? super E>[] listeners, GameEventListener<? super E> listener) {
+      for (int i = 0; i < listeners.length; i++) {
+        if (listeners[i] == listener) {
+          GameEventListener<? super E>[] left = Arrays.copyOf(listeners, listeners.length - 1);
+          System.arraycopy(listeners, i + 1, left, i, listeners.length - i - 1);
+          return left;
+        }
+      }
+      return listeners;
+    }
+
+    /**
+     * Create an empty array of subscribers
+     *
+     * @return empty array
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E extends GameEvent> GameEventListener<? super E>[] empty() {
+      return new GameEventListener[0];
+    }
+  }
+}
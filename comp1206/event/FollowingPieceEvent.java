@@ -0,0 +1,42 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * The Following Piece event is published when the piece after the current piece changes
+ */
+public final class FollowingPieceEvent extends GameEvent {
+
+  /**
+   * The new following piece
+   */
+  private GamePiece gamePiece;
+
+  /**
+   * Get the new following piece
+   *
+   * @return following piece
+   */
+  public GamePiece getGamePiece() {
+    return gamePiece;
+  }
+
+  /**
+   * Set the new following piece, before the event is published
+   *
+   * @param gamePiece following piece
+   * @return this event
+   */
+  public FollowingPieceEvent set(GamePiece gamePiece) {
+    this.gamePiece = gamePiece;
+    return this;
+  }
+
+  /**
+   * Clear the piece
+   */
+  @Override
+  protected void reset() {
+    gamePiece = null;
+  }
+}
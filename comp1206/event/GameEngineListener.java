@@ -0,0 +1,88 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * The Game Engine listener is used to handle the events raised by a GameEngine as the rules are
+ * applied, so that a front end can play sounds, animate and update its display. Every method does
+ * nothing by default, so a listener only needs to handle the events it is interested in.
+ */
+public interface GameEngineListener {
+
+  /**
+   * Handle a piece being played onto the grid, before the next piece is fetched and any lines are
+   * cleared
+   *
+   * @param gamePiece the piece that was played
+   * @param x         column of the centre of the piece
+   * @param y         row of the centre of the piece
+   */
+  public default void piecePlaced(GamePiece gamePiece, int x, int y) {
+  }
+
+  /**
+   * Handle a piece not being able to be played at the requested position
+   *
+   * @param gamePiece the piece that could not be played
+   * @param x         column of the centre of the piece
+   * @param y         row of the centre of the piece
+   */
+  public default void placementFailed(GamePiece gamePiece, int x, int y) {
+  }
+
+  /**
+   * Handle the current or following piece being changed
+   *
+   * @param currentPiece   the new current piece
+   * @param followingPiece the new following piece
+   */
+  public default void piecesChanged(GamePiece currentPiece, GamePiece followingPiece) {
+  }
+
+  /**
+   * Handle every block in a column being cleared
+   *
+   * @param x the column cleared
+   */
+  public default void columnCleared(int x) {
+  }
+
+  /**
+   * Handle every block in a row being cleared
+   *
+   * @param y the row cleared
+   */
+  public default void rowCleared(int y) {
+  }
+
+  /**
+   * Handle the lines cleared after a piece was played having been scored
+   *
+   * @param lines  number of lines cleared
+   * @param blocks number of blocks cleared
+   */
+  public default void linesCleared(int lines, int blocks) {
+  }
+
+  /**
+   * Handle the level being increased
+   *
+   * @param level the new level
+   */
+  public default void levelUp(int level) {
+  }
+
+  /**
+   * Handle a life being lost when the timer runs out
+   *
+   * @param lives the number of lives left
+   */
+  public default void lifeLost(int lives) {
+  }
+
+  /**
+   * Handle the game being over, after the last life was lost
+   */
+  public default void gameOver() {
+  }
+}
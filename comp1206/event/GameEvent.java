@@ -0,0 +1,23 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * A GameEvent is something which happened in a Game, published on an EventBus to every subscriber
+ * of its type.
+ * <p>
+ * Events are pooled and reused by the EventBus rather than created for every publish, so a
+ * subscriber must not keep an event, or change it, after it has been handled.
+ */
+public abstract class GameEvent {
+
+  /**
+   * The number of deliveries on other threads still to be made before the event can be reused.
+   * Only changed by the EventBus, while holding the lock of the event's topic.
+   */
+  int pending;
+
+  /**
+   * Clear the values of the event before it is put back in the pool, so it does not keep anything
+   * alive
+   */
+  protected abstract void reset();
+}
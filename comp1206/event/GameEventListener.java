@@ -0,0 +1,17 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Game Event Listener is used to subscribe to one type of GameEvent on an EventBus. It is
+ * passed each event of that type published, on the thread chosen when subscribing.
+ *
+ * @param <E> type of event handled
+ */
+public interface GameEventListener<E extends GameEvent> {
+
+  /**
+   * Handle an event. The event is reused once every subscriber has handled it, so must not be kept.
+   *
+   * @param event the event
+   */
+  public void handle(E event);
+}
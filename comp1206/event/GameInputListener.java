@@ -0,0 +1,49 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Game Input listener is used to handle every input made to a Game, whether by the player or
+ * the timer, in the order they were made. Together with the game's seed, the inputs are enough to
+ * replay the game exactly.
+ */
+public interface GameInputListener {
+
+  /**
+   * Handle the aim being moved with the keyboard
+   *
+   * @param x new aim column
+   * @param y new aim row
+   */
+  public void aimMoved(int x, int y);
+
+  /**
+   * Handle the current piece being rotated
+   *
+   * @param rotations number of clockwise rotations
+   */
+  public void pieceRotated(int rotations);
+
+  /**
+   * Handle the current and following pieces being swapped
+   */
+  public void piecesSwapped();
+
+  /**
+   * Handle an attempt to play the current piece, whether or not it could be played
+   *
+   * @param x column of the centre of the piece
+   * @param y row of the centre of the piece
+   */
+  public void blockClicked(int x, int y);
+
+  /**
+   * Handle the timer running out before a piece was played
+   */
+  public void timerExpired();
+
+  /**
+   * Handle the game ending, either by running out of lives or by being left
+   *
+   * @param score the final score
+   */
+  public void gameEnded(int score);
+}
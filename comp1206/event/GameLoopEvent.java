@@ -0,0 +1,40 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Game Loop event is published when the game timer is restarted, giving the player a new
+ * amount of time to play a piece
+ */
+public final class GameLoopEvent extends GameEvent {
+
+  /**
+   * The time until the timer runs out, in milliseconds
+   */
+  private int timerDelay;
+
+  /**
+   * Get the time until the timer runs out
+   *
+   * @return time in milliseconds
+   */
+  public int getTimerDelay() {
+    return timerDelay;
+  }
+
+  /**
+   * Set the time until the timer runs out, before the event is published
+   *
+   * @param timerDelay time in milliseconds
+   * @return this event
+   */
+  public GameLoopEvent set(int timerDelay) {
+    this.timerDelay = timerDelay;
+    return this;
+  }
+
+  /**
+   * Nothing to clear
+   */
+  @Override
+  protected void reset() {
+  }
+}
@@ -0,0 +1,39 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Game Over event is published once when the player has run out of lives
+ */
+public final class GameOverEvent extends GameEvent {
+
+  /**
+   * The final score
+   */
+  private int score;
+
+  /**
+   * Get the final score
+   *
+   * @return score
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * Set the final score, before the event is published
+   *
+   * @param score final score
+   * @return this event
+   */
+  public GameOverEvent set(int score) {
+    this.score = score;
+    return this;
+  }
+
+  /**
+   * Nothing to clear
+   */
+  @Override
+  protected void reset() {
+  }
+}
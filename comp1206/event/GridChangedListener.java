@@ -0,0 +1,20 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.GridChange;
+
+/**
+ * The Grid Changed listener is used to handle the event when one or more blocks in a Grid are
+ * updated. It is called once for each update committed to the Grid, passing the Grid that was
+ * changed and the set of blocks the update changed.
+ */
+public interface GridChangedListener {
+
+  /**
+   * Handle a grid changed event
+   *
+   * @param grid   the grid that was changed
+   * @param change the blocks changed by the update
+   */
+  public void gridChanged(Grid grid, GridChange change);
+}
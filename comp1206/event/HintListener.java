@@ -0,0 +1,19 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * The Hint listener is used to handle a hint being found for the current piece. It passes the
+ * piece, rotated as it should be played, and the block to play it centred on.
+ */
+public interface HintListener {
+
+  /**
+   * Handle a hint being found
+   *
+   * @param gamePiece the current piece in the rotation to play it, or null if it cannot be played
+   * @param x         column to play the piece centred on
+   * @param y         row to play the piece centred on
+   */
+  public void hintFound(GamePiece gamePiece, int x, int y);
+}
@@ -0,0 +1,59 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Line Cleared event is published once for each line of blocks cleared from the grid. The line
+ * is given by whether it is a row or a column and its index, so publishing it allocates nothing;
+ * the board works out the blocks in it.
+ */
+public final class LineClearedEvent extends GameEvent {
+
+  /**
+   * Whether the line is a row, rather than a column
+   */
+  private boolean row;
+
+  /**
+   * The index of the row or column
+   */
+  private int index;
+
+  /**
+   * Whether the line cleared is a row, rather than a column
+   *
+   * @return true for a row
+   */
+  public boolean isRow() {
+    return row;
+  }
+
+  /**
+   * Get the index of the row or column cleared
+   *
+   * @return row or column index
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Set the line cleared, before the event is published
+   *
+   * @param row   true if the line is a row, false if it is a column
+   * @param index index of the row or column
+   * @return this event
+   */
+  public LineClearedEvent set(boolean row, int index) {
+    this.row = row;
+    this.index = index;
+    return this;
+  }
+
+  /**
+   * Clear the line
+   */
+  @Override
+  protected void reset() {
+    row = false;
+    index = 0;
+  }
+}
@@ -0,0 +1,42 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * The Next Piece event is published when the piece to be played next, the current piece, changes
+ */
+public final class NextPieceEvent extends GameEvent {
+
+  /**
+   * The new current piece
+   */
+  private GamePiece gamePiece;
+
+  /**
+   * Get the new current piece
+   *
+   * @return current piece
+   */
+  public GamePiece getGamePiece() {
+    return gamePiece;
+  }
+
+  /**
+   * Set the new current piece, before the event is published
+   *
+   * @param gamePiece current piece
+   * @return this event
+   */
+  public NextPieceEvent set(GamePiece gamePiece) {
+    this.gamePiece = gamePiece;
+    return this;
+  }
+
+  /**
+   * Clear the piece
+   */
+  @Override
+  protected void reset() {
+    gamePiece = null;
+  }
+}
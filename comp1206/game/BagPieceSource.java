@@ -0,0 +1,123 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A PieceSource which deals every piece once, in a random order, before shuffling them all again
+ * for the next round. This stops long runs without a particular piece, which a uniform source
+ * allows.
+ */
+public class BagPieceSource implements PieceSource {
+
+  /**
+   * The seed the pieces are generated from
+   */
+  private final long seed;
+
+  /**
+   * The random number generator used to shuffle the bag
+   */
+  private final SplitMixRandom random;
+
+  /**
+   * The piece numbers in the current bag, in the order they will be dealt
+   */
+  private final int[] bag = new int[GamePiece.PIECES];
+
+  /**
+   * The position in the bag of the next piece to deal
+   */
+  private int next = GamePiece.PIECES;
+
+  /**
+   * Create a new source
+   *
+   * @param seed seed to generate the pieces from
+   */
+  public BagPieceSource(long seed) {
+    this.seed = seed;
+    this.random = new SplitMixRandom(seed);
+    for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+      bag[piece] = piece;
+    }
+  }
+
+  /**
+   * Create a source which carries on from part-way through the pieces of a seed, for resuming a
+   * saved game
+   *
+   * @param seed  seed the pieces were generated from
+   * @param state state of the random number generator, as returned by getState
+   * @param bag   piece numbers in the current bag, as returned by getBag
+   * @param next  position in the bag of the next piece to deal, as returned by getNext
+   */
+  public BagPieceSource(long seed, long state, int[] bag, int next) {
+    if (bag.length != GamePiece.PIECES || next < 0 || next > GamePiece.PIECES) {
+      throw new IllegalArgumentException("Invalid bag position: " + next);
+    }
+    this.seed = seed;
+    this.random = new SplitMixRandom(state);
+    System.arraycopy(bag, 0, this.bag, 0, GamePiece.PIECES);
+    this.next = next;
+  }
+
+  /**
+   * Deal the next piece from the bag, shuffling it first if it is empty
+   *
+   * @return the next GamePiece
+   */
+  @Override
+  public GamePiece nextPiece() {
+    if (next == GamePiece.PIECES) {
+      shuffle();
+      next = 0;
+    }
+    return GamePiece.createPiece(bag[next++]);
+  }
+
+  /**
+   * Shuffle the bag with a Fisher-Yates shuffle
+   */
+  private void shuffle() {
+    for (int i = GamePiece.PIECES - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int piece = bag[i];
+      bag[i] = bag[j];
+      bag[j] = piece;
+    }
+  }
+
+  /**
+   * Get the seed the pieces are generated from
+   *
+   * @return seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Get the state of the random number generator used to shuffle the bag
+   *
+   * @return generator state
+   */
+  public long getState() {
+    return random.getState();
+  }
+
+  /**
+   * Get the piece numbers in the current bag, in the order they are dealt
+   *
+   * @return copy of the bag
+   */
+  public int[] getBag() {
+    return bag.clone();
+  }
+
+  /**
+   * Get the position in the bag of the next piece to deal
+   *
+   * @return bag position
+   */
+  public int getNext() {
+    return next;
+  }
+}
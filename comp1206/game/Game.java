@@ -1,34 +1,55 @@
 package uk.ac.soton.comp1206.game;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Random;
-import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.GameBlock;
-import uk.ac.soton.comp1206.component.GameBlockCoordinate;
-import uk.ac.soton.comp1206.event.FollowingPieceListener;
-import uk.ac.soton.comp1206.event.GameLoopListener;
-import uk.ac.soton.comp1206.event.GameOverListener;
-import uk.ac.soton.comp1206.event.LineClearedListener;
-import uk.ac.soton.comp1206.event.NextPieceListener;
+import uk.ac.soton.comp1206.event.BoardChangedEvent;
+import uk.ac.soton.comp1206.event.EventBus;
+import uk.ac.soton.comp1206.event.FollowingPieceEvent;
+import uk.ac.soton.comp1206.event.GameEngineListener;
+import uk.ac.soton.comp1206.event.GameInputListener;
+import uk.ac.soton.comp1206.event.GameLoopEvent;
+import uk.ac.soton.comp1206.event.GameOverEvent;
+import uk.ac.soton.comp1206.event.LineClearedEvent;
+import uk.ac.soton.comp1206.event.NextPieceEvent;
 import uk.ac.soton.comp1206.multimedia.Multimedia;
 
 /**
- * The Game class handles the main logic, state and properties of the TetrECS game. Methods to
- * manipulate the game state and to handle actions made by the player should take place inside this
- * class.
+ * The Game class handles the state and properties of the TetrECS game as it is played through the
+ * UI. Methods to handle actions made by the player should take place inside this class.
+ * <p>
+ * The rules themselves are applied by a headless GameEngine. The Game drives the engine from the
+ * player's input and the game timer, and adapts it to the scenes: it mirrors the engine's values
+ * into JavaFX properties, plays sounds and publishes events on an EventBus.
+ * <p>
+ * The engine is only ever used on the game's own thread. Input from the player and the timer
+ * running out are sent to a GameActor as commands, which runs them in order on the game clock's
+ * thread. After each batch of commands an immutable GameSnapshot is published to the JavaFX thread,
+ * which updates the properties, and the events for the batch are published together.
  */
 public class Game {
 
   protected static final Logger logger = LogManager.getLogger(Game.class);
 
+  /**
+   * The most aim commands which can be waiting to run before more are dropped, which is also the
+   * most commands run in one batch
+   */
+  private static final int COMMAND_CAPACITY = 64;
+
+  /**
+   * The most moves which can be undone in a practice game
+   */
+  private static final int HISTORY_SIZE = 1000;
+
   /**
    * The values of the score, level, lives and multiplier
    */
@@ -38,72 +59,88 @@ public class Game {
   protected final SimpleIntegerProperty multiplier = new SimpleIntegerProperty();
 
   /**
-   * The random number generator used for GamePiece generation
+   * The source of the pieces played
    */
-  protected final Random random = new Random();
+  protected final PieceSource pieceSource;
 
   /**
-   * The timer used to schedule game loop method
+   * The timer used to call the game loop method when the player runs out of time
    */
-  protected final Timer timer = new Timer();
+  protected final GameTimer timer;
 
   /**
-   * Number of rows
+   * The actor running every command which changes the state of the game
    */
-  protected final int rows;
+  protected final GameActor actor;
 
   /**
-   * Number of columns
+   * The latest snapshot shown on the JavaFX thread
    */
-  protected final int cols;
+  protected volatile GameSnapshot snapshot = GameSnapshot.EMPTY;
 
   /**
-   * The grid model linked to the game
+   * The latest snapshot published by the game thread
    */
-  protected final Grid grid;
+  private GameSnapshot published = GameSnapshot.EMPTY;
 
   /**
-   * The listener to call when the next-piece is updated
+   * The latest snapshot of the grid, which the next one shares its unchanged rows with. Only used
+   * on the game thread.
    */
-  protected NextPieceListener nextPieceListener;
+  private GridSnapshot publishedGrid;
 
   /**
-   * The listener to call when the following-piece is updated
+   * The sounds made, lines cleared and whether the timer was restarted in the batch of commands
+   * being run. Only used on the game thread.
    */
-  protected FollowingPieceListener followingPieceListener;
+  private final List<String> batchSounds = new ArrayList<>();
+  private int[] batchClearedLines = new int[8];
+  private int batchClearedCount;
+  private boolean batchTimerRestarted;
 
   /**
-   * The listener to call when a line is cleared
+   * The time the timer was last restarted with, in milliseconds. Only used on the game thread.
    */
-  protected LineClearedListener lineClearedListener;
+  private int timerDelay;
 
   /**
-   * The listener to call when the game loop method is restarted
+   * Number of rows
    */
-  protected GameLoopListener gameLoopListener;
+  protected final int rows;
 
   /**
-   * The listener to call when the game is over
+   * Number of columns
    */
-  protected GameOverListener gameOverListener;
+  protected final int cols;
 
   /**
-   * The current GamePiece
+   * The engine which applies the rules of the game
    */
-  protected GamePiece currentPiece;
+  protected final GameEngine engine;
 
   /**
-   * The following GamePiece
+   * The grid model linked to the game
+   */
+  protected final Grid grid;
+
+  /**
+   * The bus the game's events are published on, once per batch of commands, from the game thread
+   */
+  protected final EventBus events = new EventBus();
+
+  /**
+   * The history of moves which can be undone, or null if this is not a practice game. Only used
+   * on the game thread.
    */
-  protected GamePiece followingPiece;
+  protected GameHistory history;
 
   /**
-   * The timer task assigned to the timer which calls the game loop method
+   * Listener to call with every input made to the game
    */
-  protected TimerTask task;
+  protected GameInputListener gameInputListener;
 
   /**
-   * boolean value used to stop the timer
+   * boolean value used to stop the timer. Only used on the game thread.
    */
   protected boolean bStop = false;
 
@@ -119,17 +156,266 @@ public class Game {
 
 
   /**
-   * Create a new game with the specified rows and columns. Creates a corresponding grid model.
+   * Create a new game with the specified rows and columns, with uniformly random pieces from an
+   * unpredictable seed. Creates a corresponding grid model.
    *
    * @param cols number of columns
    * @param rows number of rows
    */
   public Game(int cols, int rows) {
+    this(cols, rows, new UniformPieceSource(System.nanoTime()));
+  }
+
+  /**
+   * Create a new game with the specified rows and columns, taking its pieces from the given
+   * source and timing it on the client's shared clock. Creates a corresponding grid model.
+   *
+   * @param cols        number of columns
+   * @param rows        number of rows
+   * @param pieceSource source of the pieces played
+   */
+  public Game(int cols, int rows, PieceSource pieceSource) {
+    this(cols, rows, pieceSource, SchedulerClock.getInstance());
+  }
+
+  /**
+   * Create a new game with the specified rows and columns, taking its pieces from the given
+   * source and timing it on the given clock. Creates a corresponding grid model.
+   *
+   * @param cols        number of columns
+   * @param rows        number of rows
+   * @param pieceSource source of the pieces played
+   * @param clock       clock to time the game on
+   */
+  public Game(int cols, int rows, PieceSource pieceSource, GameClock clock) {
     this.cols = cols;
     this.rows = rows;
+    this.pieceSource = pieceSource;
+    //Every command runs on the clock's thread, including the timer running out
+    this.actor = new GameActor(task -> clock.schedule(task, 0), COMMAND_CAPACITY,
+        this::publishSnapshot);
+    this.timer = new GameTimer(clock, () -> actor.put(this::gameLoop));
+
+    //Create a new engine to apply the rules, fetching its pieces through this game
+    this.engine = new GameEngine(cols, rows, pieceSource) {
+      @Override
+      protected GamePiece spawnPiece() {
+        return Game.this.spawnPiece();
+      }
+    };
+    this.engine.setListener(createEngineListener());
+
+    //The engine's grid model represents the game state
+    this.grid = engine.getGrid();
 
-    //Create a new grid model to represent the game state
-    this.grid = new Grid(cols, rows);
+    events.register(BoardChangedEvent.class, BoardChangedEvent::new);
+    events.register(NextPieceEvent.class, NextPieceEvent::new);
+    events.register(FollowingPieceEvent.class, FollowingPieceEvent::new);
+    events.register(LineClearedEvent.class, LineClearedEvent::new);
+    events.register(GameLoopEvent.class, GameLoopEvent::new);
+    events.register(GameOverEvent.class, GameOverEvent::new);
+  }
+
+  /**
+   * Create the listener which reacts to the engine applying the rules, playing the appropriate
+   * sounds and passing events on to the UI
+   *
+   * @return engine listener
+   */
+  private GameEngineListener createEngineListener() {
+    return new GameEngineListener() {
+      @Override
+      public void piecePlaced(GamePiece gamePiece, int x, int y) {
+        logger.info("Piece played!");
+
+        //If piece was played, play the appropriate "YES" sound
+        playSound("place.wav");
+
+        //Reset the game loop timer
+        restartTimer();
+      }
+
+      @Override
+      public void placementFailed(GamePiece gamePiece, int x, int y) {
+        //Play the appropriate "piece cannot be played" sound
+        playSound("fail.wav");
+
+        logger.info("Invalid Location!");
+      }
+
+      @Override
+      public void columnCleared(int x) {
+        //Remember the column, for the Line Cleared event
+        addClearedLine(false, x);
+      }
+
+      @Override
+      public void rowCleared(int y) {
+        //Remember the row, for the Line Cleared event
+        addClearedLine(true, y);
+      }
+
+      @Override
+      public void linesCleared(int lines, int blocks) {
+        //Play the clear line sound
+        playSound("clear.wav");
+      }
+
+      @Override
+      public void levelUp(int level) {
+        //Play level up sound
+        playSound("level.wav");
+      }
+
+      @Override
+      public void lifeLost(int lives) {
+        //Play appropriate life lost sound
+        playSound("explode.wav");
+      }
+
+      @Override
+      public void gameOver() {
+        //The timer should stop executing. The Challenge Scene is told when the snapshot is shown
+        bStop = true;
+        endInput();
+      }
+    };
+  }
+
+  /**
+   * Remember a line cleared in the current batch of commands. Only called on the game thread.
+   *
+   * @param row   true if the line is a row, false if it is a column
+   * @param index index of the row or column
+   */
+  private void addClearedLine(boolean row, int index) {
+    if (batchClearedCount == batchClearedLines.length) {
+      batchClearedLines = Arrays.copyOf(batchClearedLines, batchClearedCount * 2);
+    }
+    batchClearedLines[batchClearedCount++] = GameSnapshot.packLine(row, index);
+  }
+
+  /**
+   * Queue a sound to be played when the current batch of commands is shown, once however many
+   * times it was made in the batch. Only called on the game thread.
+   *
+   * @param sound sound file name
+   */
+  protected void playSound(String sound) {
+    if (!batchSounds.contains(sound)) {
+      batchSounds.add(sound);
+    }
+  }
+
+  /**
+   * Called on the game thread after every batch of commands. Takes a snapshot of the engine and
+   * what happened during the batch, and if anything has changed shows it on the JavaFX thread.
+   */
+  private void publishSnapshot() {
+    publishedGrid = grid.snapshot(publishedGrid);
+    var next = new GameSnapshot(publishedGrid, engine.getScore(), engine.getLevel(), engine.getLives(),
+        engine.getMultiplier(), engine.getCurrentPiece(), engine.getFollowingPiece(),
+        timerDelay, List.copyOf(batchSounds), batchClearedCount == 0 ? GameSnapshot.NO_LINES
+            : Arrays.copyOf(batchClearedLines, batchClearedCount),
+        batchTimerRestarted, engine.isGameOver());
+    batchSounds.clear();
+    batchClearedCount = 0;
+    batchTimerRestarted = false;
+
+    //Nothing to show if the batch only recorded input
+    if (next.getSounds().isEmpty() && next.getClearedLineCount() == 0 && !next.isTimerRestarted()
+        && next.getGrid().isSameAs(published.getGrid())
+        && next.getScore() == published.getScore() && next.getLevel() == published.getLevel()
+        && next.getLives() == published.getLives()
+        && next.getMultiplier() == published.getMultiplier()
+        && next.getCurrentPiece() == published.getCurrentPiece()
+        && next.getFollowingPiece() == published.getFollowingPiece()
+        && next.isGameOver() == published.isGameOver()) {
+      return;
+    }
+    GameSnapshot previous = published;
+    published = next;
+    Platform.runLater(() -> showSnapshot(next));
+    publishEvents(previous, next);
+  }
+
+  /**
+   * Publish the events for what changed between two snapshots and flush them as one batch. The
+   * batch is delivered to the JavaFX thread after the snapshot is shown. Only called on the game
+   * thread.
+   *
+   * @param previous snapshot published before
+   * @param next     snapshot being published
+   */
+  private void publishEvents(GameSnapshot previous, GameSnapshot next) {
+    if (!next.getGrid().isSameAs(previous.getGrid())) {
+      events.publish(events.obtain(BoardChangedEvent.class).set(next.getGrid()));
+    }
+    if (next.getCurrentPiece() != previous.getCurrentPiece()) {
+      events.publish(events.obtain(NextPieceEvent.class).set(next.getCurrentPiece()));
+    }
+    if (next.getFollowingPiece() != previous.getFollowingPiece()) {
+      events.publish(events.obtain(FollowingPieceEvent.class).set(next.getFollowingPiece()));
+    }
+    for (int line = 0; line < next.getClearedLineCount(); line++) {
+      events.publish(events.obtain(LineClearedEvent.class)
+          .set(next.isClearedRow(line), next.getClearedLineIndex(line)));
+    }
+    if (next.isTimerRestarted()) {
+      events.publish(events.obtain(GameLoopEvent.class).set(next.getTimerDelay()));
+    }
+    if (next.isGameOver() && !previous.isGameOver()) {
+      events.publish(events.obtain(GameOverEvent.class).set(next.getScore()));
+    }
+    events.flush();
+  }
+
+  /**
+   * Show a snapshot published by the game thread: update the properties and play its sounds. Called
+   * on the JavaFX thread, before the events for the snapshot are delivered.
+   *
+   * @param next snapshot to show
+   */
+  protected void showSnapshot(GameSnapshot next) {
+    snapshot = next;
+
+    setScore(next.getScore());
+    setLevel(next.getLevel());
+    setLives(next.getLives());
+    setMultiplier(next.getMultiplier());
+
+    for (String sound : next.getSounds()) {
+      Multimedia.playSound(sound);
+    }
+  }
+
+  /**
+   * Get the latest snapshot of the game shown on the JavaFX thread
+   *
+   * @return game snapshot
+   */
+  public GameSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Send a command to be run on the game thread, after any already waiting. The command may use
+   * the engine directly. It is never dropped, however many commands are waiting.
+   *
+   * @param command command to run
+   */
+  public void submit(Runnable command) {
+    actor.put(command);
+  }
+
+  /**
+   * Get the engine applying the rules of this game. It must only be used on the game thread, from
+   * a command sent with submit.
+   *
+   * @return game engine
+   */
+  public GameEngine getEngine() {
+    return engine;
   }
 
   /**
@@ -223,36 +509,45 @@ public class Game {
         lives: 3
         multiplier: 1""");
 
-    //Setting the appropriate game values
-    setScore(0);
-    setLevel(0);
-    setLives(3);
-    setMultiplier(1);
     setXAim(0);
     setYAim(0);
 
-    //Schedule the game loop timer to start with a duration of the calculated timer delay
-    timer.schedule(task = new TimerTask() {
-      @Override
-      public void run() {
-        gameLoop();
+    actor.put(() -> {
+      //Reset the game values and fetch the current and following GamePieces
+      engine.start();
+      if (history != null) {
+        history.clear();
       }
-    }, getTimerDelay());
 
-    //Set game loop listener to true to indicate the game loop timer has started
-    gameLoopListener.gameLoop(true);
+      //Schedule the game loop timer to start with a duration of the calculated timer delay
+      restartTimer();
 
-    //Set the current GamePiece to a randomly generated GamePiece
-    currentPiece = spawnPiece();
+      logger.info("Everything setup!");
+    });
+  }
+
+  /**
+   * Carry on with a game which was suspended, instead of starting a new one. The engine is put into
+   * the saved state on the game thread, and the timer runs for the time that was left.
+   *
+   * @param restore       puts the engine into the saved state, called on the game thread
+   * @param timeRemaining milliseconds that were left on the timer, or 0 for the full time
+   */
+  public void resume(Consumer<GameEngine> restore, int timeRemaining) {
+    logger.info("Resuming game");
 
-    //Set the following GamePiece to a randomly generated GamePiece
-    followingPiece = spawnPiece();
+    setXAim(0);
+    setYAim(0);
 
-    //Update the Next Piece Listener and the Following Piece Listener
-    nextPieceListener.nextPiece(currentPiece);
-    followingPieceListener.followingPiece(followingPiece);
+    actor.put(() -> {
+      restore.accept(engine);
+      if (history != null) {
+        history.clear();
+      }
+      restartTimer(timeRemaining > 0 ? timeRemaining : engine.getTimerDelay());
 
-    logger.info("Everything setup!");
+      logger.info("Game resumed at score {}", engine.getScore());
+    });
   }
 
   /**
@@ -261,215 +556,118 @@ public class Game {
    * @param gameBlock the block that was clicked
    */
   public void blockClicked(GameBlock gameBlock) {
-    //Get the position of this block
-    int x = gameBlock.getX();
-    int y = gameBlock.getY();
-
-    //Try and place the current piece at the position of the clicked GameBlock
-    if (grid.playPiece(currentPiece, x, y)) {
-      logger.info("Piece played!");
-
-      //If piece was played, play the appropriate "YES" sound
-      Multimedia.playSound("place.wav");
-
-      //Reset the game loop timer
-      task.cancel();
-      timer.schedule(task = new TimerTask() {
-        @Override
-        public void run() {
-          gameLoop();
-        }
-      }, getTimerDelay());
-
-      //Update the game loop listener
-      gameLoopListener.gameLoop(true);
-
-      //Fetch the next piece
-      nextPiece();
-
-      //Update the Next Piece Listener and the Following Piece Listener
-      nextPieceListener.nextPiece(currentPiece);
-      followingPieceListener.followingPiece(followingPiece);
-
-      //Check for any lines that need to be cleared
-      afterPiece();
-    } else {
-      //Play the appropriate "piece cannot be played" sound
-      Multimedia.playSound("fail.wav");
-
-      logger.info("Invalid Location!");
-    }
+    blockClicked(gameBlock.getX(), gameBlock.getY());
   }
 
   /**
-   * Check to see if any lines need to be cleared
+   * Try and place the current piece centred on the given block
+   *
+   * @param x column
+   * @param y row
    */
-  protected void afterPiece() {
-    //Initialise two boolean variables to update if lines need to be cleared
-    boolean clearRow = false;
-    boolean clearCol = false;
-
-    //Initialise two array lists to hold the rows and columns that need to be cleared
-    ArrayList<Integer> row = new ArrayList<>();
-    ArrayList<Integer> col = new ArrayList<>();
-
-    //Iterate through the rows to check if horizontal lines need to be cleared
-    for (int x = 0; x < cols; x++) {
-      int counter = 0;
-      for (int y = 0; y < rows; y++) {
-        //If the value of the grid is 0, skip over the row
-        if (grid.get(x, y) == 0) {
-          break;
-        }
-        //If not, add up the number of blocks with values in them
-        counter++;
+  public void blockClicked(int x, int y) {
+    actor.put(() -> {
+      if (gameInputListener != null) {
+        gameInputListener.blockClicked(x, y);
       }
-      //If the counter with the number of blocks with values is equal
-      // to the number of rows on the grid, set boolean clearRow to true and save the row number
-      if (counter == rows) {
-        clearRow = true;
-        row.add(x);
-      }
-    }
+      move(() -> engine.playPiece(x, y));
+    });
+  }
 
-    //Repeat for columns and iterate through the columns to check if
-    // vertical lines need to be cleared
-    for (int y = 0; y < rows; y++) {
-      int counter = 0;
-      for (int x = 0; x < cols; x++) {
-        if (grid.get(x, y) == 0) {
-          break;
-        }
-        counter++;
-      }
-      if (counter == cols) {
-        //If any columns were found with block values equal to the number columns, set
-        // the boolean clearCol to true and save the column number
-        clearCol = true;
-        col.add(y);
-      }
+  /**
+   * Make a move, keeping it in the history if this is a practice game. Only called on the game
+   * thread.
+   *
+   * @param move the move to make, returning whether it was made
+   * @return true if the move was made
+   */
+  protected boolean move(BooleanSupplier move) {
+    if (history == null) {
+      return move.getAsBoolean();
     }
+    return history.record(move);
+  }
 
-    //Check to see if there are both columns and rows that need clearing
-    if (clearRow && clearCol) {
-      for (Integer rows : row) {
-        clearRow(rows);
-      }
-      for (Integer cols : col) {
-        clearCol(cols);
-      }
-
-      //Play the clear line sound
-      Multimedia.playSound("clear.wav");
-
-      //Set the game score to the calculated value of lines and blocks  cleared, taking
-      // into account any extra blocks that may have been counted twice
-      setScore(getScore().get() + score(row.size() + col.size(),
-          ((row.size() + col.size()) * 5) - 1));
-
-      //Set the game multiplier to one value higher than the previous
-      setMultiplier(getMultiplier().get() + 1);
-
-      //Otherwise, check to see if only any rows need to be cleared
-    } else if (clearRow) {
-      for (Integer rows : row) {
-        clearRow(rows);
+  /**
+   * Undo the last move, if this is a practice game, giving the player the full time again
+   */
+  public void undo() {
+    actor.put(() -> {
+      if (history != null && history.undo()) {
+        playSound("rotate.wav");
+        restartTimer();
       }
+    });
+  }
 
-      //Play the clear line sound
-      Multimedia.playSound("clear.wav");
-
-      //Set the game score to the calculated value of lines and number of blocks cleared
-      setScore(getScore().get() + score(row.size(), (row.size()) * 5));
-
-      //Set the game multiplier to one value higher than the previous
-      setMultiplier(getMultiplier().get() + 1);
-
-      //Otherwise, check to see if only any columns need to be cleared
-    } else if (clearCol) {
-      for (Integer cols : col) {
-        clearCol(cols);
+  /**
+   * Redo the last move undone, if this is a practice game
+   */
+  public void redo() {
+    actor.put(() -> {
+      if (history != null && history.redo()) {
+        playSound("rotate.wav");
+        restartTimer();
       }
-
-      //Play the clear line sound
-      Multimedia.playSound("clear.wav");
-
-      //Set the game score to the calculated value of lines and number of blocks cleared
-      setScore(getScore().get() + score(col.size(), (col.size()) * 5));
-
-      //Set the game multiplier to one value higher than the previous
-      setMultiplier(getMultiplier().get() + 1);
-    } else {
-      //Otherwise, set the multiplier back to 1
-      setMultiplier(1);
-    }
-
-    //Check to see if enough points were earned to increase the game level
-    levelCheck();
+    });
   }
 
   /**
-   * Checks to see if enough points were scored to increase the game level
+   * Make this a practice game, where moves can be undone and redone, or a normal one. Must be set
+   * before the game is started.
+   *
+   * @param practice true for a practice game
    */
-  protected void levelCheck() {
-    if (getScore().get() >= ((getLevel().get() + 1) * 1000)) {
+  public void setPractice(boolean practice) {
+    history = practice ? new GameHistory(engine, HISTORY_SIZE) : null;
+  }
 
-      //Play level up sound
-      Multimedia.playSound("level.wav");
+  /**
+   * Whether this is a practice game, where moves can be undone
+   *
+   * @return true if a practice game
+   */
+  public boolean isPractice() {
+    return history != null;
+  }
 
-      //Set the level to one plus the previous level
-      setLevel(getLevel().get() + 1);
-    }
+  /**
+   * Cancel any scheduled game loop and schedule a new one with a duration of the calculated timer
+   * delay, updating the game loop listener when the batch is shown. Only called on the game
+   * thread.
+   */
+  protected void restartTimer() {
+    restartTimer(engine.getTimerDelay());
   }
 
   /**
-   * Takes a row and clears all the blocks in that row
+   * Cancel any scheduled game loop and schedule a new one with the given duration. Only called on
+   * the game thread.
    *
-   * @param row row to be cleared
+   * @param delay time until the game loop fires in milliseconds
    */
-  protected void clearRow(int row) {
-    //Creates a set to hold the game block coordinates
-    Set<GameBlockCoordinate> set = new HashSet<>();
-    for (int x = 0; x < cols; x++) {
-      if (x == row) {
-        for (int y = 0; y < rows; y++) {
-          //Add the valid block coordinate to the hashset
-          set.add(new GameBlockCoordinate(x,y));
-
-          //Set the grid value to 0 (empty)
-          grid.set(x, y, 0);
-        }
-      }
+  protected void restartTimer(int delay) {
+    if (bStop) {
+      return;
     }
-    //Pass and update the Line Cleared Listener with the Hashset
-    lineClearedListener.lineClear(set);
+    timer.restart(delay);
+    timerDelay = delay;
+    batchTimerRestarted = true;
   }
 
   /**
-   * Takes a column and clears all the blocks in that column
+   * Get the time left to play the current piece. Only called on the game thread.
    *
-   * @param col column to be cleared
+   * @return milliseconds left, or 0 if the timer is stopped
    */
-  protected void clearCol(int col) {
-    //Creates a set to hold the game block coordinates
-    Set<GameBlockCoordinate> set = new HashSet<>();
-    for (int y = 0; y < rows; y++) {
-      if (y == col) {
-        for (int x = 0; x < cols; x++) {
-          //Add the valid block coordinate to the hashset
-          set.add(new GameBlockCoordinate(x,y));
-
-          //Set the grid value to 0 (empty)
-          grid.set(x, y, 0);
-        }
-      }
-    }
-    //Pass and update the Line Cleared Listener with the Hashset
-    lineClearedListener.lineClear(set);
+  public long getTimeRemaining() {
+    return timer.getRemaining();
   }
 
   /**
-   * Get the grid model inside this game representing the game state of the board
+   * Get the grid model inside this game representing the game state of the board. The grid is
+   * changed on the game thread, so it must only be used there; anything on the JavaFX thread shows
+   * the grid from the published snapshots instead.
    *
    * @return game grid model
    */
@@ -496,74 +694,92 @@ public class Game {
   }
 
   /**
-   * Creates and returns a random GamePiece generated using the random variable
+   * Fetches the next GamePiece from the piece source. Called on the game thread.
    *
-   * @return a randomly generated GamePiece
+   * @return the next GamePiece
    */
   public GamePiece spawnPiece() {
-    return GamePiece.createPiece(random.nextInt(0, 15));
+    return pieceSource.nextPiece();
+  }
+
+  /**
+   * Get the source of the pieces played
+   *
+   * @return piece source
+   */
+  public PieceSource getPieceSource() {
+    return pieceSource;
   }
 
   /**
    * Used to generate the next piece after a GamePiece is played.
    */
   public void nextPiece() {
-    //Set current piece as the following piece and create a new following piece
-    currentPiece = followingPiece;
-    followingPiece = spawnPiece();
-
-    //Update both piece listeners
-    nextPieceListener.nextPiece(currentPiece);
-    followingPieceListener.followingPiece(followingPiece);
+    actor.put(engine::nextPiece);
   }
 
   /**
    * Swaps the current piece with the following piece
    */
   public void swapCurrentPiece() {
-    //Play the appropriate piece swap sound
-    Multimedia.playSound("rotate.wav");
-
-    //Store the current piece in a preliminary GamePiece variable
-    GamePiece prelimPiece = currentPiece;
-
-    //Swap the current piece with the following piece
-    currentPiece = followingPiece;
-
-    //Set the following piece as the preliminary GamePiece (current piece)
-    followingPiece = prelimPiece;
+    actor.put(() -> {
+      //Play the appropriate piece swap sound
+      playSound("rotate.wav");
 
-    //Update both piece listeners
-    nextPieceListener.nextPiece(currentPiece);
-    followingPieceListener.followingPiece(followingPiece);
+      if (gameInputListener != null) {
+        gameInputListener.piecesSwapped();
+      }
+      engine.swapCurrentPiece();
+    });
   }
 
   /**
    * Rotates the current piece once anti-clockwise
    */
   public void rotateCurrentPieceAnti() {
-    //Play the appropriate piece rotation sound
-    Multimedia.playSound("rotate.wav");
-
-    //Rotate the piece once anti-clockwise
-    currentPiece.rotate(3);
-
-    //Update the Next Piece Listener
-    nextPieceListener.nextPiece(currentPiece);
+    rotateCurrentPiece(3);
   }
 
   /**
    * Rotates the current piece once clockwise
    */
   public void rotateCurrentPieceClock() {
-    //Play the appropriate piece rotation sound
-    Multimedia.playSound("rotate.wav");
+    rotateCurrentPiece(1);
+  }
+
+  /**
+   * Rotates the current piece clockwise the given number of times
+   *
+   * @param rotations number of rotations
+   */
+  protected void rotateCurrentPiece(int rotations) {
+    actor.put(() -> {
+      //Play the appropriate piece rotation sound
+      playSound("rotate.wav");
+
+      if (gameInputListener != null) {
+        gameInputListener.pieceRotated(rotations);
+      }
+      engine.rotateCurrentPiece(rotations);
+    });
+  }
 
-    //Rotate the piece once clockwise
-    currentPiece.rotate();
+  /**
+   * Returns the current GamePiece, as last shown
+   *
+   * @return current piece
+   */
+  public GamePiece getCurrentPiece() {
+    return snapshot.getCurrentPiece();
+  }
 
-    //Update the Next Piece Listener
-    nextPieceListener.nextPiece(currentPiece);
+  /**
+   * Returns the following GamePiece, as last shown
+   *
+   * @return following piece
+   */
+  public GamePiece getFollowingPiece() {
+    return snapshot.getFollowingPiece();
   }
 
   /**
@@ -574,75 +790,76 @@ public class Game {
    * @return the calculated game score
    */
   public int score(int numOfLines, int numOfBlocks) {
-    return (numOfLines * numOfBlocks * 10 * getMultiplier().get());
+    return engine.score(numOfLines, numOfBlocks);
   }
 
   /**
-   * Method to calculate the correct length of time before the game loop method should fire
+   * Method to calculate the correct length of time before the game loop method should fire, at the
+   * level last shown
    *
    * @return the calculated time
    */
   public int getTimerDelay() {
-    return Math.max((12000 - 500 * getLevel().get()), 2500);
+    return snapshot.getTimerDelay();
   }
 
   /**
-   * Method that fires once the game timer gets to 0 after scheduling.
+   * Method that fires on the game thread once the game timer gets to 0 after scheduling.
    * <p>
    * The player loses a life, the multiplier is set to 1, and a new piece is generated.
    */
   public void gameLoop() {
-    //Play appropriate life lost sound
-    Multimedia.playSound("explode.wav");
-
-    //Set the lives to one less than before
-    setLives(getLives().get() - 1);
-
-    //Set multiplier back to 1
-    setMultiplier(1);
-
-    //Generate a new GamePiece
-    nextPiece();
-
-    //Check to see if player lives is less than 0
-    if (getLives().get() < 0) {
-      //If true, timer should stop executing...
-      bStop = true;
-
-      //...and a message should be sent to the Challenge Scene
-      Platform.runLater(this::gameOver);
+    if (bStop) {
+      //The game was left while the timer was running out
+      return;
+    }
+    if (gameInputListener != null) {
+      gameInputListener.timerExpired();
     }
+    move(() -> {
+      engine.timerExpired();
+      return true;
+    });
 
     //Check to see if timer should continue scheduling a new Timer Task
     if (!bStop) {
-      //If not, cancel the previous task...
-      task.cancel();
-
-      //...and schedule a new task/game loop.
-      timer.schedule(task = new TimerTask() {
-        @Override
-        public void run() {
-          gameLoop();
-        }
-      }, getTimerDelay());
-
-      //Update the Game Loop Listener
-      gameLoopListener.gameLoop(true);
+      restartTimer();
     }
   }
 
   /**
-   * Cancels the timer once the player lives reaches below 0
+   * Cancels the timer when the game is left, once any commands already sent have run
    */
-  public synchronized void cancelTimer() {
-    timer.cancel();
+  public void cancelTimer() {
+    cancelTimer(null);
   }
 
   /**
-   * Updates the Game Over Listener to indicate the game is over
+   * Cancels the timer when the game is left, once any commands already sent have run. A last
+   * command, for example to save the game, is run on the game thread first unless the game is
+   * already over.
+   *
+   * @param lastCommand command to run before stopping, which may use the engine directly, or null
    */
-  public synchronized void gameOver() {
-    gameOverListener.gameOver(true);
+  public void cancelTimer(Runnable lastCommand) {
+    actor.put(() -> {
+      if (lastCommand != null && !bStop && !engine.isGameOver()) {
+        lastCommand.run();
+      }
+      bStop = true;
+      timer.cancel();
+      endInput();
+    });
+  }
+
+  /**
+   * Tell the input listener the game has ended, once only. Only called on the game thread.
+   */
+  protected void endInput() {
+    if (gameInputListener != null) {
+      gameInputListener.gameEnded(engine.getScore());
+      gameInputListener = null;
+    }
   }
 
   /**
@@ -652,8 +869,9 @@ public class Game {
    */
   public void changeXAim(int change) {
     int newXAim = xAim.get() + change;
-    if (newXAim >= 0 && newXAim < 5) {
+    if (newXAim >= 0 && newXAim < cols) {
       xAim.set(newXAim);
+      aimMoved(xAim.get(), yAim.get());
     }
   }
 
@@ -664,11 +882,44 @@ public class Game {
    */
   public void changeYAim(int change) {
     int newYAim = yAim.get() + change;
-    if (newYAim >= 0 && newYAim < 5) {
+    if (newYAim >= 0 && newYAim < rows) {
       yAim.set(newYAim);
+      aimMoved(xAim.get(), yAim.get());
     }
   }
 
+  /**
+   * Aim at a block, for example the one under the mouse
+   *
+   * @param x column
+   * @param y row
+   */
+  public void aimAt(int x, int y) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows
+        || (x == xAim.get() && y == yAim.get())) {
+      return;
+    }
+    xAim.set(x);
+    yAim.set(y);
+    aimMoved(x, y);
+  }
+
+  /**
+   * Tell the input listener the aim has moved, in order with the other input. This is the only
+   * input which may be dropped if too many commands are waiting, as the aim does not change the
+   * game and a later move of it supersedes this one.
+   *
+   * @param x column aimed at
+   * @param y row aimed at
+   */
+  private void aimMoved(int x, int y) {
+    actor.offer(() -> {
+      if (gameInputListener != null) {
+        gameInputListener.aimMoved(x, y);
+      }
+    });
+  }
+
   /**
    * Returns the x-value of the selected GameBlock block
    *
@@ -706,48 +957,23 @@ public class Game {
   }
 
   /**
-   * Set the listener to handle an event when the next-piece is updated
-   *
-   * @param listener listener to add
-   */
-  public void setNextPieceListener(NextPieceListener listener) {
-    nextPieceListener = listener;
-  }
-
-  /**
-   * Set the listener to handle an event when the following-piece is updated
-   *
-   * @param listener listener to add
-   */
-  public void setFollowingPieceListener(FollowingPieceListener listener) {
-    followingPieceListener = listener;
-  }
-
-  /**
-   * Set the listener to handle an event when a line is cleared
+   * Get the bus the game's events are published on, to subscribe to them
    *
-   * @param listener listener to add
-   */
-  public void setLineClearedListener(LineClearedListener listener) {
-    lineClearedListener = listener;
-  }
-
-  /**
-   * Set the listener to handle an event when a game loop is restarted
-   *
-   * @param listener listener to add
+   * @return event bus
    */
-  public void setGameLoopListener(GameLoopListener listener) {
-    gameLoopListener = listener;
+  public EventBus getEvents() {
+    return events;
   }
 
   /**
-   * Set the listener to handle an event when the game is over
+   * Set the listener to handle every input made to the game, such as a ReplayRecorder. It is told
+   * when the game ends and then removed. It is called on the game thread, and must be set before
+   * the game is started.
    *
    * @param listener listener to add
    */
-  public void setGameOverListener(GameOverListener listener) {
-    gameOverListener = listener;
+  public void setGameInputListener(GameInputListener listener) {
+    gameInputListener = listener;
   }
 
   /**
@@ -0,0 +1,134 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A GameActor runs every command that changes the state of a game one at a time, in the order
+ * they were sent, on a single executor. Nothing else touches the game state, so it needs no locks.
+ * <p>
+ * Commands are queued from any thread and run in batches: whenever the queue has commands waiting,
+ * one drain is scheduled which runs everything queued, then calls back once so the result of the
+ * whole batch can be published together. A burst of input therefore causes one update rather
+ * than one per command.
+ * <p>
+ * The queue is bounded for commands sent with offer, so input which is safe to lose, such as the
+ * aim moving, is dropped rather than building up when it arrives faster than it can be handled.
+ * Commands which must not be lost, such as the player's moves and the timer running out, are sent
+ * with put.
+ */
+public class GameActor {
+
+  private static final Logger logger = LogManager.getLogger(GameActor.class);
+
+  /**
+   * The executor running the drains
+   */
+  private final Executor executor;
+
+  /**
+   * The maximum number of commands which can be waiting before offer drops them, which is also the
+   * most commands run in one batch
+   */
+  private final int capacity;
+
+  /**
+   * Called on the executor after each batch of commands has run
+   */
+  private final Runnable batchFinished;
+
+  /**
+   * The commands waiting to run
+   */
+  private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The number of commands waiting to run
+   */
+  private final AtomicInteger waiting = new AtomicInteger();
+
+  /**
+   * Whether a drain has been scheduled and not yet finished
+   */
+  private final AtomicBoolean draining = new AtomicBoolean(false);
+
+  /**
+   * Create a new GameActor
+   *
+   * @param executor      executor to run the commands on, which must run one task at a time
+   * @param capacity      maximum number of commands waiting before offer drops them
+   * @param batchFinished called on the executor after each batch of commands has run
+   */
+  public GameActor(Executor executor, int capacity, Runnable batchFinished) {
+    this.executor = executor;
+    this.capacity = capacity;
+    this.batchFinished = batchFinished;
+  }
+
+  /**
+   * Queue a command, unless the queue is full
+   *
+   * @param command command to run
+   * @return true if the command was queued, false if it was dropped
+   */
+  public boolean offer(Runnable command) {
+    if (waiting.incrementAndGet() > capacity) {
+      waiting.decrementAndGet();
+      logger.warn("Too many commands waiting, dropping one");
+      return false;
+    }
+    commands.add(command);
+    scheduleDrain();
+    return true;
+  }
+
+  /**
+   * Queue a command, even if the queue is full
+   *
+   * @param command command to run
+   */
+  public void put(Runnable command) {
+    waiting.incrementAndGet();
+    commands.add(command);
+    scheduleDrain();
+  }
+
+  /**
+   * Schedule a drain, if one is not already waiting to run
+   */
+  private void scheduleDrain() {
+    if (draining.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+  }
+
+  /**
+   * Run the commands waiting, up to the capacity, then call back that the batch has finished
+   */
+  private void drain() {
+    Runnable command;
+    for (int i = 0; i < capacity && (command = commands.poll()) != null; i++) {
+      waiting.decrementAndGet();
+      try {
+        command.run();
+      } catch (RuntimeException e) {
+        logger.error("Game command failed: " + e);
+      }
+    }
+    try {
+      batchFinished.run();
+    } catch (RuntimeException e) {
+      logger.error("Publishing game batch failed: " + e);
+    }
+
+    //Commands may have been queued after the last one was taken, or left over from a full batch
+    draining.set(false);
+    if (!commands.isEmpty()) {
+      scheduleDrain();
+    }
+  }
+}
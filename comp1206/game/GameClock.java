@@ -0,0 +1,36 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A GameClock tells the time and runs tasks after a delay. Games and scenes schedule their timers
+ * through a GameClock instead of making their own threads, so that the real clock can share one
+ * scheduler thread, and tests and simulations can use a VirtualClock which runs without waiting.
+ */
+public interface GameClock {
+
+  /**
+   * Get the current time of this clock
+   *
+   * @return time in milliseconds
+   */
+  public long currentTimeMillis();
+
+  /**
+   * Run a task once after a delay
+   *
+   * @param task        task to run
+   * @param delayMillis delay in milliseconds
+   * @return handle which can be used to cancel the task
+   */
+  public Scheduled schedule(Runnable task, long delayMillis);
+
+  /**
+   * A task scheduled on a GameClock
+   */
+  public interface Scheduled {
+
+    /**
+     * Stop the task from running, if it has not already run
+     */
+    public void cancel();
+  }
+}
@@ -0,0 +1,443 @@
+package uk.ac.soton.comp1206.game;
+
+import uk.ac.soton.comp1206.event.GameEngineListener;
+
+/**
+ * The GameEngine holds the rules of TetrECS: placing pieces, clearing lines, scoring, levels and
+ * lives. It is plain Java with no dependency on JavaFX, sound or timers, so games can be run
+ * headlessly as fast as the rules can be applied.
+ * <p>
+ * The engine does not keep time itself. Whatever is driving it is responsible for calling
+ * timerExpired once getTimerDelay milliseconds have passed without a piece being played.
+ * <p>
+ * Anything which needs to react to the rules being applied, such as the Game used by the scenes,
+ * can be told through a GameEngineListener. Each move is committed to the grid as a single update,
+ * so the grid's listener is told once per move.
+ */
+public class GameEngine {
+
+  /**
+   * Listener used when nothing is listening to the engine
+   */
+  private static final GameEngineListener NO_LISTENER = new GameEngineListener() {
+  };
+
+  /**
+   * Number of rows
+   */
+  protected final int rows;
+
+  /**
+   * Number of columns
+   */
+  protected final int cols;
+
+  /**
+   * The grid model the rules are applied to
+   */
+  protected final Grid grid;
+
+  /**
+   * The source of the pieces played
+   */
+  protected final PieceSource pieceSource;
+
+  /**
+   * The listener to call as the rules are applied
+   */
+  protected GameEngineListener listener = NO_LISTENER;
+
+  /**
+   * The values of the score, level, lives and multiplier
+   */
+  protected int score;
+  protected int level;
+  protected int lives;
+  protected int multiplier;
+
+  /**
+   * The current GamePiece
+   */
+  protected GamePiece currentPiece;
+
+  /**
+   * The following GamePiece
+   */
+  protected GamePiece followingPiece;
+
+  /**
+   * The bitmask of a completely filled row
+   */
+  protected final long fullRow;
+
+  /**
+   * The blocks cleared after the last piece was played, in the same layout as the grid's rows
+   */
+  protected final long[] cleared;
+
+  /**
+   * Create a new engine with the specified rows and columns, with uniformly random pieces from an
+   * unpredictable seed. Creates a corresponding grid model.
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   */
+  public GameEngine(int cols, int rows) {
+    this(cols, rows, new UniformPieceSource(System.nanoTime()));
+  }
+
+  /**
+   * Create a new engine with the specified rows and columns, taking its pieces from the given
+   * source. Creates a corresponding grid model.
+   *
+   * @param cols        number of columns
+   * @param rows        number of rows
+   * @param pieceSource source of the pieces played
+   */
+  public GameEngine(int cols, int rows, PieceSource pieceSource) {
+    this.cols = cols;
+    this.rows = rows;
+    this.grid = new Grid(cols, rows);
+    this.pieceSource = pieceSource;
+    this.fullRow = -1L >>> (Grid.MAX_COLS - cols);
+    this.cleared = new long[rows];
+  }
+
+  /**
+   * Set the listener to handle the events raised as the rules are applied
+   *
+   * @param listener listener to add, or null to remove the current one
+   */
+  public void setListener(GameEngineListener listener) {
+    this.listener = listener == null ? NO_LISTENER : listener;
+  }
+
+  /**
+   * Empty the grid, reset the score, level, lives and multiplier and fetch the first two pieces
+   */
+  public void start() {
+    grid.clear();
+    score = 0;
+    level = 0;
+    lives = 3;
+    multiplier = 1;
+
+    currentPiece = spawnPiece();
+    followingPiece = spawnPiece();
+    listener.piecesChanged(currentPiece, followingPiece);
+  }
+
+  /**
+   * Make this engine hold exactly the same state as another engine with the same size of grid. The
+   * listener is not copied.
+   *
+   * @param other engine to copy
+   */
+  public void copyFrom(GameEngine other) {
+    grid.copyFrom(other.grid);
+    score = other.score;
+    level = other.level;
+    lives = other.lives;
+    multiplier = other.multiplier;
+    currentPiece = other.currentPiece;
+    followingPiece = other.followingPiece;
+  }
+
+  /**
+   * Put this engine into a saved state. The listener is told the pieces have changed.
+   *
+   * @param snapshot       blocks of the grid, from a grid of the same size
+   * @param score          score
+   * @param level          level
+   * @param lives          lives left
+   * @param multiplier     multiplier
+   * @param currentPiece   current piece
+   * @param followingPiece following piece
+   */
+  public void restore(GridSnapshot snapshot, int score, int level, int lives, int multiplier,
+      GamePiece currentPiece, GamePiece followingPiece) {
+    grid.restore(snapshot);
+    restore(score, level, lives, multiplier, currentPiece, followingPiece);
+  }
+
+  /**
+   * Put this engine's values and pieces into a saved state, leaving the grid as it is. The listener
+   * is told the pieces have changed.
+   *
+   * @param score          score
+   * @param level          level
+   * @param lives          lives left
+   * @param multiplier     multiplier
+   * @param currentPiece   current piece
+   * @param followingPiece following piece
+   */
+  public void restore(int score, int level, int lives, int multiplier, GamePiece currentPiece,
+      GamePiece followingPiece) {
+    this.score = score;
+    this.level = level;
+    this.lives = lives;
+    this.multiplier = multiplier;
+    this.currentPiece = currentPiece;
+    this.followingPiece = followingPiece;
+    listener.piecesChanged(currentPiece, followingPiece);
+  }
+
+  /**
+   * Fetches the next GamePiece from the piece source
+   *
+   * @return the next GamePiece
+   */
+  protected GamePiece spawnPiece() {
+    return pieceSource.nextPiece();
+  }
+
+  /**
+   * Try to play the current piece centred on the given block. If it is played, the next piece is
+   * fetched, then any full lines are cleared and scored.
+   *
+   * @param x column
+   * @param y row
+   * @return true if the piece was played
+   */
+  public boolean playPiece(int x, int y) {
+    GamePiece piece = currentPiece;
+
+    //Placing the piece and clearing any lines it completes are one update to the grid
+    grid.beginUpdate();
+    try {
+      if (!grid.playPiece(piece, x, y)) {
+        listener.placementFailed(piece, x, y);
+        return false;
+      }
+      listener.piecePlaced(piece, x, y);
+
+      nextPiece();
+      afterPiece();
+      return true;
+    } finally {
+      grid.commitUpdate();
+    }
+  }
+
+  /**
+   * Check to see if any lines need to be cleared, clear them and update the score and multiplier.
+   * <p>
+   * Lines are found in one pass over the row bitmasks: a row is full if its bitmask is the full row
+   * mask, and a column is full if its bit is set in every row, which is the AND of every row.
+   */
+  protected void afterPiece() {
+    long fullColumns = fullRow;
+    int fullRows = 0;
+    for (int y = 0; y < rows; y++) {
+      long bits = grid.getRowBits(y);
+      fullColumns &= bits;
+      if (bits == fullRow) {
+        fullRows++;
+      }
+    }
+
+    int columns = Long.bitCount(fullColumns);
+    int lines = columns + fullRows;
+    if (lines == 0) {
+      //Nothing cleared, set the multiplier back to 1
+      multiplier = 1;
+      levelCheck();
+      return;
+    }
+
+    //Every full row is cleared completely, and every other row only where the full columns cross it
+    for (int y = 0; y < rows; y++) {
+      cleared[y] = grid.getRowBits(y) == fullRow ? fullRow : fullColumns;
+    }
+    grid.clearBlocks(cleared);
+
+    for (long bits = fullColumns; bits != 0; bits &= bits - 1) {
+      listener.columnCleared(Long.numberOfTrailingZeros(bits));
+    }
+    for (int y = 0; y < rows; y++) {
+      if (cleared[y] == fullRow) {
+        listener.rowCleared(y);
+      }
+    }
+
+    //Score the lines and blocks cleared, taking into account the block counted twice when both
+    // a column and a row were cleared
+    int blocks = columns * rows + fullRows * cols;
+    if (columns > 0 && fullRows > 0) {
+      blocks--;
+    }
+    score += score(lines, blocks);
+    listener.linesCleared(lines, blocks);
+
+    //Set the game multiplier to one value higher than the previous
+    multiplier++;
+
+    //Check to see if enough points were earned to increase the game level
+    levelCheck();
+  }
+
+  /**
+   * Checks to see if enough points were scored to increase the game level
+   */
+  protected void levelCheck() {
+    if (score >= (level + 1) * 1000) {
+      level++;
+      listener.levelUp(level);
+    }
+  }
+
+  /**
+   * Used to fetch the next piece after a GamePiece is played, or the timer runs out
+   */
+  public void nextPiece() {
+    currentPiece = followingPiece;
+    followingPiece = spawnPiece();
+    listener.piecesChanged(currentPiece, followingPiece);
+  }
+
+  /**
+   * Swaps the current piece with the following piece
+   */
+  public void swapCurrentPiece() {
+    GamePiece prelimPiece = currentPiece;
+    currentPiece = followingPiece;
+    followingPiece = prelimPiece;
+    listener.piecesChanged(currentPiece, followingPiece);
+  }
+
+  /**
+   * Rotates the current piece clockwise the given number of times
+   *
+   * @param rotations number of rotations
+   */
+  public void rotateCurrentPiece(int rotations) {
+    currentPiece = currentPiece.rotate(rotations);
+    listener.piecesChanged(currentPiece, followingPiece);
+  }
+
+  /**
+   * Called when the timer runs out before a piece was played. The player loses a life, the
+   * multiplier is set to 1, and a new piece is fetched.
+   */
+  public void timerExpired() {
+    lives--;
+    multiplier = 1;
+    listener.lifeLost(lives);
+
+    nextPiece();
+
+    if (isGameOver()) {
+      listener.gameOver();
+    }
+  }
+
+  /**
+   * Method used to calculate the correct score in terms of lines and blocks cleared
+   *
+   * @param numOfLines  number of lines cleared
+   * @param numOfBlocks number of blocks cleared
+   * @return the calculated game score
+   */
+  public int score(int numOfLines, int numOfBlocks) {
+    return numOfLines * numOfBlocks * 10 * multiplier;
+  }
+
+  /**
+   * Method to calculate the correct length of time before the timer should run out
+   *
+   * @return the calculated time in milliseconds
+   */
+  public int getTimerDelay() {
+    return Math.max(12000 - 500 * level, 2500);
+  }
+
+  /**
+   * Whether the player has run out of lives
+   *
+   * @return true if the game is over
+   */
+  public boolean isGameOver() {
+    return lives < 0;
+  }
+
+  /**
+   * Get the grid model the rules are applied to
+   *
+   * @return game grid model
+   */
+  public Grid getGrid() {
+    return grid;
+  }
+
+  /**
+   * Get the number of columns in this game
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows in this game
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the current score
+   *
+   * @return score
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * Get the current level
+   *
+   * @return level
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Get the number of lives left
+   *
+   * @return lives
+   */
+  public int getLives() {
+    return lives;
+  }
+
+  /**
+   * Get the current multiplier
+   *
+   * @return multiplier
+   */
+  public int getMultiplier() {
+    return multiplier;
+  }
+
+  /**
+   * Get the current piece
+   *
+   * @return current piece
+   */
+  public GamePiece getCurrentPiece() {
+    return currentPiece;
+  }
+
+  /**
+   * Get the following piece
+   *
+   * @return following piece
+   */
+  public GamePiece getFollowingPiece() {
+    return followingPiece;
+  }
+}
@@ -0,0 +1,192 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.ArrayDeque;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The GameHistory keeps a bounded history of the states of a GameEngine, so that moves can be
+ * undone and redone in practice games.
+ * <p>
+ * The state before every move recorded is kept: the blocks of the grid, the pieces, and the
+ * score, level, lives and multiplier. The blocks are held as GridSnapshots which share every row a
+ * move did not change, so each step of history only costs the rows that move changed.
+ * <p>
+ * Undoing a move does not put back the pieces dealt by the piece source, so the pieces after the
+ * ones restored may differ from the first time round.
+ */
+public class GameHistory {
+
+  /**
+   * One saved state of the engine
+   */
+  private static final class Step {
+
+    /**
+     * The blocks of the grid
+     */
+    private final GridSnapshot grid;
+
+    /**
+     * The values of the score, level, lives and multiplier
+     */
+    private final int score;
+    private final int level;
+    private final int lives;
+    private final int multiplier;
+
+    /**
+     * The current and following pieces
+     */
+    private final GamePiece currentPiece;
+    private final GamePiece followingPiece;
+
+    /**
+     * Save the state of an engine
+     *
+     * @param engine engine to save
+     * @param grid   snapshot of its grid
+     */
+    private Step(GameEngine engine, GridSnapshot grid) {
+      this.grid = grid;
+      this.score = engine.score;
+      this.level = engine.level;
+      this.lives = engine.lives;
+      this.multiplier = engine.multiplier;
+      this.currentPiece = engine.currentPiece;
+      this.followingPiece = engine.followingPiece;
+    }
+  }
+
+  /**
+   * The engine whose history is kept
+   */
+  private final GameEngine engine;
+
+  /**
+   * The most steps which can be undone
+   */
+  private final int capacity;
+
+  /**
+   * The steps which can be undone, most recent first
+   */
+  private final ArrayDeque<Step> undoSteps = new ArrayDeque<>();
+
+  /**
+   * The steps which can be redone, most recent first
+   */
+  private final ArrayDeque<Step> redoSteps = new ArrayDeque<>();
+
+  /**
+   * The last grid snapshot taken, which the next one shares its rows with
+   */
+  private GridSnapshot latest;
+
+  /**
+   * Create a new, empty GameHistory
+   *
+   * @param engine   engine whose history to keep
+   * @param capacity the most steps which can be undone, after which the oldest are forgotten
+   */
+  public GameHistory(GameEngine engine, int capacity) {
+    this.engine = engine;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Make a move, and if it was made keep the state from before it so that it can be undone. Making
+   * a move forgets any steps which could be redone.
+   *
+   * @param move the move to make, returning whether it was made
+   * @return true if the move was made
+   */
+  public boolean record(BooleanSupplier move) {
+    Step before = save();
+    if (!move.getAsBoolean()) {
+      return false;
+    }
+
+    undoSteps.push(before);
+    if (undoSteps.size() > capacity) {
+      undoSteps.removeLast();
+    }
+    redoSteps.clear();
+    return true;
+  }
+
+  /**
+   * Put the engine back to how it was before the last move
+   *
+   * @return true if there was a move to undo
+   */
+  public boolean undo() {
+    if (undoSteps.isEmpty()) {
+      return false;
+    }
+    redoSteps.push(save());
+    restore(undoSteps.pop());
+    return true;
+  }
+
+  /**
+   * Make the last move undone again
+   *
+   * @return true if there was a move to redo
+   */
+  public boolean redo() {
+    if (redoSteps.isEmpty()) {
+      return false;
+    }
+    undoSteps.push(save());
+    restore(redoSteps.pop());
+    return true;
+  }
+
+  /**
+   * Forget every step
+   */
+  public void clear() {
+    undoSteps.clear();
+    redoSteps.clear();
+    latest = null;
+  }
+
+  /**
+   * Get the number of moves which can be undone
+   *
+   * @return number of steps
+   */
+  public int getUndoCount() {
+    return undoSteps.size();
+  }
+
+  /**
+   * Get the number of moves which can be redone
+   *
+   * @return number of steps
+   */
+  public int getRedoCount() {
+    return redoSteps.size();
+  }
+
+  /**
+   * Save the current state of the engine
+   *
+   * @return the saved step
+   */
+  private Step save() {
+    latest = engine.grid.snapshot(latest);
+    return new Step(engine, latest);
+  }
+
+  /**
+   * Put the engine back into a saved state
+   *
+   * @param step step to restore
+   */
+  private void restore(Step step) {
+    engine.restore(step.grid, step.score, step.level, step.lives, step.multiplier,
+        step.currentPiece, step.followingPiece);
+    latest = step.grid;
+  }
+}
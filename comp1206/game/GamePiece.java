@@ -5,6 +5,10 @@ package uk.ac.soton.comp1206.game;
  * <p>
  * The GamePiece class also contains a factory for producing a GamePiece of a particular shape, as
  * specified by its number.
+ * <p>
+ * GamePieces are immutable flyweights. There is exactly one instance for every piece in every
+ * rotation, created when the class is loaded, and each only holds its index into the PieceTable
+ * where the shape is stored. Creating and rotating a piece therefore never allocates.
  */
 public class GamePiece {
 
@@ -14,42 +18,34 @@ public class GamePiece {
   public static final int PIECES = 15;
 
   /**
-   * The value of this piece
+   * The number of different rotations of every piece
    */
-  private final int value;
+  public static final int ROTATIONS = 4;
 
   /**
-   * The name of this piece
+   * The single instance of every piece in every rotation, indexed by table index
    */
-  private final String name;
+  private static final GamePiece[] FLYWEIGHTS = new GamePiece[PIECES * ROTATIONS];
+
+  static {
+    for (int index = 0; index < FLYWEIGHTS.length; index++) {
+      FLYWEIGHTS[index] = new GamePiece(index);
+    }
+  }
 
   /**
-   * The 2D grid representation of the shape of this piece
+   * The index of this piece and rotation in the PieceTable
    */
-  private int[][] blocks;
+  private final int index;
 
   /**
-   * Create a new GamePiece with the given name, block makeup and value. Should not be called
-   * directly, only via the factory.
+   * Create a new GamePiece with the given table index. Should not be called directly, only via the
+   * factory.
    *
-   * @param name   name of the piece
-   * @param blocks block makeup of the piece
-   * @param value  the value of this piece
+   * @param index index into the PieceTable
    */
-  private GamePiece(String name, int[][] blocks, int value) {
-    this.name = name;
-    this.blocks = blocks;
-    this.value = value;
-
-    //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
-    for (int x = 0; x < blocks.length; x++) {
-      for (int y = 0; y < blocks[x].length; y++) {
-          if (blocks[x][y] == 0) {
-              continue;
-          }
-        blocks[x][y] = value;
-      }
-    }
+  private GamePiece(int index) {
+    this.index = index;
   }
 
   /**
@@ -59,101 +55,7 @@ public class GamePiece {
    * @return the created GamePiece
    */
   public static GamePiece createPiece(int piece) {
-    switch (piece) {
-
-      //Line
-      case 0 -> {
-        int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}};
-        return new GamePiece("Line", blocks, 1);
-      }
-
-      //C
-      case 1 -> {
-        int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}};
-        return new GamePiece("C", blocks, 2);
-      }
-
-      //Plus
-      case 2 -> {
-        int[][] blocks = {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}};
-        return new GamePiece("Plus", blocks, 3);
-      }
-
-      //Dot
-      case 3 -> {
-        int[][] blocks = {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
-        return new GamePiece("Dot", blocks, 4);
-      }
-
-      //Square
-      case 4 -> {
-        int[][] blocks = {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}};
-        return new GamePiece("Square", blocks, 5);
-      }
-
-      //L
-      case 5 -> {
-        int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}};
-        return new GamePiece("L", blocks, 6);
-      }
-
-      //J
-      case 6 -> {
-        int[][] blocks = {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}};
-        return new GamePiece("J", blocks, 7);
-      }
-
-      //S
-      case 7 -> {
-        int[][] blocks = {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}};
-        return new GamePiece("S", blocks, 8);
-      }
-
-      //Z
-      case 8 -> {
-        int[][] blocks = {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}};
-        return new GamePiece("Z", blocks, 9);
-      }
-
-      //T
-      case 9 -> {
-        int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-        return new GamePiece("T", blocks, 10);
-      }
-
-      //X
-      case 10 -> {
-        int[][] blocks = {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}};
-        return new GamePiece("X", blocks, 11);
-      }
-
-      //Corner
-      case 11 -> {
-        int[][] blocks = {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-        return new GamePiece("Corner", blocks, 12);
-      }
-
-      //Inverse Corner
-      case 12 -> {
-        int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}};
-        return new GamePiece("Inverse Corner", blocks, 13);
-      }
-
-      //Diagonal
-      case 13 -> {
-        int[][] blocks = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
-        return new GamePiece("Diagonal", blocks, 14);
-      }
-
-      //Double
-      case 14 -> {
-        int[][] blocks = {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}};
-        return new GamePiece("Double", blocks, 15);
-      }
-    }
-
-    //Not a valid piece number
-    throw new IndexOutOfBoundsException("No such piece: " + piece);
+    return createPiece(piece, 0);
   }
 
   /**
@@ -164,10 +66,21 @@ public class GamePiece {
    * @return the created GamePiece
    */
   public static GamePiece createPiece(int piece, int rotation) {
-    var newPiece = createPiece(piece);
+    if (piece < 0 || piece >= PIECES) {
+      //Not a valid piece number
+      throw new IndexOutOfBoundsException("No such piece: " + piece);
+    }
+    return FLYWEIGHTS[piece * ROTATIONS + Math.floorMod(rotation, ROTATIONS)];
+  }
 
-    newPiece.rotate(rotation);
-    return newPiece;
+  /**
+   * Get the GamePiece with the given table index
+   *
+   * @param index table index, as returned by getIndex
+   * @return the GamePiece
+   */
+  public static GamePiece fromIndex(int index) {
+    return FLYWEIGHTS[index];
   }
 
   /**
@@ -176,47 +89,151 @@ public class GamePiece {
    * @return piece value
    */
   public int getValue() {
-    return value;
+    return getPieceNumber() + 1;
+  }
+
+  /**
+   * Get the piece number of this piece, as passed to createPiece
+   *
+   * @return piece number
+   */
+  public int getPieceNumber() {
+    return index / ROTATIONS;
+  }
+
+  /**
+   * Get the number of times this piece has been rotated clockwise
+   *
+   * @return rotation, from 0 to 3
+   */
+  public int getRotation() {
+    return index % ROTATIONS;
+  }
+
+  /**
+   * Get the index of this piece and rotation in the table of all pieces
+   *
+   * @return table index
+   */
+  public int getIndex() {
+    return index;
   }
 
   /**
-   * Get the block makeup of this piece
+   * Get the block makeup of this piece. A new array is created on each call, so this should only be
+   * used for display; placement should use the masks and block list.
    *
    * @return 2D grid of the blocks representing the piece shape
    */
   public int[][] getBlocks() {
+    int[][] blocks = new int[PieceTable.SIZE][PieceTable.SIZE];
+    for (int block = 0; block < getBlockCount(); block++) {
+      blocks[getBlockX(block) + 1][getBlockY(block) + 1] = getValue();
+    }
     return blocks;
   }
 
   /**
-   * Rotate this piece the given number of rotations
+   * Get the bitmask of one row of this piece
    *
-   * @param rotations number of rotations
+   * @param row row of the 3x3 shape, from 0 to 2
+   * @return bitmask of the row, with bit x set if column x is filled
    */
-  public void rotate(int rotations) {
-    for (int rotated = 0; rotated < rotations; rotated++) {
-      rotate();
-    }
+  public int getRowMask(int row) {
+    return PieceTable.rowMask(index, row);
   }
 
   /**
-   * Rotate this piece exactly once by rotating its 3x3 grid
+   * Get the bitmask of the whole shape of this piece
+   *
+   * @return bitmask with bit (y * 3 + x) set if the block at (x, y) is filled
    */
-  public void rotate() {
-    int[][] rotated = new int[blocks.length][blocks[0].length];
-    rotated[2][0] = blocks[0][0];
-    rotated[1][0] = blocks[0][1];
-    rotated[0][0] = blocks[0][2];
+  public int getShapeMask() {
+    return PieceTable.shapeMask(index);
+  }
 
-    rotated[2][1] = blocks[1][0];
-    rotated[1][1] = blocks[1][1];
-    rotated[0][1] = blocks[1][2];
+  /**
+   * Get the number of blocks in this piece
+   *
+   * @return number of blocks
+   */
+  public int getBlockCount() {
+    return PieceTable.blockCount(index);
+  }
 
-    rotated[2][2] = blocks[2][0];
-    rotated[1][2] = blocks[2][1];
-    rotated[0][2] = blocks[2][2];
+  /**
+   * Get the x offset of one of the blocks of this piece from its centre
+   *
+   * @param block block number, less than getBlockCount
+   * @return x offset, from -1 to 1
+   */
+  public int getBlockX(int block) {
+    return PieceTable.blockX(index, block);
+  }
+
+  /**
+   * Get the y offset of one of the blocks of this piece from its centre
+   *
+   * @param block block number, less than getBlockCount
+   * @return y offset, from -1 to 1
+   */
+  public int getBlockY(int block) {
+    return PieceTable.blockY(index, block);
+  }
 
-    blocks = rotated;
+  /**
+   * Get the smallest x offset from the centre of any block of this piece
+   *
+   * @return smallest x offset
+   */
+  public int getMinX() {
+    return PieceTable.minX(index);
+  }
+
+  /**
+   * Get the largest x offset from the centre of any block of this piece
+   *
+   * @return largest x offset
+   */
+  public int getMaxX() {
+    return PieceTable.maxX(index);
+  }
+
+  /**
+   * Get the smallest y offset from the centre of any block of this piece
+   *
+   * @return smallest y offset
+   */
+  public int getMinY() {
+    return PieceTable.minY(index);
+  }
+
+  /**
+   * Get the largest y offset from the centre of any block of this piece
+   *
+   * @return largest y offset
+   */
+  public int getMaxY() {
+    return PieceTable.maxY(index);
+  }
+
+  /**
+   * Get this piece rotated the given number of rotations
+   *
+   * @param rotations number of rotations
+   * @return the rotated piece
+   */
+  public GamePiece rotate(int rotations) {
+    return createPiece(getPieceNumber(), getRotation() + rotations);
+  }
+
+  /**
+   * Get this piece rotated exactly once clockwise
+   *
+   * @return the rotated piece
+   */
+  public GamePiece rotate() {
+    return rotate(1);
   }
 
 
@@ -226,7 +243,7 @@ public class GamePiece {
    * @return the name of this piece
    */
   public String toString() {
-    return this.name;
+    return PieceTable.name(getPieceNumber());
   }
 
 
@@ -0,0 +1,242 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.List;
+
+/**
+ * A GameSnapshot is an immutable copy of the state of a Game, taken on the game's thread after a
+ * batch of commands has run and handed to the UI to display. It includes a GridSnapshot of the
+ * board, so the state can be read on any thread, for example to search for a hint.
+ * <p>
+ * As well as the values, a snapshot carries what happened during the batch which the UI needs to
+ * react to: the sounds to play, the lines to animate being cleared, whether the timer was restarted
+ * and whether the game ended.
+ */
+public final class GameSnapshot {
+
+  /**
+   * The cleared lines of a snapshot in which no lines were cleared
+   */
+  public static final int[] NO_LINES = new int[0];
+
+  /**
+   * The snapshot of a game which has not started
+   */
+  public static final GameSnapshot EMPTY = new GameSnapshot(null, 0, 0, 3, 1, null, null, 0,
+      List.of(), NO_LINES, false, false);
+
+  /**
+   * The blocks of the board
+   */
+  private final GridSnapshot grid;
+
+  /**
+   * The values of the score, level, lives and multiplier
+   */
+  private final int score;
+  private final int level;
+  private final int lives;
+  private final int multiplier;
+
+  /**
+   * The current and following pieces
+   */
+  private final GamePiece currentPiece;
+  private final GamePiece followingPiece;
+
+  /**
+   * The time allowed to play a piece, in milliseconds
+   */
+  private final int timerDelay;
+
+  /**
+   * The sounds to play, in the order they were made
+   */
+  private final List<String> sounds;
+
+  /**
+   * Each line cleared, packed as the index of the line shifted left by one, plus one for a row
+   */
+  private final int[] clearedLines;
+
+  /**
+   * Whether the timer was restarted
+   */
+  private final boolean timerRestarted;
+
+  /**
+   * Whether the game has ended
+   */
+  private final boolean gameOver;
+
+  /**
+   * Create a new snapshot. The lists and array must not be changed afterwards.
+   *
+   * @param grid           blocks of the board
+   * @param score          score
+   * @param level          level
+   * @param lives          lives left
+   * @param multiplier     multiplier
+   * @param currentPiece   current piece
+   * @param followingPiece following piece
+   * @param timerDelay     time allowed to play a piece in milliseconds
+   * @param sounds         sounds to play
+   * @param clearedLines   each line cleared, packed with packLine
+   * @param timerRestarted whether the timer was restarted
+   * @param gameOver       whether the game has ended
+   */
+  public GameSnapshot(GridSnapshot grid, int score, int level, int lives, int multiplier, GamePiece currentPiece,
+      GamePiece followingPiece, int timerDelay, List<String> sounds,
+      int[] clearedLines, boolean timerRestarted, boolean gameOver) {
+    this.grid = grid;
+    this.score = score;
+    this.level = level;
+    this.lives = lives;
+    this.multiplier = multiplier;
+    this.currentPiece = currentPiece;
+    this.followingPiece = followingPiece;
+    this.timerDelay = timerDelay;
+    this.sounds = sounds;
+    this.clearedLines = clearedLines;
+    this.timerRestarted = timerRestarted;
+    this.gameOver = gameOver;
+  }
+
+  /**
+   * Get the blocks of the board
+   *
+   * @return grid snapshot, or null if the game has not started
+   */
+  public GridSnapshot getGrid() {
+    return grid;
+  }
+
+  /**
+   * Get the score
+   *
+   * @return score
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * Get the level
+   *
+   * @return level
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Get the number of lives left
+   *
+   * @return lives
+   */
+  public int getLives() {
+    return lives;
+  }
+
+  /**
+   * Get the multiplier
+   *
+   * @return multiplier
+   */
+  public int getMultiplier() {
+    return multiplier;
+  }
+
+  /**
+   * Get the current piece
+   *
+   * @return current piece, or null if the game has not started
+   */
+  public GamePiece getCurrentPiece() {
+    return currentPiece;
+  }
+
+  /**
+   * Get the following piece
+   *
+   * @return following piece, or null if the game has not started
+   */
+  public GamePiece getFollowingPiece() {
+    return followingPiece;
+  }
+
+  /**
+   * Get the time allowed to play a piece
+   *
+   * @return time in milliseconds
+   */
+  public int getTimerDelay() {
+    return timerDelay;
+  }
+
+  /**
+   * Get the sounds to play, in the order they were made
+   *
+   * @return sound file names
+   */
+  public List<String> getSounds() {
+    return sounds;
+  }
+
+  /**
+   * Pack a cleared line into an int, as it is held in a snapshot
+   *
+   * @param row   true if the line is a row, false if it is a column
+   * @param index index of the row or column
+   * @return packed line
+   */
+  public static int packLine(boolean row, int index) {
+    return index << 1 | (row ? 1 : 0);
+  }
+
+  /**
+   * Get the number of lines cleared
+   *
+   * @return number of lines
+   */
+  public int getClearedLineCount() {
+    return clearedLines.length;
+  }
+
+  /**
+   * Whether a cleared line is a row, rather than a column
+   *
+   * @param line which cleared line, from 0 to getClearedLineCount() - 1
+   * @return true for a row
+   */
+  public boolean isClearedRow(int line) {
+    return (clearedLines[line] & 1) != 0;
+  }
+
+  /**
+   * Get the index of the row or column of a cleared line
+   *
+   * @param line which cleared line, from 0 to getClearedLineCount() - 1
+   * @return row or column index
+   */
+  public int getClearedLineIndex(int line) {
+    return clearedLines[line] >>> 1;
+  }
+
+  /**
+   * Whether the timer was restarted
+   *
+   * @return true if restarted
+   */
+  public boolean isTimerRestarted() {
+    return timerRestarted;
+  }
+
+  /**
+   * Whether the game has ended
+   *
+   * @return true if the game is over
+   */
+  public boolean isGameOver() {
+    return gameOver;
+  }
+}
@@ -0,0 +1,122 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * The GameTimer counts down the time the player has left to play a piece, and calls back when it
+ * runs out. It is restarted every time a piece is played.
+ * <p>
+ * Restarting only moves the deadline. A task already scheduled for an earlier time checks the
+ * deadline when it runs and schedules itself again for the time left, so playing pieces does not
+ * cancel and create a scheduled task every time.
+ */
+public class GameTimer {
+
+  /**
+   * The clock the timer runs on
+   */
+  private final GameClock clock;
+
+  /**
+   * Called when the time runs out
+   */
+  private final Runnable expired;
+
+  /**
+   * The time the timer runs out, on the clock
+   */
+  private long deadline;
+
+  /**
+   * The time the scheduled task will run
+   */
+  private long wakeUp;
+
+  /**
+   * The scheduled task, or null if none is scheduled
+   */
+  private GameClock.Scheduled scheduled;
+
+  /**
+   * The number of tasks scheduled so far, so a task which was cancelled too late to stop it
+   * running can tell it has been replaced
+   */
+  private int generation;
+
+  /**
+   * Create a new, stopped GameTimer
+   *
+   * @param clock   clock to run on
+   * @param expired called, on the clock's thread, when the time runs out
+   */
+  public GameTimer(GameClock clock, Runnable expired) {
+    this.clock = clock;
+    this.expired = expired;
+  }
+
+  /**
+   * Start the timer counting down from the given delay, replacing any countdown already running
+   *
+   * @param delayMillis time until the timer runs out in milliseconds
+   */
+  public synchronized void restart(long delayMillis) {
+    deadline = clock.currentTimeMillis() + delayMillis;
+    if (scheduled != null && wakeUp <= deadline) {
+      //The task already scheduled will find the new deadline when it runs
+      return;
+    }
+    if (scheduled != null) {
+      scheduled.cancel();
+    }
+    schedule();
+  }
+
+  /**
+   * Get the time left before the timer runs out
+   *
+   * @return milliseconds left, or 0 if the timer is stopped
+   */
+  public synchronized long getRemaining() {
+    if (scheduled == null) {
+      return 0;
+    }
+    return Math.max(0, deadline - clock.currentTimeMillis());
+  }
+
+  /**
+   * Stop the timer
+   */
+  public synchronized void cancel() {
+    if (scheduled != null) {
+      scheduled.cancel();
+      scheduled = null;
+    }
+  }
+
+  /**
+   * Schedule a task for the deadline
+   */
+  private void schedule() {
+    int task = ++generation;
+    wakeUp = deadline;
+    scheduled = clock.schedule(() -> wake(task), deadline - clock.currentTimeMillis());
+  }
+
+  /**
+   * Run by the scheduled task: call back if the deadline has passed, otherwise wait for the time
+   * left
+   *
+   * @param task the generation of the task running
+   */
+  private void wake(int task) {
+    synchronized (this) {
+      if (scheduled == null || task != generation) {
+        return;
+      }
+      if (clock.currentTimeMillis() < deadline) {
+        schedule();
+        return;
+      }
+      scheduled = null;
+    }
+    expired.run();
+  }
+}
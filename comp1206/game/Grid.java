@@ -1,23 +1,33 @@
 package uk.ac.soton.comp1206.game;
 
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import uk.ac.soton.comp1206.multimedia.Multimedia;
+import java.util.Arrays;
+import uk.ac.soton.comp1206.event.GridChangedListener;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer
  * values arranged in a 2D arrow, with rows and columns.
  * <p>
- * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display
- * of the contents of the grid.
+ * Internally the Grid is stored as primitives: an occupancy bitmask for each row, where bit x of
+ * row y is set when the block at (x, y) is filled, and a packed array of colour values. Placement
+ * checks can therefore be made with a few mask operations instead of reading every block.
  * <p>
  * The Grid contains functions related to modifying the model, for example, placing a piece inside
  * the grid.
  * <p>
- * The Grid should be linked to a GameBoard for its display.
+ * The Grid should be linked to a GameBoard for its display. The GameBoard does not read the Grid
+ * directly, as it may be changed on another thread, but is shown immutable GridSnapshots of it.
+ * <p>
+ * Changes can be grouped into one update with beginUpdate and commitUpdate. The listener is then
+ * told once, with every block the update changed, rather than once per block. Changes made outside
+ * of an update are each committed on their own.
  */
 public class Grid {
 
+  /**
+   * The maximum number of columns a grid can have, as each row is held in a single long
+   */
+  public static final int MAX_COLS = Long.SIZE;
+
   /**
    * The number of columns in this grid
    */
@@ -29,9 +39,34 @@ public class Grid {
   private final int rows;
 
   /**
-   * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
+   * The occupancy bitmask of each row. Bit x of rowBits[y] is set if the block at (x, y) is filled
+   */
+  private final long[] rowBits;
+
+  /**
+   * The colour value of every block, packed row by row (index y * cols + x)
+   */
+  private final byte[] colours;
+
+  /**
+   * The blocks changed by the update in progress, in the same layout as rowBits
+   */
+  private final long[] pending;
+
+  /**
+   * Whether any block has been changed by the update in progress
+   */
+  private boolean pendingChanged;
+
+  /**
+   * The number of updates begun and not yet committed
+   */
+  private int updateDepth;
+
+  /**
+   * The listener to call when a block in the grid is changed
    */
-  private final SimpleIntegerProperty[][] grid;
+  private GridChangedListener gridChangedListener;
 
   /**
    * Create a new Grid with the specified number of columns and rows and initialise them
@@ -40,30 +75,16 @@ public class Grid {
    * @param rows number of rows
    */
   public Grid(int cols, int rows) {
+    if (cols < 1 || cols > MAX_COLS || rows < 1) {
+      throw new IllegalArgumentException("Invalid grid size: " + cols + " x " + rows);
+    }
     this.cols = cols;
     this.rows = rows;
 
-    //Create the grid itself
-    grid = new SimpleIntegerProperty[cols][rows];
-
-    //Add a SimpleIntegerProperty to every block in the grid
-    for (var y = 0; y < rows; y++) {
-      for (var x = 0; x < cols; x++) {
-        grid[x][y] = new SimpleIntegerProperty(0);
-      }
-    }
-  }
-
-  /**
-   * Get the Integer property contained inside the grid at a given row and column index. Can be used
-   * for binding.
-   *
-   * @param x column
-   * @param y row
-   * @return the IntegerProperty at the given x and y in this grid
-   */
-  public IntegerProperty getGridProperty(int x, int y) {
-    return grid[x][y];
+    //Create the grid itself, every block starts empty
+    rowBits = new long[rows];
+    colours = new byte[cols * rows];
+    pending = new long[rows];
   }
 
   /**
@@ -72,9 +93,33 @@ public class Grid {
    * @param x     column
    * @param y     row
    * @param value the new value
+   * @throws IndexOutOfBoundsException if there is no such block
    */
   public void set(int x, int y, int value) {
-    grid[x][y].set(value);
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
+      //An index outside the row would otherwise land on a block of the next row
+      throw new IndexOutOfBoundsException("No block at " + x + ", " + y + " in a " + cols + " x "
+          + rows + " grid");
+    }
+    int index = y * cols + x;
+    if (colours[index] == value) {
+      //Nothing has changed
+      return;
+    }
+    colours[index] = (byte) value;
+
+    //Keep the occupancy bitmask in step with the colour
+    long bit = 1L << x;
+    if (value == 0) {
+      rowBits[y] &= ~bit;
+    } else {
+      rowBits[y] |= bit;
+    }
+
+    //Only track changes when something is displaying this grid
+    if (gridChangedListener != null) {
+      markChanged(y, bit);
+    }
   }
 
   /**
@@ -82,16 +127,24 @@ public class Grid {
    *
    * @param x column
    * @param y row
-   * @return the value
+   * @return the value, or -1 if there is no such block
    */
   public int get(int x, int y) {
-    try {
-      //Get the value held in the property at the x and y index provided
-      return grid[x][y].get();
-    } catch (ArrayIndexOutOfBoundsException e) {
+    if (x < 0 || x >= cols || y < 0 || y >= rows) {
       //No such index
       return -1;
     }
+    return colours[y * cols + x];
+  }
+
+  /**
+   * Get the occupancy bitmask of a row, where bit x is set if the block at column x is filled
+   *
+   * @param y row
+   * @return the row bitmask
+   */
+  public long getRowBits(int y) {
+    return rowBits[y];
   }
 
   /**
@@ -112,6 +165,118 @@ public class Grid {
     return rows;
   }
 
+  /**
+   * Empty every block in the grid
+   */
+  public void clear() {
+    beginUpdate();
+    for (var y = 0; y < rows; y++) {
+      long bits = rowBits[y];
+      while (bits != 0) {
+        set(Long.numberOfTrailingZeros(bits), y, 0);
+        bits &= bits - 1;
+      }
+    }
+    commitUpdate();
+  }
+
+  /**
+   * Make this grid hold exactly the same blocks as another grid of the same size
+   *
+   * @param other grid to copy
+   */
+  public void copyFrom(Grid other) {
+    if (other.cols != cols || other.rows != rows) {
+      throw new IllegalArgumentException(
+          "Cannot copy a " + other.cols + " x " + other.rows + " grid into a " + cols + " x "
+              + rows + " grid");
+    }
+    System.arraycopy(other.colours, 0, colours, 0, colours.length);
+    System.arraycopy(other.rowBits, 0, rowBits, 0, rows);
+
+    //Every block may have changed
+    if (gridChangedListener != null) {
+      beginUpdate();
+      for (var y = 0; y < rows; y++) {
+        markChanged(y, -1L >>> (MAX_COLS - cols));
+      }
+      commitUpdate();
+    }
+  }
+
+  /**
+   * Take an immutable snapshot of the blocks in this grid. Any row which is the same as in the
+   * previous snapshot is shared with it rather than copied.
+   *
+   * @param previous an earlier snapshot of this grid to share rows with, or null
+   * @return the snapshot
+   */
+  public GridSnapshot snapshot(GridSnapshot previous) {
+    if (previous != null && (previous.getCols() != cols || previous.getRows() != rows)) {
+      previous = null;
+    }
+
+    var snapshotRows = new GridSnapshot.Row[rows];
+    for (var y = 0; y < rows; y++) {
+      int start = y * cols;
+      if (previous != null) {
+        GridSnapshot.Row row = previous.row(y);
+        if (row.bits == rowBits[y]
+            && Arrays.equals(row.colours, 0, cols, colours, start, start + cols)) {
+          snapshotRows[y] = row;
+          continue;
+        }
+      }
+      snapshotRows[y] = new GridSnapshot.Row(rowBits[y],
+          Arrays.copyOfRange(colours, start, start + cols));
+    }
+    return new GridSnapshot(cols, snapshotRows);
+  }
+
+  /**
+   * Take an immutable snapshot of the blocks in this grid after an update, given the snapshot taken
+   * before it. Rows the update did not change are shared with the previous snapshot without being
+   * compared.
+   *
+   * @param previous the snapshot of this grid taken before the update
+   * @param change   the blocks changed by the update
+   * @return the snapshot
+   */
+  public GridSnapshot snapshot(GridSnapshot previous, GridChange change) {
+    var snapshotRows = new GridSnapshot.Row[rows];
+    for (var y = 0; y < rows; y++) {
+      if (change.getRowBits(y) == 0) {
+        snapshotRows[y] = previous.row(y);
+      } else {
+        int start = y * cols;
+        snapshotRows[y] = new GridSnapshot.Row(rowBits[y],
+            Arrays.copyOfRange(colours, start, start + cols));
+      }
+    }
+    return new GridSnapshot(cols, snapshotRows);
+  }
+
+  /**
+   * Make this grid hold the blocks in a snapshot of a grid of the same size, as one update
+   *
+   * @param snapshot snapshot to restore
+   */
+  public void restore(GridSnapshot snapshot) {
+    if (snapshot.getCols() != cols || snapshot.getRows() != rows) {
+      throw new IllegalArgumentException(
+          "Cannot restore a " + snapshot.getCols() + " x " + snapshot.getRows()
+              + " snapshot into a " + cols + " x " + rows + " grid");
+    }
+    beginUpdate();
+    for (var y = 0; y < rows; y++) {
+      byte[] row = snapshot.row(y).colours;
+      for (var x = 0; x < cols; x++) {
+        set(x, y, row[x]);
+      }
+    }
+    commitUpdate();
+  }
+
   /**
    * Checks to see if a GamePiece can be placed at the specified coordinate. Returns true if it can
    * and false if it can not.
@@ -122,26 +287,20 @@ public class Grid {
    * @return boolean, if piece can be played or not
    */
   public boolean canPlayPiece(GamePiece gamePiece, int valX, int valY) {
-    valX = valX - 1;  //offset coordinate of block x-value
-    valY = valY - 1;  //offset coordinate of block y-value
-
-    int[][] blocks = gamePiece.getBlocks();  //the 3x3 array of int blocks of GamePiece
-
-    //Loop through every part of the game piece
-    for (int x = 0; x < blocks.length; x++) {
-      for (int y = 0; y < blocks[x].length; y++) {
-        int val = blocks[x][y];
-        if (val == 0) {
-          //if there isn't a block, ignore
-          continue;
-        }
-        //Get the grid value of the block where the GamePiece is trying to be placed
-        int gridVal = get(x + valX, y + valY);
+    //The piece cannot hang off any side of the grid
+    if (valX + gamePiece.getMinX() < 0 || valX + gamePiece.getMaxX() >= cols
+        || valY + gamePiece.getMinY() < 0 || valY + gamePiece.getMaxY() >= rows) {
+      return false;
+    }
 
-        //If the grid value is not equal to 0, return false, the piece cannot be played
-        if (gridVal != 0) {
-          return false;
-        }
+    //Check each row of the game piece against the matching row of the grid
+    for (int y = gamePiece.getMinY(); y <= gamePiece.getMaxY(); y++) {
+      //Move the row mask across to the columns it would cover. If any of the blocks are already
+      // filled, the piece cannot be played
+      long mask = gamePiece.getRowMask(y + 1);
+      long shifted = valX >= 1 ? mask << (valX - 1) : mask >>> 1;
+      if ((rowBits[valY + y] & shifted) != 0) {
+        return false;
       }
     }
     //No blocks in the way, piece can be played
@@ -164,24 +323,99 @@ public class Grid {
       return false;
     }
 
-    valX = valX - 1;  //offset coordinate of block x-value
-    valY = valY - 1;  //offset coordinate of block y-value
-    int[][] blocks = gamePiece.getBlocks();  //the 3x3 array of int blocks
-
-    //Loop through every part of the game piece
-    for (int x = 0; x < blocks.length; x++) {
-      for (int y = 0; y < blocks[x].length; y++) {
-        int val = blocks[x][y];
-        if (val == 0) {
-          //if there isn't a block, ignore
-          continue;
-        }
-        //Update the grid of the game board with the piece
-        set(x + valX, y + valY, val);
-
-      }
+    //Update the grid of the game board with every block of the piece, as one update
+    int value = gamePiece.getValue();
+    beginUpdate();
+    for (int block = 0; block < gamePiece.getBlockCount(); block++) {
+      set(valX + gamePiece.getBlockX(block), valY + gamePiece.getBlockY(block), value);
     }
+    commitUpdate();
     //Return true to indicate piece was played
     return true;
   }
-}
\ No newline at end of file
+
+  /**
+   * Empty a set of blocks at once, as one update
+   *
+   * @param mask the blocks to empty, with bit x of mask[y] set to empty the block at (x, y)
+   */
+  public void clearBlocks(long[] mask) {
+    beginUpdate();
+    for (var y = 0; y < rows; y++) {
+      long bits = mask[y] & rowBits[y];
+      if (bits == 0) {
+        continue;
+      }
+      rowBits[y] &= ~bits;
+      for (long left = bits; left != 0; left &= left - 1) {
+        colours[y * cols + Long.numberOfTrailingZeros(left)] = 0;
+      }
+      if (gridChangedListener != null) {
+        markChanged(y, bits);
+      }
+    }
+    commitUpdate();
+  }
+
+  /**
+   * Begin an update. Blocks changed until the matching commitUpdate are collected and the listener
+   * is told about them together. Updates can be nested, in which case the listener is told when the
+   * outermost one is committed.
+   */
+  public void beginUpdate() {
+    updateDepth++;
+  }
+
+  /**
+   * Commit an update begun with beginUpdate. If this is the outermost update and any blocks were
+   * changed, the listener is told once with every block changed.
+   */
+  public void commitUpdate() {
+    if (updateDepth == 0) {
+      throw new IllegalStateException("No update to commit");
+    }
+    if (--updateDepth == 0 && pendingChanged) {
+      publish();
+    }
+  }
+
+  /**
+   * Set the listener to handle an event when a block in the grid is changed. Changed blocks are
+   * only tracked while a listener is set.
+   *
+   * @param listener listener to add
+   */
+  public synchronized void setGridChangedListener(GridChangedListener listener) {
+    gridChangedListener = listener;
+  }
+
+  /**
+   * Record that a set of blocks in a row have changed, telling the listener straight away unless
+   * an update is in progress
+   *
+   * @param y    row
+   * @param bits the changed blocks, with bit x set if the block in column x changed
+   */
+  private void markChanged(int y, long bits) {
+    pending[y] |= bits;
+    pendingChanged = true;
+    if (updateDepth == 0) {
+      publish();
+    }
+  }
+
+  /**
+   * Tell the listener about the blocks changed by the update
+   */
+  private synchronized void publish() {
+    var change = new GridChange(pending);
+    for (var y = 0; y < rows; y++) {
+      pending[y] = 0;
+    }
+    pendingChanged = false;
+
+    if (gridChangedListener != null) {
+      gridChangedListener.gridChanged(this, change);
+    }
+  }
+}
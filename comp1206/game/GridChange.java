@@ -0,0 +1,75 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A GridChange is the immutable set of blocks changed in a Grid by one update, such as a piece
+ * being played and the lines it completed being cleared. It is passed to the grid's listener once
+ * the update is committed, so a renderer or network sync can handle the whole update at once.
+ * <p>
+ * The blocks are held in the same layout as the grid's rows: bit x of the bitmask of row y is set
+ * if the block at (x, y) changed.
+ */
+public final class GridChange {
+
+  /**
+   * The changed blocks of each row
+   */
+  private final long[] rowBits;
+
+  /**
+   * The number of blocks changed
+   */
+  private final int count;
+
+  /**
+   * Create a new GridChange from the changed blocks of each row, which are copied
+   *
+   * @param rowBits changed blocks of each row
+   */
+  GridChange(long[] rowBits) {
+    this.rowBits = rowBits.clone();
+    int total = 0;
+    for (long bits : rowBits) {
+      total += Long.bitCount(bits);
+    }
+    this.count = total;
+  }
+
+  /**
+   * Get the changed blocks of a row
+   *
+   * @param y row
+   * @return bitmask with bit x set if the block in column x changed
+   */
+  public long getRowBits(int y) {
+    return rowBits[y];
+  }
+
+  /**
+   * Whether a block changed
+   *
+   * @param x column
+   * @param y row
+   * @return true if the block changed
+   */
+  public boolean isChanged(int x, int y) {
+    return (rowBits[y] & (1L << x)) != 0;
+  }
+
+  /**
+   * Get the number of rows in the grid that changed
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rowBits.length;
+  }
+
+  /**
+   * Get the number of blocks changed
+   *
+   * @return number of blocks
+   */
+  public int getCount() {
+    return count;
+  }
+}
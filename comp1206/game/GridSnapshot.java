@@ -0,0 +1,178 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A GridSnapshot is an immutable copy of the blocks of a Grid at one moment, taken with
+ * Grid.snapshot and put back with Grid.restore.
+ * <p>
+ * Each row is held as its own immutable object, and a snapshot taken with a previous one shares
+ * every row which has not changed since. A move only changes a few rows, so keeping a long history
+ * of snapshots costs little more than the rows each move changed.
+ */
+public final class GridSnapshot {
+
+  /**
+   * One immutable row of blocks
+   */
+  static final class Row {
+
+    /**
+     * The occupancy bitmask of the row
+     */
+    final long bits;
+
+    /**
+     * The colour value of each block in the row
+     */
+    final byte[] colours;
+
+    /**
+     * Create a new row, which takes ownership of the colour array
+     *
+     * @param bits    occupancy bitmask
+     * @param colours colour value of each block
+     */
+    Row(long bits, byte[] colours) {
+      this.bits = bits;
+      this.colours = colours;
+    }
+  }
+
+  /**
+   * The number of columns
+   */
+  private final int cols;
+
+  /**
+   * The rows of blocks, which may be shared with other snapshots
+   */
+  private final Row[] rows;
+
+  /**
+   * Create a new snapshot, which takes ownership of the row array
+   *
+   * @param cols number of columns
+   * @param rows rows of blocks
+   */
+  GridSnapshot(int cols, Row[] rows) {
+    this.cols = cols;
+    this.rows = rows;
+  }
+
+  /**
+   * Get one of the rows
+   *
+   * @param y row
+   * @return the row
+   */
+  Row row(int y) {
+    return rows[y];
+  }
+
+  /**
+   * Get the value of a block
+   *
+   * @param x column
+   * @param y row
+   * @return the value
+   */
+  public int get(int x, int y) {
+    return rows[y].colours[x];
+  }
+
+  /**
+   * Get the occupancy bitmask of a row
+   *
+   * @param y row
+   * @return the row bitmask
+   */
+  public long getRowBits(int y) {
+    return rows[y].bits;
+  }
+
+  /**
+   * Check whether this snapshot holds the same blocks as an earlier snapshot of the same grid,
+   * which it shares every row with if nothing has changed
+   *
+   * @param previous earlier snapshot, or null if there is none
+   * @return true if no block differs
+   */
+  public boolean isSameAs(GridSnapshot previous) {
+    if (previous == null || previous.rows.length != rows.length) {
+      return false;
+    }
+    for (var y = 0; y < rows.length; y++) {
+      if (rows[y] != previous.rows[y]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find the blocks of a row which differ from an earlier snapshot of the same grid. A row shared
+   * with the earlier snapshot is known to be unchanged without comparing its blocks.
+   *
+   * @param previous earlier snapshot of a grid of the same size, or null if there is none
+   * @param y        row
+   * @return bitmask with bit x set if the block in column x differs, or every block if none given
+   */
+  public long changedBlocks(GridSnapshot previous, int y) {
+    if (previous == null) {
+      return -1L >>> (Grid.MAX_COLS - cols);
+    }
+    Row row = rows[y];
+    Row before = previous.rows[y];
+    if (row == before) {
+      return 0;
+    }
+    long changed = 0;
+    for (var x = 0; x < cols; x++) {
+      if (row.colours[x] != before.colours[x]) {
+        changed |= 1L << x;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Checks to see if a GamePiece could be placed at the specified coordinate in this snapshot, in
+   * the same way as Grid.canPlayPiece
+   *
+   * @param gamePiece GamePiece trying to be placed
+   * @param valX      x-value of the coordinate
+   * @param valY      y-value of the coordinate
+   * @return true if the piece could be played
+   */
+  public boolean canPlayPiece(GamePiece gamePiece, int valX, int valY) {
+    if (valX + gamePiece.getMinX() < 0 || valX + gamePiece.getMaxX() >= cols
+        || valY + gamePiece.getMinY() < 0 || valY + gamePiece.getMaxY() >= rows.length) {
+      return false;
+    }
+    for (int y = gamePiece.getMinY(); y <= gamePiece.getMaxY(); y++) {
+      long mask = gamePiece.getRowMask(y + 1);
+      long shifted = valX >= 1 ? mask << (valX - 1) : mask >>> 1;
+      if ((rows[valY + y].bits & shifted) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the number of columns
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows.length;
+  }
+}
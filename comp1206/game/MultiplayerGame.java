@@ -1,6 +1,5 @@
 package uk.ac.soton.comp1206.game;
 
-import java.util.ArrayList;
 import uk.ac.soton.comp1206.network.Communicator;
 
 /**
@@ -11,15 +10,19 @@ import uk.ac.soton.comp1206.network.Communicator;
 public class MultiplayerGame extends Game {
 
   /**
-   * Communicator to communicative with web socket and send and receive game messages
+   * Source of the upcoming GamePieces sent by the communicator online
    */
-  private final Communicator communicator;
+  private final ServerPieceSource serverPieces;
+
   /**
-   * ArrayList to hold the upcoming GamePieces sent by the communicator online
+   * Number of pieces received from the server so far, counted on the FX thread
    */
-  public ArrayList<GamePiece> pieceQueue = new ArrayList<>();
-
+  private int piecesReceived;
 
+  /**
+   * Whether start has been called and is waiting for the first pieces to arrive
+   */
+  private boolean startRequested;
 
   /**
    * Create a new game with the specified rows and columns. Creates a corresponding grid model.
@@ -29,54 +32,52 @@ public class MultiplayerGame extends Game {
    * @param communicator web socket communicator
    */
   public MultiplayerGame(int cols, int rows, Communicator communicator) {
-    super(cols, rows);
-    this.communicator = communicator;
+    this(cols, rows, new ServerPieceSource(communicator));
   }
 
   /**
-   * Overrides the Game superclass start method
+   * Create a new game taking its pieces from the given server-fed source
+   *
+   * @param cols         number of columns
+   * @param rows         number of rows
+   * @param serverPieces source of the pieces sent by the server
    */
-  @Override
-  public void start() {
-    super.start();
+  private MultiplayerGame(int cols, int rows, ServerPieceSource serverPieces) {
+    super(cols, rows, serverPieces);
+    this.serverPieces = serverPieces;
   }
 
   /**
-   * Overrides the Game superclass initialiseGame method
+   * Starts the game once the first two pieces from the server have been received, so the opening
+   * deal never takes from an empty queue. Until then the start is held back
    */
   @Override
-  public void initialiseGame() {
-    super.initialiseGame();
+  public void start() {
+    startRequested = true;
+    startIfReady();
   }
 
   /**
-   * Overrides the Game superclass spawnPiece method in order to update the GamePiece queue with a
-   * new GamePiece requested from the server
+   * Adds a new GamePiece piece to the game-piece queue, on the game thread where pieces are taken
+   * from it
    *
-   * @return a randomly generated GamePiece received from the server
+   * @param i the number value of the GamePiece to be added
    */
   @Override
-  public GamePiece spawnPiece() {
-    //Request a new GamePiece piece to add to the queue
-    communicator.send("PIECE");
-
-    //Set the next GamePiece in the queue as a preliminary GamePiece variable
-    GamePiece piece = pieceQueue.get(0);
-
-    //Remove the next GamePiece in the queue
-    pieceQueue.remove(0);
-
-    //Return the next GamePiece in the queue
-    return piece;
+  public void addPiece(int i) {
+    actor.put(() -> serverPieces.add(i));
+    piecesReceived++;
+    startIfReady();
   }
 
   /**
-   * Adds a new GamePiece piece to the game-piece queue
-   *
-   * @param i the number value of the GamePiece to be added
+   * Starts the game if a start has been requested and the current and following pieces have
+   * arrived. Both are queued on the game thread ahead of the engine start, which takes them
    */
-  @Override
-  public void addPiece(int i) {
-    this.pieceQueue.add(GamePiece.createPiece(i));
+  private void startIfReady() {
+    if (startRequested && piecesReceived >= 2) {
+      startRequested = false;
+      super.start();
+    }
   }
 }
@@ -0,0 +1,15 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A PieceSource decides which GamePiece comes next in a game. Games made with the same kind of
+ * source and the same seed are given exactly the same pieces, so they can be reproduced.
+ */
+public interface PieceSource {
+
+  /**
+   * Get the next piece for the game
+   *
+   * @return the next GamePiece
+   */
+  public GamePiece nextPiece();
+}
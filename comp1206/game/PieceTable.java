@@ -0,0 +1,260 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * The PieceTable holds the precomputed shape of every GamePiece in every rotation. It is built once
+ * when the class is loaded and never changed afterwards, so rotating and placing pieces never needs
+ * to build a shape.
+ * <p>
+ * Each entry is identified by its index, which is the piece number multiplied by the number of
+ * rotations plus the rotation. For every entry the table holds a bitmask of each row of the 3x3
+ * shape, a bitmask of the whole shape, the list of blocks as offsets from the centre block, and the
+ * bounding offsets of those blocks.
+ */
+final class PieceTable {
+
+  /**
+   * The number of rotations of each piece
+   */
+  static final int ROTATIONS = 4;
+
+  /**
+   * The size of each side of a piece
+   */
+  static final int SIZE = 3;
+
+  /**
+   * The total number of entries in the table
+   */
+  static final int ENTRIES = GamePiece.PIECES * ROTATIONS;
+
+  /**
+   * The name of each piece
+   */
+  private static final String[] NAMES = {
+      "Line", "C", "Plus", "Dot", "Square", "L", "J", "S", "Z", "T", "X", "Corner",
+      "Inverse Corner", "Diagonal", "Double"
+  };
+
+  /**
+   * The shape of each piece in its first rotation, indexed [x][y]
+   */
+  private static final int[][][] SHAPES = {
+      {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}}, //Line
+      {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}}, //C
+      {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}}, //Plus
+      {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}}, //Dot
+      {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}}, //Square
+      {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}}, //L
+      {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}}, //J
+      {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}}, //S
+      {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}}, //Z
+      {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}}, //T
+      {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}}, //X
+      {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}}, //Corner
+      {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}}, //Inverse Corner
+      {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}}, //Diagonal
+      {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}}  //Double
+  };
+
+  /**
+   * The bitmask of each row of each entry, indexed [index * SIZE + row]. Bit x is set if the block
+   * in column x of that row is filled.
+   */
+  private static final int[] ROW_MASKS = new int[ENTRIES * SIZE];
+
+  /**
+   * The bitmask of the whole shape of each entry. Bit (y * SIZE + x) is set if the block at (x, y)
+   * is filled.
+   */
+  private static final int[] SHAPE_MASKS = new int[ENTRIES];
+
+  /**
+   * The position in BLOCK_X and BLOCK_Y of the first block of each entry
+   */
+  private static final int[] BLOCK_START = new int[ENTRIES + 1];
+
+  /**
+   * The x offset from the centre of every block of every entry
+   */
+  private static final byte[] BLOCK_X;
+
+  /**
+   * The y offset from the centre of every block of every entry
+   */
+  private static final byte[] BLOCK_Y;
+
+  /**
+   * The bounding offsets from the centre of each entry
+   */
+  private static final byte[] MIN_X = new byte[ENTRIES];
+  private static final byte[] MAX_X = new byte[ENTRIES];
+  private static final byte[] MIN_Y = new byte[ENTRIES];
+  private static final byte[] MAX_Y = new byte[ENTRIES];
+
+  static {
+    //Work out every rotation of every piece, rotating the 3x3 grid clockwise each time
+    int[][][] shapes = new int[ENTRIES][][];
+    int total = 0;
+    for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+      int[][] shape = SHAPES[piece];
+      for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+        shapes[piece * ROTATIONS + rotation] = shape;
+        for (int[] column : shape) {
+          for (int block : column) {
+            total += block;
+          }
+        }
+
+        int[][] rotated = new int[SIZE][SIZE];
+        for (int x = 0; x < SIZE; x++) {
+          for (int y = 0; y < SIZE; y++) {
+            rotated[SIZE - 1 - y][x] = shape[x][y];
+          }
+        }
+        shape = rotated;
+      }
+    }
+
+    //Flatten every shape into its masks, block list and bounds
+    BLOCK_X = new byte[total];
+    BLOCK_Y = new byte[total];
+    int next = 0;
+    for (int index = 0; index < ENTRIES; index++) {
+      int[][] shape = shapes[index];
+      BLOCK_START[index] = next;
+      MIN_X[index] = MIN_Y[index] = 1;
+      MAX_X[index] = MAX_Y[index] = -1;
+
+      for (int y = 0; y < SIZE; y++) {
+        for (int x = 0; x < SIZE; x++) {
+          if (shape[x][y] == 0) {
+            continue;
+          }
+          ROW_MASKS[index * SIZE + y] |= 1 << x;
+          SHAPE_MASKS[index] |= 1 << (y * SIZE + x);
+
+          byte dx = (byte) (x - 1);
+          byte dy = (byte) (y - 1);
+          BLOCK_X[next] = dx;
+          BLOCK_Y[next] = dy;
+          next++;
+
+          MIN_X[index] = (byte) Math.min(MIN_X[index], dx);
+          MAX_X[index] = (byte) Math.max(MAX_X[index], dx);
+          MIN_Y[index] = (byte) Math.min(MIN_Y[index], dy);
+          MAX_Y[index] = (byte) Math.max(MAX_Y[index], dy);
+        }
+      }
+    }
+    BLOCK_START[ENTRIES] = next;
+  }
+
+  /**
+   * The table is only accessed statically
+   */
+  private PieceTable() {
+  }
+
+  /**
+   * Get the name of a piece
+   *
+   * @param piece piece number
+   * @return name of the piece
+   */
+  static String name(int piece) {
+    return NAMES[piece];
+  }
+
+  /**
+   * Get the bitmask of one row of an entry
+   *
+   * @param index entry index
+   * @param row   row of the 3x3 shape, from 0 to 2
+   * @return bitmask of the row, with bit x set if column x is filled
+   */
+  static int rowMask(int index, int row) {
+    return ROW_MASKS[index * SIZE + row];
+  }
+
+  /**
+   * Get the bitmask of the whole shape of an entry
+   *
+   * @param index entry index
+   * @return bitmask with bit (y * 3 + x) set if the block at (x, y) is filled
+   */
+  static int shapeMask(int index) {
+    return SHAPE_MASKS[index];
+  }
+
+  /**
+   * Get the number of blocks in an entry
+   *
+   * @param index entry index
+   * @return number of blocks
+   */
+  static int blockCount(int index) {
+    return BLOCK_START[index + 1] - BLOCK_START[index];
+  }
+
+  /**
+   * Get the x offset from the centre of a block of an entry
+   *
+   * @param index entry index
+   * @param block block number
+   * @return x offset, from -1 to 1
+   */
+  static int blockX(int index, int block) {
+    return BLOCK_X[BLOCK_START[index] + block];
+  }
+
+  /**
+   * Get the y offset from the centre of a block of an entry
+   *
+   * @param index entry index
+   * @param block block number
+   * @return y offset, from -1 to 1
+   */
+  static int blockY(int index, int block) {
+    return BLOCK_Y[BLOCK_START[index] + block];
+  }
+
+  /**
+   * Get the smallest x offset from the centre of any block of an entry
+   *
+   * @param index entry index
+   * @return smallest x offset
+   */
+  static int minX(int index) {
+    return MIN_X[index];
+  }
+
+  /**
+   * Get the largest x offset from the centre of any block of an entry
+   *
+   * @param index entry index
+   * @return largest x offset
+   */
+  static int maxX(int index) {
+    return MAX_X[index];
+  }
+
+  /**
+   * Get the smallest y offset from the centre of any block of an entry
+   *
+   * @param index entry index
+   * @return smallest y offset
+   */
+  static int minY(int index) {
+    return MIN_Y[index];
+  }
+
+  /**
+   * Get the largest y offset from the centre of any block of an entry
+   *
+   * @param index entry index
+   * @return largest y offset
+   */
+  static int maxY(int index) {
+    return MAX_Y[index];
+  }
+}
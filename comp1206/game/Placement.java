@@ -0,0 +1,70 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A Placement is a GamePiece in a particular rotation centred on a particular block, packed into a
+ * single int so that lists of placements can be held in plain int arrays.
+ * <p>
+ * The class only contains static methods to pack and unpack placements.
+ */
+public final class Placement {
+
+  /**
+   * Placements are only packed into ints
+   */
+  private Placement() {
+  }
+
+  /**
+   * Pack a placement into an int
+   *
+   * @param gamePiece piece in the rotation to be placed
+   * @param x         column to centre the piece on
+   * @param y         row to centre the piece on
+   * @return the packed placement
+   */
+  public static int of(GamePiece gamePiece, int x, int y) {
+    return (gamePiece.getIndex() << 16) | (x << 8) | y;
+  }
+
+  /**
+   * The piece, in its rotation, to be placed
+   *
+   * @param placement packed placement
+   * @return piece
+   */
+  public static GamePiece piece(int placement) {
+    return GamePiece.fromIndex(placement >>> 16);
+  }
+
+  /**
+   * The column to centre the piece on
+   *
+   * @param placement packed placement
+   * @return column
+   */
+  public static int x(int placement) {
+    return (placement >>> 8) & 0xFF;
+  }
+
+  /**
+   * The row to centre the piece on
+   *
+   * @param placement packed placement
+   * @return row
+   */
+  public static int y(int placement) {
+    return placement & 0xFF;
+  }
+
+  /**
+   * Return a readable representation of a placement
+   *
+   * @param placement packed placement
+   * @return description of the placement
+   */
+  public static String toString(int placement) {
+    return "Placement [piece = " + piece(placement) + ", rotation = "
+        + piece(placement).getRotation() + ", x = " + x(placement) + ", y = " + y(placement)
+        + "]";
+  }
+}
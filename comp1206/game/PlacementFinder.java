@@ -0,0 +1,275 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * The PlacementFinder works out every position a GamePiece can be played in a Grid at once, for
+ * hints, computer players and checking whether the player has any move left.
+ * <p>
+ * Rather than checking each position one at a time with canPlayPiece, the legal centres of a whole
+ * row are found together: each filled block of the grid rules out every centre which would put a
+ * block of the piece on top of it, which takes a shift and an OR per block of the piece's shape.
+ * <p>
+ * For grids of up to 64 blocks the results are cached, keyed by the whole grid packed into one
+ * bitmask, the size of the grid and the piece, so positions seen again are answered straight from
+ * the cache. A PlacementFinder is not thread safe; each thread should have its own.
+ */
+public class PlacementFinder {
+
+  /**
+   * The number of entries in the cache, which must be a power of two
+   */
+  private static final int CACHE_SIZE = 1 << 14;
+
+  /**
+   * The packed grid each cache entry is for
+   */
+  private final long[] cacheBoards = new long[CACHE_SIZE];
+
+  /**
+   * The size of grid and piece each cache entry is for, as made by key, so that 0 means empty
+   */
+  private final int[] cachePieces = new int[CACHE_SIZE];
+
+  /**
+   * The legal centres of each cache entry, packed in the same way as the grid
+   */
+  private final long[] cacheCentres = new long[CACHE_SIZE];
+
+  /**
+   * The legal centres of each row found by the last uncached search
+   */
+  private long[] rowCentres = new long[0];
+
+  /**
+   * Find every placement of every distinct rotation of a piece which can be played in the grid
+   *
+   * @param grid       grid to play in
+   * @param gamePiece  piece to play, in any rotation
+   * @param placements array to fill with packed Placements, which must be big enough to hold
+   *                   every block of the grid for every rotation
+   * @return the number of placements found
+   */
+  public int findPlacements(Grid grid, GamePiece gamePiece, int[] placements) {
+    return findPlacements(grid, gamePiece, placements, 0);
+  }
+
+  /**
+   * Find every placement of every distinct rotation of a piece which can be played in the grid and
+   * add them to the end of an array
+   *
+   * @param grid       grid to play in
+   * @param gamePiece  piece to play, in any rotation
+   * @param placements array to add packed Placements to
+   * @param found      number of placements already in the array
+   * @return the number of placements in the array afterwards
+   */
+  public int findPlacements(Grid grid, GamePiece gamePiece, int[] placements, int found) {
+    for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+      if (isRepeatedRotation(gamePiece, rotation)) {
+        continue;
+      }
+      found = findRotationPlacements(grid, gamePiece.rotate(rotation), placements, found);
+    }
+    return found;
+  }
+
+  /**
+   * Find every placement of a piece in exactly the rotation given which can be played in the grid
+   * and add them to the end of an array
+   *
+   * @param grid       grid to play in
+   * @param gamePiece  piece to play, in the rotation to play it
+   * @param placements array to add packed Placements to
+   * @param found      number of placements already in the array
+   * @return the number of placements in the array afterwards
+   */
+  public int findRotationPlacements(Grid grid, GamePiece gamePiece, int[] placements, int found) {
+    int cols = grid.getCols();
+    if (isPackable(grid)) {
+      long centres = legalCentres(grid, gamePiece);
+      while (centres != 0) {
+        int bit = Long.numberOfTrailingZeros(centres);
+        placements[found++] = Placement.of(gamePiece, bit % cols, bit / cols);
+        centres &= centres - 1;
+      }
+    } else {
+      findRowCentres(grid, gamePiece);
+      for (int y = 0; y < grid.getRows(); y++) {
+        long centres = rowCentres[y];
+        while (centres != 0) {
+          placements[found++] = Placement.of(gamePiece, Long.numberOfTrailingZeros(centres), y);
+          centres &= centres - 1;
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Check whether a piece can be played anywhere in the grid in any rotation
+   *
+   * @param grid      grid to play in
+   * @param gamePiece piece to play, in any rotation
+   * @return true if there is at least one placement
+   */
+  public boolean canPlayAnywhere(Grid grid, GamePiece gamePiece) {
+    for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+      if (isRepeatedRotation(gamePiece, rotation)) {
+        continue;
+      }
+      GamePiece rotated = gamePiece.rotate(rotation);
+      if (isPackable(grid)) {
+        if (legalCentres(grid, rotated) != 0) {
+          return true;
+        }
+      } else {
+        findRowCentres(grid, rotated);
+        for (int y = 0; y < grid.getRows(); y++) {
+          if (rowCentres[y] != 0) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get every legal centre of a piece in a grid of up to 64 blocks, using the cache
+   *
+   * @param grid      grid to play in, with at most 64 blocks
+   * @param gamePiece piece to play, in the rotation to play it
+   * @return the legal centres, with bit (y * cols + x) set if the piece can be centred on (x, y)
+   */
+  public long legalCentres(Grid grid, GamePiece gamePiece) {
+    long board = pack(grid);
+    int key = key(grid, gamePiece);
+    int slot = slot(board, key);
+    if (cacheBoards[slot] == board && cachePieces[slot] == key) {
+      return cacheCentres[slot];
+    }
+
+    findRowCentres(grid, gamePiece);
+    long centres = 0;
+    for (int y = 0; y < grid.getRows(); y++) {
+      centres |= rowCentres[y] << (y * grid.getCols());
+    }
+
+    cacheBoards[slot] = board;
+    cachePieces[slot] = key;
+    cacheCentres[slot] = centres;
+    return centres;
+  }
+
+  /**
+   * Work out the legal centres of each row of the grid for a piece, without the cache
+   *
+   * @param grid      grid to play in
+   * @param gamePiece piece to play, in the rotation to play it
+   */
+  private void findRowCentres(Grid grid, GamePiece gamePiece) {
+    int cols = grid.getCols();
+    int rows = grid.getRows();
+    if (rowCentres.length < rows) {
+      rowCentres = new long[rows];
+    }
+
+    //The centres inside the grid which keep the piece inside its left and right
+    int minCentre = Math.max(0, -gamePiece.getMinX());
+    int maxCentre = Math.min(cols - 1, cols - 1 - gamePiece.getMaxX());
+    long inside = maxCentre < minCentre ? 0
+        : (-1L >>> (Grid.MAX_COLS - 1 - maxCentre)) & (-1L << minCentre);
+
+    for (int y = 0; y < rows; y++) {
+      //The piece must also stay inside the top and bottom of the grid
+      if (y + gamePiece.getMinY() < 0 || y + gamePiece.getMaxY() >= rows) {
+        rowCentres[y] = 0;
+        continue;
+      }
+
+      //Every filled block rules out the centres which would put a block of the piece on it. A
+      // block at offset dx from the centre covers the grid block at x + dx, so a filled grid block
+      // at x rules out the centre x - dx.
+      long blocked = 0;
+      for (int dy = gamePiece.getMinY(); dy <= gamePiece.getMaxY(); dy++) {
+        long filled = grid.getRowBits(y + dy);
+        int mask = gamePiece.getRowMask(dy + 1);
+        if ((mask & 1) != 0) {
+          blocked |= filled << 1;
+        }
+        if ((mask & 2) != 0) {
+          blocked |= filled;
+        }
+        if ((mask & 4) != 0) {
+          blocked |= filled >>> 1;
+        }
+      }
+      rowCentres[y] = inside & ~blocked;
+    }
+  }
+
+  /**
+   * Check whether a rotation of a piece has the same shape as one of its earlier rotations, so
+   * would give the same placements again
+   *
+   * @param gamePiece piece, in any rotation
+   * @param rotation  number of rotations from the piece given
+   * @return true if an earlier rotation has the same shape
+   */
+  private static boolean isRepeatedRotation(GamePiece gamePiece, int rotation) {
+    int shape = gamePiece.rotate(rotation).getShapeMask();
+    for (int earlier = 0; earlier < rotation; earlier++) {
+      if (gamePiece.rotate(earlier).getShapeMask() == shape) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check whether a grid is small enough to be packed into a single long
+   *
+   * @param grid grid to check
+   * @return true if the grid has at most 64 blocks
+   */
+  private static boolean isPackable(Grid grid) {
+    return grid.getCols() * grid.getRows() <= Long.SIZE;
+  }
+
+  /**
+   * Pack every block of a grid of up to 64 blocks into a single long
+   *
+   * @param grid grid to pack
+   * @return the grid with bit (y * cols + x) set if the block at (x, y) is filled
+   */
+  private static long pack(Grid grid) {
+    long board = 0;
+    for (int y = 0; y < grid.getRows(); y++) {
+      board |= grid.getRowBits(y) << (y * grid.getCols());
+    }
+    return board;
+  }
+
+  /**
+   * Combine the size of a grid and a piece into the key of a cache entry. Grids of different sizes
+   * can pack to the same bits, such as any two empty grids, so the size must be part of the key.
+   *
+   * @param grid      grid of up to 64 blocks
+   * @param gamePiece piece to play, in the rotation to play it
+   * @return the rows in bits 24-31, the columns in bits 16-23 and the piece index plus 1 below
+   */
+  private static int key(Grid grid, GamePiece gamePiece) {
+    return grid.getRows() << 24 | grid.getCols() << 16 | (gamePiece.getIndex() + 1);
+  }
+
+  /**
+   * Work out which cache entry a packed grid and key belong in
+   *
+   * @param board packed grid
+   * @param key   size of the grid and piece, as made by key
+   * @return cache slot
+   */
+  private static int slot(long board, int key) {
+    long hash = (board ^ key * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> (Long.SIZE - Integer.numberOfTrailingZeros(CACHE_SIZE)));
+  }
+}
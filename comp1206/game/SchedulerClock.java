@@ -0,0 +1,86 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The SchedulerClock is the real time GameClock used by the client. Every game and scene shares a
+ * single scheduler thread, which is a daemon so it never keeps the client running, and which is
+ * shut down with the client.
+ */
+public class SchedulerClock implements GameClock {
+
+  private static final Logger logger = LogManager.getLogger(SchedulerClock.class);
+
+  /**
+   * The single instance shared by the client
+   */
+  private static final SchedulerClock INSTANCE = new SchedulerClock();
+
+  /**
+   * The scheduler running every task
+   */
+  private final ScheduledThreadPoolExecutor scheduler;
+
+  /**
+   * Create the clock and its scheduler thread
+   */
+  private SchedulerClock() {
+    scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      var thread = new Thread(runnable, "Game Clock");
+      thread.setDaemon(true);
+      return thread;
+    });
+    //Cancelled tasks are removed straight away rather than waiting for their time to come
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Get the clock shared by the client
+   *
+   * @return the clock
+   */
+  public static SchedulerClock getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Get the current time
+   *
+   * @return time in milliseconds, from a monotonic source
+   */
+  @Override
+  public long currentTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+
+  /**
+   * Run a task once after a delay on the scheduler thread. If the task throws an exception it is
+   * logged, and the scheduler carries on.
+   *
+   * @param task        task to run
+   * @param delayMillis delay in milliseconds
+   * @return handle which can be used to cancel the task
+   */
+  @Override
+  public Scheduled schedule(Runnable task, long delayMillis) {
+    ScheduledFuture<?> future = scheduler.schedule(() -> {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.error("Scheduled task failed: " + e);
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+    return () -> future.cancel(false);
+  }
+
+  /**
+   * Stop the scheduler. Tasks which have not run yet are dropped.
+   */
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+}
@@ -0,0 +1,55 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.ArrayDeque;
+import uk.ac.soton.comp1206.network.Communicator;
+
+/**
+ * A PieceSource fed by the multiplayer server, so that every player in a game is given the same
+ * pieces. Each piece dealt requests another from the server, so the queue stays topped up with the
+ * pieces requested when the game started.
+ */
+public class ServerPieceSource implements PieceSource {
+
+  /**
+   * Communicator used to request pieces from the server
+   */
+  private final Communicator communicator;
+
+  /**
+   * The pieces received from the server which have not been dealt yet
+   */
+  private final ArrayDeque<GamePiece> queue = new ArrayDeque<>();
+
+  /**
+   * Create a new source
+   *
+   * @param communicator communicator used to request pieces from the server
+   */
+  public ServerPieceSource(Communicator communicator) {
+    this.communicator = communicator;
+  }
+
+  /**
+   * Add a piece received from the server to the queue
+   *
+   * @param piece piece number
+   */
+  public void add(int piece) {
+    queue.add(GamePiece.createPiece(piece));
+  }
+
+  /**
+   * Deal the next piece received from the server and request another
+   *
+   * @return the next GamePiece
+   */
+  @Override
+  public GamePiece nextPiece() {
+    communicator.send("PIECE");
+    GamePiece piece = queue.poll();
+    if (piece == null) {
+      throw new IllegalStateException("No pieces have been received from the server");
+    }
+    return piece;
+  }
+}
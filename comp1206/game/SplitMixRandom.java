@@ -0,0 +1,81 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A small, fast random number generator using the SplitMix64 algorithm. The sequence produced from
+ * a seed is fixed by this class rather than by the Java version, so games seeded with it can be
+ * reproduced exactly anywhere. Generating numbers never allocates, and a generator can be split
+ * into an independent one, for example to give each simulated game its own.
+ */
+public final class SplitMixRandom {
+
+  /**
+   * The amount the state is advanced by for each number
+   */
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  /**
+   * The current state of the generator
+   */
+  private long state;
+
+  /**
+   * Create a new generator
+   *
+   * @param seed seed to start from
+   */
+  public SplitMixRandom(long seed) {
+    this.state = seed;
+  }
+
+  /**
+   * Get the next random long, with every value equally likely
+   *
+   * @return random long
+   */
+  public long nextLong() {
+    long z = state += GOLDEN_GAMMA;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Get the next random int from 0 up to but not including the bound, with every value equally
+   * likely
+   *
+   * @param bound upper bound, which must be positive
+   * @return random int
+   */
+  public int nextInt(int bound) {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("Bound must be positive: " + bound);
+    }
+    //Reject the values at the top of the range which would make the lowest results more likely
+    int bits;
+    int value;
+    do {
+      bits = (int) (nextLong() >>> 33);
+      value = bits % bound;
+    } while (bits - value + (bound - 1) < 0);
+    return value;
+  }
+
+  /**
+   * Get the current state of the generator. A generator created with this as its seed carries on
+   * with exactly the same numbers as this one.
+   *
+   * @return state
+   */
+  public long getState() {
+    return state;
+  }
+
+  /**
+   * Create a new generator, seeded from this one, whose numbers are independent of this one's
+   *
+   * @return new generator
+   */
+  public SplitMixRandom split() {
+    return new SplitMixRandom(nextLong());
+  }
+}
@@ -0,0 +1,69 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A PieceSource where every piece is equally likely every time, independently of the pieces before.
+ * This is how pieces have always been chosen in single player games.
+ */
+public class UniformPieceSource implements PieceSource {
+
+  /**
+   * The seed the pieces are generated from
+   */
+  private final long seed;
+
+  /**
+   * The random number generator used for GamePiece generation
+   */
+  private final SplitMixRandom random;
+
+  /**
+   * Create a new source
+   *
+   * @param seed seed to generate the pieces from
+   */
+  public UniformPieceSource(long seed) {
+    this.seed = seed;
+    this.random = new SplitMixRandom(seed);
+  }
+
+  /**
+   * Create a source which carries on from part-way through the pieces of a seed, for resuming a
+   * saved game
+   *
+   * @param seed  seed the pieces were generated from
+   * @param state state of the random number generator, as returned by getState
+   */
+  public UniformPieceSource(long seed, long state) {
+    this.seed = seed;
+    this.random = new SplitMixRandom(state);
+  }
+
+  /**
+   * Get a random piece
+   *
+   * @return the next GamePiece
+   */
+  @Override
+  public GamePiece nextPiece() {
+    return GamePiece.createPiece(random.nextInt(GamePiece.PIECES));
+  }
+
+  /**
+   * Get the seed the pieces are generated from
+   *
+   * @return seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Get the state of the random number generator, which together with the seed is everything
+   * needed to carry on with the same pieces
+   *
+   * @return generator state
+   */
+  public long getState() {
+    return random.getState();
+  }
+}
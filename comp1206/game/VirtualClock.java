@@ -0,0 +1,145 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.PriorityQueue;
+
+/**
+ * A VirtualClock is a GameClock whose time only moves when it is told to. Tasks are run on the
+ * thread which moves the time, in the order they are due, so tests and simulations can go straight
+ * from one timer to the next without waiting in real time.
+ * <p>
+ * A VirtualClock is not thread safe and should only be used from one thread.
+ */
+public class VirtualClock implements GameClock {
+
+  /**
+   * The current time
+   */
+  private long now;
+
+  /**
+   * The number of tasks scheduled so far, used to run tasks due at the same time in order
+   */
+  private long scheduled;
+
+  /**
+   * The tasks waiting to run, soonest first
+   */
+  private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+
+  /**
+   * Get the current time
+   *
+   * @return time in milliseconds since the clock was created
+   */
+  @Override
+  public long currentTimeMillis() {
+    return now;
+  }
+
+  /**
+   * Schedule a task to run once the clock has been moved on by the delay
+   *
+   * @param task        task to run
+   * @param delayMillis delay in milliseconds
+   * @return handle which can be used to cancel the task
+   */
+  @Override
+  public Scheduled schedule(Runnable task, long delayMillis) {
+    var entry = new Task(now + Math.max(delayMillis, 0), scheduled++, task);
+    tasks.add(entry);
+    return entry;
+  }
+
+  /**
+   * Move the clock on, running every task which becomes due on the way at the time it is due
+   *
+   * @param millis time to move on by
+   */
+  public void advance(long millis) {
+    long target = now + millis;
+    while (!tasks.isEmpty() && tasks.peek().time <= target) {
+      Task task = tasks.poll();
+      now = task.time;
+      if (!task.cancelled) {
+        task.runnable.run();
+      }
+    }
+    now = target;
+  }
+
+  /**
+   * Move the clock straight to the next task which is due and run it
+   *
+   * @return false if there were no tasks waiting
+   */
+  public boolean runNext() {
+    while (!tasks.isEmpty()) {
+      Task task = tasks.poll();
+      now = Math.max(now, task.time);
+      if (!task.cancelled) {
+        task.runnable.run();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A task waiting to run on the virtual clock
+   */
+  private static class Task implements Scheduled, Comparable<Task> {
+
+    /**
+     * The time the task is due
+     */
+    private final long time;
+
+    /**
+     * The order the task was scheduled in
+     */
+    private final long order;
+
+    /**
+     * The task to run
+     */
+    private final Runnable runnable;
+
+    /**
+     * Whether the task has been cancelled
+     */
+    private boolean cancelled;
+
+    /**
+     * Create a new task
+     *
+     * @param time     time the task is due
+     * @param order    order the task was scheduled in
+     * @param runnable task to run
+     */
+    private Task(long time, long order, Runnable runnable) {
+      this.time = time;
+      this.order = order;
+      this.runnable = runnable;
+    }
+
+    /**
+     * Stop the task from running
+     */
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+
+    /**
+     * Order tasks by the time they are due, then the order they were scheduled in
+     *
+     * @param other task to compare with
+     * @return negative if this task should run first
+     */
+    @Override
+    public int compareTo(Task other) {
+      int byTime = Long.compare(time, other.time);
+      return byTime != 0 ? byTime : Long.compare(order, other.order);
+    }
+  }
+}
@@ -0,0 +1,315 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import uk.ac.soton.comp1206.game.BagPieceSource;
+import uk.ac.soton.comp1206.game.PieceSource;
+import uk.ac.soton.comp1206.game.UniformPieceSource;
+
+/**
+ * A Replay is a recorded game read back from a replay file: the size of the grid, the seed and
+ * every input, each with the time it was made.
+ * <p>
+ * The inputs are held in parallel arrays, so even long games take little memory. A replay whose
+ * recording was cut short, for example by the client being closed, is read up to the last complete
+ * input and is not marked as ended.
+ */
+public class Replay {
+
+  /**
+   * The size of the grid
+   */
+  private final int cols;
+  private final int rows;
+
+  /**
+   * The kind of PieceSource the game used
+   */
+  private final byte pieceSourceKind;
+
+  /**
+   * The seed of the PieceSource
+   */
+  private final long seed;
+
+  /**
+   * The time the game started, in milliseconds since the epoch
+   */
+  private final long startTime;
+
+  /**
+   * The number of inputs
+   */
+  private int count;
+
+  /**
+   * The type of each input, and its time in milliseconds since the start of the game
+   */
+  private byte[] types = new byte[256];
+  private long[] times = new long[256];
+
+  /**
+   * The arguments of each input, where it has them
+   */
+  private int[] firstArguments = new int[256];
+  private int[] secondArguments = new int[256];
+
+  /**
+   * Whether the game was recorded to its end
+   */
+  private boolean ended;
+
+  /**
+   * The final score recorded at the end of the game
+   */
+  private int finalScore;
+
+  /**
+   * Create a new, empty replay from a header
+   *
+   * @param cols            number of columns
+   * @param rows            number of rows
+   * @param pieceSourceKind kind of PieceSource
+   * @param seed            seed of the PieceSource
+   * @param startTime       time the game started
+   */
+  private Replay(int cols, int rows, byte pieceSourceKind, long seed, long startTime) {
+    this.cols = cols;
+    this.rows = rows;
+    this.pieceSourceKind = pieceSourceKind;
+    this.seed = seed;
+    this.startTime = startTime;
+  }
+
+  /**
+   * Read a replay file
+   *
+   * @param path file to read
+   * @return the replay
+   * @throws IOException if the file cannot be read or is not a replay
+   */
+  public static Replay read(Path path) throws IOException {
+    ByteBuffer buffer;
+    try (var channel = FileChannel.open(path)) {
+      buffer = ByteBuffer.allocate((int) channel.size());
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        //Keep reading until the whole file is in the buffer
+      }
+    }
+    buffer.flip();
+
+    try {
+      if (buffer.getInt() != ReplayFormat.MAGIC) {
+        throw new IOException(path + " is not a replay");
+      }
+      byte version = buffer.get();
+      if (version != ReplayFormat.VERSION) {
+        throw new IOException(path + " is replay version " + version + ", which is not supported");
+      }
+      var replay = new Replay((int) ReplayFormat.getVarint(buffer),
+          (int) ReplayFormat.getVarint(buffer), buffer.get(), buffer.getLong(),
+          ReplayFormat.getVarint(buffer));
+      replay.readInputs(buffer);
+      return replay;
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException(path + " has an incomplete header", e);
+    }
+  }
+
+  /**
+   * Read every complete input from the buffer
+   *
+   * @param buffer buffer positioned at the first input
+   */
+  private void readInputs(ByteBuffer buffer) {
+    long time = 0;
+    try {
+      while (buffer.hasRemaining() && !ended) {
+        long first = ReplayFormat.getVarint(buffer);
+        int type = (int) (first & ((1 << ReplayFormat.TYPE_BITS) - 1));
+        time += first >>> ReplayFormat.TYPE_BITS;
+
+        int firstArgument = 0;
+        int secondArgument = 0;
+        switch (type) {
+          case ReplayFormat.AIM, ReplayFormat.PLACE -> {
+            firstArgument = (int) ReplayFormat.getVarint(buffer);
+            secondArgument = (int) ReplayFormat.getVarint(buffer);
+          }
+          case ReplayFormat.ROTATE -> firstArgument = (int) ReplayFormat.getVarint(buffer);
+          case ReplayFormat.SWAP, ReplayFormat.TIMER -> {
+          }
+          case ReplayFormat.END -> {
+            finalScore = (int) ReplayFormat.getVarint(buffer);
+            ended = true;
+            continue;
+          }
+          default -> throw new IllegalArgumentException("Unknown input type: " + type);
+        }
+        add(type, time, firstArgument, secondArgument);
+      }
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      //The recording was cut short, keep the inputs read so far
+    }
+  }
+
+  /**
+   * Add an input to the end of the replay
+   *
+   * @param type           input type
+   * @param time           milliseconds since the start of the game
+   * @param firstArgument  first argument, or 0
+   * @param secondArgument second argument, or 0
+   */
+  private void add(int type, long time, int firstArgument, int secondArgument) {
+    if (count == types.length) {
+      types = Arrays.copyOf(types, count * 2);
+      times = Arrays.copyOf(times, count * 2);
+      firstArguments = Arrays.copyOf(firstArguments, count * 2);
+      secondArguments = Arrays.copyOf(secondArguments, count * 2);
+    }
+    types[count] = (byte) type;
+    times[count] = time;
+    firstArguments[count] = firstArgument;
+    secondArguments[count] = secondArgument;
+    count++;
+  }
+
+  /**
+   * Create a new PieceSource which gives the same pieces as the recorded game's
+   *
+   * @return piece source
+   */
+  public PieceSource createPieceSource() {
+    return switch (pieceSourceKind) {
+      case ReplayFormat.UNIFORM -> new UniformPieceSource(seed);
+      case ReplayFormat.BAG -> new BagPieceSource(seed);
+      default -> throw new IllegalStateException("Unknown piece source: " + pieceSourceKind);
+    };
+  }
+
+  /**
+   * Find the first input made at or after a time
+   *
+   * @param time milliseconds since the start of the game
+   * @return input number, or the number of inputs if there are none that late
+   */
+  public int inputAt(long time) {
+    int found = Arrays.binarySearch(times, 0, count, time);
+    if (found < 0) {
+      return -found - 1;
+    }
+    //Several inputs can share a time, find the first
+    while (found > 0 && times[found - 1] == time) {
+      found--;
+    }
+    return found;
+  }
+
+  /**
+   * Get the number of columns
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the seed of the PieceSource
+   *
+   * @return seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Get the time the game started
+   *
+   * @return milliseconds since the epoch
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Get the number of inputs
+   *
+   * @return number of inputs
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Get the type of an input, one of the record types of the ReplayFormat
+   *
+   * @param input input number
+   * @return type
+   */
+  int getType(int input) {
+    return types[input];
+  }
+
+  /**
+   * Get the time of an input
+   *
+   * @param input input number
+   * @return milliseconds since the start of the game
+   */
+  public long getTime(int input) {
+    return times[input];
+  }
+
+  /**
+   * Get the first argument of an input: the column of an aim or placement, or the rotations
+   *
+   * @param input input number
+   * @return first argument
+   */
+  int getFirstArgument(int input) {
+    return firstArguments[input];
+  }
+
+  /**
+   * Get the second argument of an input: the row of an aim or placement
+   *
+   * @param input input number
+   * @return second argument
+   */
+  int getSecondArgument(int input) {
+    return secondArguments[input];
+  }
+
+  /**
+   * Whether the game was recorded to its end
+   *
+   * @return true if the final score was recorded
+   */
+  public boolean isEnded() {
+    return ended;
+  }
+
+  /**
+   * Get the final score recorded at the end of the game
+   *
+   * @return final score, or 0 if the game was not recorded to its end
+   */
+  public int getFinalScore() {
+    return finalScore;
+  }
+}
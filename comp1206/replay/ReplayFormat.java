@@ -0,0 +1,95 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The ReplayFormat describes the binary format replays are stored in.
+ * <p>
+ * A replay starts with a header: the magic number, the format version, the number of columns and
+ * rows, the kind of PieceSource, its seed as 8 bytes, and the time the game started in milliseconds
+ * since the epoch.
+ * <p>
+ * The header is followed by one record per input. Each record starts with a single varint holding
+ * the milliseconds since the previous record shifted left by 3, with the record type in the lowest
+ * 3 bits, followed by any values the type needs, each as a varint. Inputs made in quick succession
+ * therefore usually take 1 or 2 bytes each.
+ */
+final class ReplayFormat {
+
+  /**
+   * The magic number at the start of every replay, "TRPY"
+   */
+  static final int MAGIC = 0x54525059;
+
+  /**
+   * The version of the format written
+   */
+  static final byte VERSION = 1;
+
+  /**
+   * The kinds of PieceSource a replay can be made with
+   */
+  static final byte UNIFORM = 0;
+  static final byte BAG = 1;
+
+  /**
+   * The record types: the aim moved to (x, y), the current piece rotated clockwise a number of
+   * times, the pieces swapped, a piece played at (x, y), the timer running out, and the end of the
+   * game with the final score
+   */
+  static final int AIM = 0;
+  static final int ROTATE = 1;
+  static final int SWAP = 2;
+  static final int PLACE = 3;
+  static final int TIMER = 4;
+  static final int END = 5;
+
+  /**
+   * The number of bits of the first varint of a record holding the record type
+   */
+  static final int TYPE_BITS = 3;
+
+  /**
+   * The most bytes a single record can take
+   */
+  static final int MAX_RECORD = 3 * 10;
+
+  /**
+   * The format is only accessed statically
+   */
+  private ReplayFormat() {
+  }
+
+  /**
+   * Write an unsigned varint: 7 bits per byte, lowest first, with the top bit set on every byte but
+   * the last
+   *
+   * @param buffer buffer to write to
+   * @param value  value to write, treated as unsigned
+   */
+  static void putVarint(ByteBuffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  /**
+   * Read an unsigned varint
+   *
+   * @param buffer buffer to read from
+   * @return value read
+   */
+  static long getVarint(ByteBuffer buffer) {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      byte next = buffer.get();
+      value |= (long) (next & 0x7F) << shift;
+      if (next >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint in replay");
+  }
+}
@@ -0,0 +1,232 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PieceSource;
+
+/**
+ * The ReplayPlayer re-runs a Replay headlessly on a GameEngine, as fast as the rules can be
+ * applied. Time is not waited for: each input is applied straight after the one before.
+ * <p>
+ * As the replay is played, a snapshot of the engine is taken every few inputs, along with the
+ * number of pieces dealt so far. Seeking restores the nearest snapshot before the target, rebuilds
+ * the PieceSource from the seed and deals it the same number of pieces, then plays forward to the
+ * target, so seeking anywhere only replays a few inputs.
+ * <p>
+ * The player can also verify a replay by playing it to the end and checking that the score matches
+ * the score recorded. It can be run from the command line to verify a set of replay files.
+ */
+public class ReplayPlayer {
+
+  /**
+   * The replay being played
+   */
+  private final Replay replay;
+
+  /**
+   * The number of inputs between snapshots
+   */
+  private final int snapshotInterval;
+
+  /**
+   * The engine the replay is played on
+   */
+  private final GameEngine engine;
+
+  /**
+   * The snapshots taken so far, the nth taken before input n * snapshotInterval
+   */
+  private final ArrayList<GameEngine> snapshots = new ArrayList<>();
+
+  /**
+   * The number of pieces dealt at each snapshot
+   */
+  private final ArrayList<Long> snapshotPieces = new ArrayList<>();
+
+  /**
+   * The PieceSource currently dealing pieces to the engine
+   */
+  private PieceSource pieceSource;
+
+  /**
+   * The number of pieces dealt by the current PieceSource
+   */
+  private long piecesDealt;
+
+  /**
+   * The next input to be applied
+   */
+  private int position;
+
+  /**
+   * Create a new player, positioned at the start of the game
+   *
+   * @param replay           replay to play
+   * @param snapshotInterval number of inputs between snapshots
+   */
+  public ReplayPlayer(Replay replay, int snapshotInterval) {
+    if (snapshotInterval < 1) {
+      throw new IllegalArgumentException("Invalid snapshot interval: " + snapshotInterval);
+    }
+    this.replay = replay;
+    this.snapshotInterval = snapshotInterval;
+    this.pieceSource = replay.createPieceSource();
+    this.engine = new GameEngine(replay.getCols(), replay.getRows(), this::dealPiece);
+    engine.start();
+    takeSnapshot();
+  }
+
+  /**
+   * Run the player from the command line, verifying every replay file given
+   *
+   * @param args replay files
+   */
+  public static void main(String[] args) {
+    int failures = 0;
+    for (String file : args) {
+      try {
+        Replay replay = Replay.read(Path.of(file));
+        long start = System.nanoTime();
+        var player = new ReplayPlayer(replay, 256);
+        boolean verified = player.verify();
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        long length = replay.getCount() == 0 ? 0 : replay.getTime(replay.getCount() - 1);
+        System.out.printf("%s: %s, %d inputs, score %d (recorded %s), %.1f ms, %.0fx real time%n",
+            file, verified ? "OK" : "MISMATCH", replay.getCount(), player.getEngine().getScore(),
+            replay.isEnded() ? replay.getFinalScore() : "none", millis, length / millis);
+        if (!verified) {
+          failures++;
+        }
+      } catch (IOException e) {
+        System.out.println(file + ": " + e.getMessage());
+        failures++;
+      }
+    }
+    System.exit(failures == 0 ? 0 : 1);
+  }
+
+  /**
+   * Apply the next input to the engine
+   *
+   * @return false if there were no inputs left
+   */
+  public boolean step() {
+    if (position >= replay.getCount()) {
+      return false;
+    }
+    if (position % snapshotInterval == 0 && position / snapshotInterval == snapshots.size()) {
+      takeSnapshot();
+    }
+
+    switch (replay.getType(position)) {
+      case ReplayFormat.ROTATE -> engine.rotateCurrentPiece(replay.getFirstArgument(position));
+      case ReplayFormat.SWAP -> engine.swapCurrentPiece();
+      case ReplayFormat.PLACE -> engine.playPiece(replay.getFirstArgument(position),
+          replay.getSecondArgument(position));
+      case ReplayFormat.TIMER -> engine.timerExpired();
+      default -> {
+        //Aim moves do not change the game
+      }
+    }
+    position++;
+    return true;
+  }
+
+  /**
+   * Move to just before the given input, so that it is the next to be applied
+   *
+   * @param input input number, from 0 to the number of inputs
+   */
+  public void seek(int input) {
+    if (input < 0 || input > replay.getCount()) {
+      throw new IndexOutOfBoundsException("No such input: " + input);
+    }
+
+    //Go back to the nearest snapshot before the input if it is behind, or ahead of, the position
+    int snapshot = Math.min(input / snapshotInterval, snapshots.size() - 1);
+    if (input < position || snapshot > position / snapshotInterval) {
+      restoreSnapshot(snapshot);
+    }
+    while (position < input) {
+      step();
+    }
+  }
+
+  /**
+   * Move to just before the first input made at or after the given time
+   *
+   * @param time milliseconds since the start of the game
+   */
+  public void seekTime(long time) {
+    seek(replay.inputAt(time));
+  }
+
+  /**
+   * Play the rest of the replay and check the final score matches the recorded one
+   *
+   * @return true if the replay was recorded to its end and the scores match
+   */
+  public boolean verify() {
+    while (step()) {
+      //Apply every input left
+    }
+    return replay.isEnded() && engine.getScore() == replay.getFinalScore();
+  }
+
+  /**
+   * Get the engine the replay is played on, which must not be changed
+   *
+   * @return engine
+   */
+  public GameEngine getEngine() {
+    return engine;
+  }
+
+  /**
+   * Get the next input to be applied
+   *
+   * @return input number
+   */
+  public int getPosition() {
+    return position;
+  }
+
+  /**
+   * Deal the engine the next piece, counting the pieces dealt
+   *
+   * @return the next GamePiece
+   */
+  private GamePiece dealPiece() {
+    piecesDealt++;
+    return pieceSource.nextPiece();
+  }
+
+  /**
+   * Take a snapshot of the engine before the current position
+   */
+  private void takeSnapshot() {
+    var snapshot = new GameEngine(replay.getCols(), replay.getRows(), this::dealPiece);
+    snapshot.copyFrom(engine);
+    snapshots.add(snapshot);
+    snapshotPieces.add(piecesDealt);
+  }
+
+  /**
+   * Restore the engine to a snapshot, dealing a new PieceSource the same pieces as had been dealt
+   *
+   * @param snapshot snapshot number
+   */
+  private void restoreSnapshot(int snapshot) {
+    engine.copyFrom(snapshots.get(snapshot));
+    pieceSource = replay.createPieceSource();
+    piecesDealt = snapshotPieces.get(snapshot);
+    for (long piece = 0; piece < piecesDealt; piece++) {
+      pieceSource.nextPiece();
+    }
+    position = snapshot * snapshotInterval;
+  }
+}
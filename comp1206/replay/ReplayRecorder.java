@@ -0,0 +1,215 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.GameInputListener;
+import uk.ac.soton.comp1206.game.BagPieceSource;
+import uk.ac.soton.comp1206.game.PieceSource;
+import uk.ac.soton.comp1206.game.UniformPieceSource;
+
+/**
+ * The ReplayRecorder records the seed and every input of a game to a replay file in the
+ * ReplayFormat, so the game can be replayed exactly. It is set as the game's input listener.
+ * <p>
+ * Recording an input only puts a few bytes into a buffer, which is written to the file through a
+ * FileChannel when it fills up and when the recording finishes, so recording has no noticeable cost
+ * while playing. If writing fails, the error is logged and recording stops, without affecting the
+ * game.
+ */
+public class ReplayRecorder implements GameInputListener, Closeable {
+
+  private static final Logger logger = LogManager.getLogger(ReplayRecorder.class);
+
+  /**
+   * The size of the buffer inputs are recorded into before being written
+   */
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  /**
+   * The file being written
+   */
+  private final FileChannel channel;
+
+  /**
+   * The records which have not been written yet
+   */
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  /**
+   * The time of the previous record, from System.nanoTime
+   */
+  private long lastRecord;
+
+  /**
+   * Whether the recording has finished or failed, so nothing more is recorded
+   */
+  private boolean closed;
+
+  /**
+   * Start recording a game to a file, writing the header straight away
+   *
+   * @param path        file to write, which is replaced if it exists
+   * @param cols        number of columns of the game
+   * @param rows        number of rows of the game
+   * @param pieceSource the game's source of pieces, which must be seeded
+   * @throws IOException if the file cannot be written
+   */
+  public ReplayRecorder(Path path, int cols, int rows, PieceSource pieceSource)
+      throws IOException {
+    byte kind;
+    long seed;
+    if (pieceSource instanceof UniformPieceSource uniform) {
+      kind = ReplayFormat.UNIFORM;
+      seed = uniform.getSeed();
+    } else if (pieceSource instanceof BagPieceSource bag) {
+      kind = ReplayFormat.BAG;
+      seed = bag.getSeed();
+    } else {
+      throw new IllegalArgumentException("Only games with seeded pieces can be recorded");
+    }
+
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    buffer.putInt(ReplayFormat.MAGIC);
+    buffer.put(ReplayFormat.VERSION);
+    ReplayFormat.putVarint(buffer, cols);
+    ReplayFormat.putVarint(buffer, rows);
+    buffer.put(kind);
+    buffer.putLong(seed);
+    ReplayFormat.putVarint(buffer, System.currentTimeMillis());
+    lastRecord = System.nanoTime();
+    flush();
+    logger.info("Recording replay to {}", path);
+  }
+
+  /**
+   * Record the aim moving to a block
+   *
+   * @param x column
+   * @param y row
+   */
+  @Override
+  public synchronized void aimMoved(int x, int y) {
+    if (start(ReplayFormat.AIM)) {
+      ReplayFormat.putVarint(buffer, x);
+      ReplayFormat.putVarint(buffer, y);
+    }
+  }
+
+  /**
+   * Record the current piece being rotated
+   *
+   * @param rotations number of clockwise rotations
+   */
+  @Override
+  public synchronized void pieceRotated(int rotations) {
+    if (start(ReplayFormat.ROTATE)) {
+      ReplayFormat.putVarint(buffer, rotations);
+    }
+  }
+
+  /**
+   * Record the current and following pieces being swapped
+   */
+  @Override
+  public synchronized void piecesSwapped() {
+    start(ReplayFormat.SWAP);
+  }
+
+  /**
+   * Record an attempt to play the current piece
+   *
+   * @param x column of the centre of the piece
+   * @param y row of the centre of the piece
+   */
+  @Override
+  public synchronized void blockClicked(int x, int y) {
+    if (start(ReplayFormat.PLACE)) {
+      ReplayFormat.putVarint(buffer, x);
+      ReplayFormat.putVarint(buffer, y);
+    }
+  }
+
+  /**
+   * Record the timer running out
+   */
+  @Override
+  public synchronized void timerExpired() {
+    start(ReplayFormat.TIMER);
+  }
+
+  /**
+   * Record the end of the game and finish the recording
+   *
+   * @param score final score
+   */
+  @Override
+  public synchronized void gameEnded(int score) {
+    if (start(ReplayFormat.END)) {
+      ReplayFormat.putVarint(buffer, score);
+    }
+    close();
+  }
+
+  /**
+   * Write anything not yet written and close the file. Nothing more is recorded.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try (channel) {
+      flush();
+    } catch (IOException e) {
+      logger.error("Unable to finish replay: " + e);
+    }
+  }
+
+  /**
+   * Start a record, making room for it in the buffer
+   *
+   * @param type record type
+   * @return true if the record should be written, false if recording has stopped
+   */
+  private boolean start(int type) {
+    if (closed) {
+      return false;
+    }
+    if (buffer.remaining() < ReplayFormat.MAX_RECORD) {
+      try {
+        flush();
+      } catch (IOException e) {
+        logger.error("Unable to write replay, recording stopped: " + e);
+        close();
+        return false;
+      }
+    }
+
+    long now = System.nanoTime();
+    long millis = (now - lastRecord) / 1_000_000;
+    lastRecord += millis * 1_000_000;
+    ReplayFormat.putVarint(buffer, (millis << ReplayFormat.TYPE_BITS) | type);
+    return true;
+  }
+
+  /**
+   * Write everything in the buffer to the file
+   *
+   * @throws IOException if the file cannot be written
+   */
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,62 @@
+package uk.ac.soton.comp1206.save;
+
+/**
+ * The SaveFormat describes the binary format suspended games are saved in.
+ * <p>
+ * Unlike a replay, a save is read by position rather than in order, so every value has a fixed
+ * size and place. The file is a 64 byte header followed by the colour value of every block of the
+ * grid, one byte each, row by row. The header holds, in order: the magic number, the format
+ * version, the kind of PieceSource, the number of columns and rows, the current and following
+ * pieces as table indexes, the score, level, lives and multiplier, the milliseconds left on the
+ * timer, the seed and generator state of the PieceSource, and for a bag the position of the next
+ * piece and the bag itself.
+ */
+final class SaveFormat {
+
+  /**
+   * The magic number at the start of every save, "TSAV"
+   */
+  static final int MAGIC = 0x54534156;
+
+  /**
+   * The version of the format written
+   */
+  static final byte VERSION = 1;
+
+  /**
+   * The kinds of PieceSource a save can be made with
+   */
+  static final byte UNIFORM = 0;
+  static final byte BAG = 1;
+
+  /**
+   * The position of each value in the header
+   */
+  static final int MAGIC_OFFSET = 0;
+  static final int VERSION_OFFSET = 4;
+  static final int KIND_OFFSET = 5;
+  static final int COLS_OFFSET = 6;
+  static final int ROWS_OFFSET = 8;
+  static final int CURRENT_OFFSET = 10;
+  static final int FOLLOWING_OFFSET = 11;
+  static final int SCORE_OFFSET = 12;
+  static final int LEVEL_OFFSET = 16;
+  static final int LIVES_OFFSET = 20;
+  static final int MULTIPLIER_OFFSET = 24;
+  static final int TIMER_OFFSET = 28;
+  static final int SEED_OFFSET = 32;
+  static final int STATE_OFFSET = 40;
+  static final int BAG_NEXT_OFFSET = 48;
+  static final int BAG_OFFSET = 49;
+
+  /**
+   * The size of the header, and so the position of the first block of the grid
+   */
+  static final int HEADER_SIZE = 64;
+
+  /**
+   * The format is only accessed statically
+   */
+  private SaveFormat() {
+  }
+}
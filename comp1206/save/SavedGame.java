@@ -0,0 +1,343 @@
+package uk.ac.soton.comp1206.save;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import uk.ac.soton.comp1206.game.BagPieceSource;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PieceSource;
+import uk.ac.soton.comp1206.game.UniformPieceSource;
+
+/**
+ * A SavedGame is a single player game suspended part-way through and read back from a save file:
+ * the grid, the pieces, the score, level, lives and multiplier, the time left on the timer and the
+ * state of the PieceSource, so the game carries on with exactly the pieces it would have had.
+ * <p>
+ * The file is read whole into a buffer on the heap and closed straight away, and each value is read
+ * from its place in the buffer when it is asked for. Nothing holds the file open or mapped
+ * afterwards, so it can be deleted or replaced while the SavedGame is still in use, which Windows
+ * would not allow for a mapped file. A save is only a short header and a byte per block, so reading
+ * it costs nothing worth avoiding.
+ */
+public class SavedGame {
+
+  /**
+   * The contents of the file
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * The size of the grid
+   */
+  private final int cols;
+  private final int rows;
+
+  /**
+   * Create a saved game from the contents of a file which has been checked
+   *
+   * @param buffer file contents
+   */
+  private SavedGame(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.cols = buffer.getShort(SaveFormat.COLS_OFFSET);
+    this.rows = buffer.getShort(SaveFormat.ROWS_OFFSET);
+  }
+
+  /**
+   * Save the state of a game to a file. The file is written in full under a temporary name first,
+   * then moved into place, so an existing save is never left half overwritten. Must be called on
+   * the thread the engine is run on.
+   *
+   * @param path          file to write, which is replaced if it exists
+   * @param engine        engine of the game
+   * @param pieceSource   the engine's source of pieces, which must be seeded
+   * @param timeRemaining milliseconds left on the timer
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(Path path, GameEngine engine, PieceSource pieceSource,
+      long timeRemaining) throws IOException {
+    int cols = engine.getCols();
+    int rows = engine.getRows();
+    var buffer = ByteBuffer.allocate(SaveFormat.HEADER_SIZE + cols * rows);
+
+    if (pieceSource instanceof UniformPieceSource uniform) {
+      buffer.put(SaveFormat.KIND_OFFSET, SaveFormat.UNIFORM);
+      buffer.putLong(SaveFormat.SEED_OFFSET, uniform.getSeed());
+      buffer.putLong(SaveFormat.STATE_OFFSET, uniform.getState());
+    } else if (pieceSource instanceof BagPieceSource bag) {
+      buffer.put(SaveFormat.KIND_OFFSET, SaveFormat.BAG);
+      buffer.putLong(SaveFormat.SEED_OFFSET, bag.getSeed());
+      buffer.putLong(SaveFormat.STATE_OFFSET, bag.getState());
+      buffer.put(SaveFormat.BAG_NEXT_OFFSET, (byte) bag.getNext());
+      int[] pieces = bag.getBag();
+      for (int i = 0; i < GamePiece.PIECES; i++) {
+        buffer.put(SaveFormat.BAG_OFFSET + i, (byte) pieces[i]);
+      }
+    } else {
+      throw new IllegalArgumentException("Only games with seeded pieces can be saved");
+    }
+
+    buffer.putInt(SaveFormat.MAGIC_OFFSET, SaveFormat.MAGIC);
+    buffer.put(SaveFormat.VERSION_OFFSET, SaveFormat.VERSION);
+    buffer.putShort(SaveFormat.COLS_OFFSET, (short) cols);
+    buffer.putShort(SaveFormat.ROWS_OFFSET, (short) rows);
+    buffer.put(SaveFormat.CURRENT_OFFSET, (byte) engine.getCurrentPiece().getIndex());
+    buffer.put(SaveFormat.FOLLOWING_OFFSET, (byte) engine.getFollowingPiece().getIndex());
+    buffer.putInt(SaveFormat.SCORE_OFFSET, engine.getScore());
+    buffer.putInt(SaveFormat.LEVEL_OFFSET, engine.getLevel());
+    buffer.putInt(SaveFormat.LIVES_OFFSET, engine.getLives());
+    buffer.putInt(SaveFormat.MULTIPLIER_OFFSET, engine.getMultiplier());
+    buffer.putInt(SaveFormat.TIMER_OFFSET, (int) Math.min(timeRemaining, Integer.MAX_VALUE));
+
+    Grid grid = engine.getGrid();
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) {
+        buffer.put(SaveFormat.HEADER_SIZE + y * cols + x, (byte) grid.get(x, y));
+      }
+    }
+
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+    try {
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Read a save file and check that it holds a valid game. The file is closed before this returns.
+   *
+   * @param path file to read
+   * @return the saved game
+   * @throws IOException if the file cannot be read or is not a valid save
+   */
+  public static SavedGame read(Path path) throws IOException {
+    ByteBuffer buffer;
+    try (var channel = FileChannel.open(path)) {
+      long size = channel.size();
+      if (size < SaveFormat.HEADER_SIZE
+          || size > SaveFormat.HEADER_SIZE + (long) Grid.MAX_COLS * Short.MAX_VALUE) {
+        throw new IOException(path + " is not a save");
+      }
+      buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          throw new IOException(path + " ended early");
+        }
+      }
+    }
+
+    if (buffer.getInt(SaveFormat.MAGIC_OFFSET) != SaveFormat.MAGIC) {
+      throw new IOException(path + " is not a save");
+    }
+    byte version = buffer.get(SaveFormat.VERSION_OFFSET);
+    if (version != SaveFormat.VERSION) {
+      throw new IOException(path + " is save version " + version + ", which is not supported");
+    }
+    if (!isValid(buffer)) {
+      throw new IOException(path + " is damaged");
+    }
+    return new SavedGame(buffer);
+  }
+
+  /**
+   * Check that every value in a save is in range, so restoring it cannot fail
+   *
+   * @param buffer file contents
+   * @return true if the save is valid
+   */
+  private static boolean isValid(ByteBuffer buffer) {
+    int cols = buffer.getShort(SaveFormat.COLS_OFFSET);
+    int rows = buffer.getShort(SaveFormat.ROWS_OFFSET);
+    if (cols < 1 || cols > Grid.MAX_COLS || rows < 1
+        || buffer.capacity() != SaveFormat.HEADER_SIZE + cols * rows) {
+      return false;
+    }
+    if (!isPieceIndex(buffer.get(SaveFormat.CURRENT_OFFSET))
+        || !isPieceIndex(buffer.get(SaveFormat.FOLLOWING_OFFSET))
+        || buffer.getInt(SaveFormat.SCORE_OFFSET) < 0 || buffer.getInt(SaveFormat.LEVEL_OFFSET) < 0
+        || buffer.getInt(SaveFormat.LIVES_OFFSET) < 0
+        || buffer.getInt(SaveFormat.MULTIPLIER_OFFSET) < 1
+        || buffer.getInt(SaveFormat.TIMER_OFFSET) < 0) {
+      return false;
+    }
+
+    byte kind = buffer.get(SaveFormat.KIND_OFFSET);
+    if (kind == SaveFormat.BAG) {
+      //The bag must hold every piece exactly once
+      int next = buffer.get(SaveFormat.BAG_NEXT_OFFSET);
+      int seen = 0;
+      for (int i = 0; i < GamePiece.PIECES; i++) {
+        int piece = buffer.get(SaveFormat.BAG_OFFSET + i);
+        if (piece < 0 || piece >= GamePiece.PIECES) {
+          return false;
+        }
+        seen |= 1 << piece;
+      }
+      if (next < 0 || next > GamePiece.PIECES || seen != (1 << GamePiece.PIECES) - 1) {
+        return false;
+      }
+    } else if (kind != SaveFormat.UNIFORM) {
+      return false;
+    }
+
+    for (int i = SaveFormat.HEADER_SIZE; i < buffer.capacity(); i++) {
+      int value = buffer.get(i);
+      if (value < 0 || value > GamePiece.PIECES) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Check whether a byte is the table index of a piece
+   *
+   * @param index byte to check
+   * @return true if it is a piece index
+   */
+  private static boolean isPieceIndex(int index) {
+    return index >= 0 && index < GamePiece.PIECES * GamePiece.ROTATIONS;
+  }
+
+  /**
+   * Create a new PieceSource which carries on with the pieces the saved game would have had next
+   *
+   * @return piece source
+   */
+  public PieceSource createPieceSource() {
+    long seed = buffer.getLong(SaveFormat.SEED_OFFSET);
+    long state = buffer.getLong(SaveFormat.STATE_OFFSET);
+    if (buffer.get(SaveFormat.KIND_OFFSET) == SaveFormat.UNIFORM) {
+      return new UniformPieceSource(seed, state);
+    }
+    var bag = new int[GamePiece.PIECES];
+    for (int i = 0; i < GamePiece.PIECES; i++) {
+      bag[i] = buffer.get(SaveFormat.BAG_OFFSET + i);
+    }
+    return new BagPieceSource(seed, state, bag, buffer.get(SaveFormat.BAG_NEXT_OFFSET));
+  }
+
+  /**
+   * Put an engine into the saved state: the grid, as one update, then the values and pieces. Must
+   * be called on the thread the engine is run on.
+   *
+   * @param engine engine with a grid the same size as the saved one
+   */
+  public void restore(GameEngine engine) {
+    if (engine.getCols() != cols || engine.getRows() != rows) {
+      throw new IllegalArgumentException(
+          "Cannot restore a " + cols + " x " + rows + " save into a " + engine.getCols() + " x "
+              + engine.getRows() + " game");
+    }
+    Grid grid = engine.getGrid();
+    grid.beginUpdate();
+    try {
+      for (int y = 0; y < rows; y++) {
+        for (int x = 0; x < cols; x++) {
+          grid.set(x, y, buffer.get(SaveFormat.HEADER_SIZE + y * cols + x));
+        }
+      }
+    } finally {
+      grid.commitUpdate();
+    }
+    engine.restore(getScore(), getLevel(), getLives(), getMultiplier(), getCurrentPiece(),
+        getFollowingPiece());
+  }
+
+  /**
+   * Get the number of columns of the saved grid
+   *
+   * @return number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the number of rows of the saved grid
+   *
+   * @return number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the saved score
+   *
+   * @return score
+   */
+  public int getScore() {
+    return buffer.getInt(SaveFormat.SCORE_OFFSET);
+  }
+
+  /**
+   * Get the saved level
+   *
+   * @return level
+   */
+  public int getLevel() {
+    return buffer.getInt(SaveFormat.LEVEL_OFFSET);
+  }
+
+  /**
+   * Get the number of lives left
+   *
+   * @return lives
+   */
+  public int getLives() {
+    return buffer.getInt(SaveFormat.LIVES_OFFSET);
+  }
+
+  /**
+   * Get the saved multiplier
+   *
+   * @return multiplier
+   */
+  public int getMultiplier() {
+    return buffer.getInt(SaveFormat.MULTIPLIER_OFFSET);
+  }
+
+  /**
+   * Get the saved current piece
+   *
+   * @return current piece
+   */
+  public GamePiece getCurrentPiece() {
+    return GamePiece.fromIndex(buffer.get(SaveFormat.CURRENT_OFFSET));
+  }
+
+  /**
+   * Get the saved following piece
+   *
+   * @return following piece
+   */
+  public GamePiece getFollowingPiece() {
+    return GamePiece.fromIndex(buffer.get(SaveFormat.FOLLOWING_OFFSET));
+  }
+
+  /**
+   * Get the time that was left on the timer when the game was saved
+   *
+   * @return milliseconds left
+   */
+  public int getTimeRemaining() {
+    return buffer.getInt(SaveFormat.TIMER_OFFSET);
+  }
+}
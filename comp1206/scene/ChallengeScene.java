@@ -2,10 +2,16 @@ package uk.ac.soton.comp1206.scene;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Scanner;
 import javafx.animation.FillTransition;
 import javafx.animation.Transition;
 import javafx.beans.binding.Bindings;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.input.KeyCode;
@@ -17,14 +23,27 @@ import javafx.scene.text.Text;
 import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.component.GameBlock;
+import uk.ac.soton.comp1206.ai.AiPlayer;
+import uk.ac.soton.comp1206.ai.HintService;
 import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.GameSnapshot;
 import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.UniformPieceSource;
 import uk.ac.soton.comp1206.multimedia.Multimedia;
+import uk.ac.soton.comp1206.replay.ReplayRecorder;
+import uk.ac.soton.comp1206.save.SavedGame;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.event.BoardChangedEvent;
+import uk.ac.soton.comp1206.event.EventBus.Delivery;
+import uk.ac.soton.comp1206.event.FollowingPieceEvent;
+import uk.ac.soton.comp1206.event.GameLoopEvent;
+import uk.ac.soton.comp1206.event.GameOverEvent;
+import uk.ac.soton.comp1206.event.LineClearedEvent;
+import uk.ac.soton.comp1206.event.NextPieceEvent;
 import uk.ac.soton.comp1206.ui.SettingsBox;
 
 /**
@@ -35,11 +54,52 @@ public class ChallengeScene extends BaseScene {
 
   protected static final Logger logger = LogManager.getLogger(ChallengeScene.class);
 
+  /**
+   * Whether single player games should be recorded to replay files
+   */
+  public static final SimpleBooleanProperty recordReplays = new SimpleBooleanProperty(false);
+
+  /**
+   * Whether single player games are practice games, where moves can be undone
+   */
+  public static final SimpleBooleanProperty practiceMode = new SimpleBooleanProperty(false);
+
+  /**
+   * The smallest number of columns and rows a board can have, so that every piece fits
+   */
+  public static final int MIN_BOARD_SIZE = 3;
+
+  /**
+   * The largest number of columns and rows a board can have
+   */
+  public static final int MAX_BOARD_SIZE = Grid.MAX_COLS;
+
+  /**
+   * The number of columns and rows of the board in single player games
+   */
+  public static final SimpleIntegerProperty boardSize = new SimpleIntegerProperty(5);
+
+  /**
+   * The folder replay files are recorded into
+   */
+  private static final Path REPLAY_FOLDER = Path.of("replays");
+
+  /**
+   * The file a game left with escape is saved to, so it can be carried on with next time
+   */
+  private static final Path SAVE_FILE = Path.of("savegame.tsav");
+
   /**
    * The game object that is currently being played
    */
   protected Game game;
 
+  /**
+   * The saved game to carry on with, or null if this is a new game. It is cleared once it has been
+   * handed to the game to restore, so the scene does not hold on to it.
+   */
+  protected SavedGame savedGame;
+
   /**
    * The mainPane that holds all the UI components
    */
@@ -66,14 +126,30 @@ public class ChallengeScene extends BaseScene {
   protected GameBoard board;
 
   /**
-   * GameBlock that is currently selected using the keyboard input
+   * boolean value that informs scene if game is a multiplayer game
    */
-  protected GameBlock selectedBlock;
+  protected boolean multiPlayerGame = false;
 
   /**
-   * boolean value that informs scene if game is a multiplayer game
+   * AI player which can take over the game, created the first time it is switched on
    */
-  protected boolean multiPlayerGame = false;
+  protected AiPlayer aiPlayer;
+
+  /**
+   * Service finding hints for the current piece, created the first time hints are switched on
+   */
+  protected HintService hintService;
+
+  /**
+   * Whether hints are being shown
+   */
+  protected boolean showHints = false;
+
+  /**
+   * The snapshot the last hint was asked for, so a batch which changes both the board and the piece
+   * only asks once
+   */
+  protected GameSnapshot hintedSnapshot;
 
   /**
    * Create a new Single Player challenge scene, passing in the GameWindow the scene will be displayed in
@@ -109,8 +185,10 @@ public class ChallengeScene extends BaseScene {
     mainPane = new BorderPane();
     challengePane.getChildren().add(mainPane);
 
-    //Set the GameBoard board component to a new GameBoard with the created Game grid
-    board = new GameBoard(game.getGrid(), gameWindow.getWidth() / 2, gameWindow.getWidth() / 2);
+    //Set the GameBoard board component to a new GameBoard the size of the Game grid. The grid is
+    // changed on the game thread, so the board starts empty and is shown each snapshot published
+    board = new GameBoard(new Grid(game.getCols(), game.getRows()).snapshot(null),
+        gameWindow.getWidth() / 2, gameWindow.getWidth() / 2);
     mainPane.setCenter(board);
 
     //Create the score title and text box and bind the game score integer to it. Add the appropriate style class
@@ -181,8 +259,13 @@ public class ChallengeScene extends BaseScene {
     //Create a PieceBoard component to show the current GamePiece piece
     PieceBoard pieceBoardCurrentPiece = new PieceBoard(new Grid(3, 3), 100, 100);
 
-    //Set the current PieceBoard board to contain the piece passed through the game Next Piece Listener
-    game.setNextPieceListener(pieceBoardCurrentPiece::setPiece);
+    //Set the current PieceBoard board to contain the piece passed through the game Next Piece
+    // event, and look for a hint for it
+    game.getEvents().subscribe(NextPieceEvent.class, Delivery.FX, event -> {
+      pieceBoardCurrentPiece.setPiece(event.getGamePiece());
+      updateGhost();
+      requestHint();
+    });
 
     //Set the current PieceBoard boolean currentPieceBoard value to true
     pieceBoardCurrentPiece.setCurrentPieceBoard(true);
@@ -190,11 +273,22 @@ public class ChallengeScene extends BaseScene {
     //Create a smaller PieceBoard component to show the following GamePiece piece
     PieceBoard pieceBoardFollowingPiece = new PieceBoard(new Grid(3, 3), 60, 60);
 
-    //Set the following PieceBoard board to contain the piece passed through the game Following Piece Listener
-    game.setFollowingPieceListener(pieceBoardFollowingPiece::setPiece);
+    //Set the following PieceBoard board to contain the piece passed through the game Following Piece event
+    game.getEvents().subscribe(FollowingPieceEvent.class, Delivery.FX,
+        event -> pieceBoardFollowingPiece.setPiece(event.getGamePiece()));
+
+    //Show the game board as it is after every change, then check the preview against it and look
+    // for a new hint for it. A move may deal the same piece again, so the Next Piece event alone
+    // does not cover every change
+    game.getEvents().subscribe(BoardChangedEvent.class, Delivery.FX, event -> {
+      board.showGrid(event.getGrid());
+      updateGhost();
+      requestHint();
+    });
 
-    //Set the line cleared listener to call the fadeOut method on the line of blocks cleared
-    game.setLineClearedListener(board::fadeOut);
+    //Call the fadeOut method on each line of blocks cleared
+    game.getEvents().subscribe(LineClearedEvent.class, Delivery.FX,
+        event -> board.fadeOut(event.isRow(), event.getIndex()));
 
     //Create a 'incoming' title for the current PieceBoard
     Text incomingText = new Text("Incoming");
@@ -232,6 +326,9 @@ public class ChallengeScene extends BaseScene {
     //Handle block on GameBoard grid being clicked
     board.setOnBlockClick(this::blockClicked);
 
+    //Move the aim to follow the mouse over the GameBoard
+    board.setOnBlockHover(game::aimAt);
+
     //Handle a right-click on the GameBoard board
     board.setOnMouseClicked(mouseEvent -> {
       if (mouseEvent.getButton() == MouseButton.SECONDARY) {
@@ -247,90 +344,188 @@ public class ChallengeScene extends BaseScene {
     pieceBoardFollowingPiece.setOnMouseClicked(mouseEvent -> game.swapCurrentPiece());
 
     //Handle an update from the Game Loop
-    game.setGameLoopListener(bool -> {
-      //If the game loop boolean was updated, and it was true start a new rectangle timer animation
-      if (bool) {
-        var animation = new Transition() {
-          //Set the duration of the animation to the same as the game timer delay
-          {
-            setCycleDuration(Duration.millis(game.getTimerDelay()));
-          }
-
-          /**
-           * Method that is called every frame of the animation.
-           * The rectangle timer is slowly decreased until it is invisible
-           *
-           * @param v the current frame the animation is on
-           */
-          @Override
-          protected void interpolate(double v) {
-            //Get full width of game window
-            double length = gameWindow.getWidth();
-
-            //Take away length of animation left
-            double inverse = 1.0 - v;
-
-            //Set the current length of the rectangle to the amount of time left
-            double currentLength = length * inverse;
-            rectangle.setWidth(currentLength);
-          }
-        };
-        //Create a new fill animation to slowly change the colour of the rectangle as it gets smaller,
-        // indicating the timer is about to be finished
-        var ft = new FillTransition(Duration.millis(game.getTimerDelay()), rectangle,
-            Color.LIMEGREEN, Color.RED);
-
-        //Play both animations
-        ft.play();
-        animation.play();
-      }
+    game.getEvents().subscribe(GameLoopEvent.class, Delivery.FX, event -> {
+      //The game loop was restarted, so start a new rectangle timer animation
+      int timerDelay = event.getTimerDelay();
+      var animation = new Transition() {
+        //Set the duration of the animation to the same as the game timer delay
+        {
+          setCycleDuration(Duration.millis(timerDelay));
+        }
+
+        /**
+         * Method that is called every frame of the animation.
+         * The rectangle timer is slowly decreased until it is invisible
+         *
+         * @param v the current frame the animation is on
+         */
+        @Override
+        protected void interpolate(double v) {
+          //Get full width of game window
+          double length = gameWindow.getWidth();
+
+          //Take away length of animation left
+          double inverse = 1.0 - v;
+
+          //Set the current length of the rectangle to the amount of time left
+          double currentLength = length * inverse;
+          rectangle.setWidth(currentLength);
+        }
+      };
+      //Create a new fill animation to slowly change the colour of the rectangle as it gets smaller,
+      // indicating the timer is about to be finished
+      var ft = new FillTransition(Duration.millis(timerDelay), rectangle,
+          Color.LIMEGREEN, Color.RED);
+
+      //Play both animations
+      ft.play();
+      animation.play();
     });
 
 
 
-    //Handle the game over listener firing, indicating the player has no lives left
-    game.setGameOverListener(bool -> {
-      if (bool) {
-        //If the game is over, start the scores scene
-        gameWindow.startScoresScene(game, multiPlayerGame);
+    //Handle the game over event, indicating the player has no lives left, by starting the scores
+    // scene
+    game.getEvents().subscribe(GameOverEvent.class, Delivery.FX, event -> {
+      if (aiPlayer != null) {
+        aiPlayer.shutdown();
       }
+      stopHints();
+      gameWindow.startScoresScene(game, multiPlayerGame);
     });
 
     //Handle the x-value of the selected block being updated
-    game.getXAim().addListener(observable -> {
-      //Clear all previous blocks being painted as 'hovered'
-      board.paintAll();
-
-      //Set the new selected block's x and v-values
-      selectedBlock = board.getBlock(game.getXAim().get(), game.getYAim().get());
-    });
+    game.getXAim().addListener(observable -> aimChanged());
 
     //Handle the y-value of the selected block being updated
-    game.getYAim().addListener(observable -> {
-      //Clear all previous blocks being painted as 'hovered'
-      board.paintAll();
+    game.getYAim().addListener(observable -> aimChanged());
+  }
 
-      //Set the new selected block's x and v-values
-      selectedBlock = board.getBlock(game.getXAim().get(), game.getYAim().get());
-    });
+  /**
+   * Select the block being aimed at with the keyboard, moving the highlight from the block
+   * selected before
+   */
+  private void aimChanged() {
+    //Highlight the block at the new x and y-values
+    board.hover(game.getXAim().get(), game.getYAim().get());
+    updateGhost();
+  }
+
+  /**
+   * Draw a preview of the current piece where it is aimed, coloured by whether it can be played
+   * there
+   */
+  protected void updateGhost() {
+    var snapshot = game.getSnapshot();
+    GamePiece piece = snapshot.getCurrentPiece();
+    if (piece == null || snapshot.isGameOver()) {
+      board.clearGhost();
+      return;
+    }
+    int x = game.getXAim().get();
+    int y = game.getYAim().get();
+    board.showGhost(piece, x, y, snapshot.getGrid().canPlayPiece(piece, x, y));
   }
 
   /**
    * Handle when a block is clicked
    *
-   * @param gameBlock the Game Block that was clicked
+   * @param x the column of the block that was clicked
+   * @param y the row of the block that was clicked
    */
-  private void blockClicked(GameBlock gameBlock) {
-    game.blockClicked(gameBlock);
+  private void blockClicked(int x, int y) {
+    game.blockClicked(x, y);
   }
 
   /**
    * Set up the game object and model
    */
   public void setupGame() {
+    //Carry on with the game left last time, if there is one and it matches the chosen settings. It
+    // cannot be replayed from its start, so is not recorded
+    int size = boardSize.get();
+    savedGame = readSavedGame();
+    if (savedGame != null) {
+      if (savedGame.getCols() == size && savedGame.getRows() == size && !practiceMode.get()) {
+        logger.info("Resuming a saved challenge");
+        game = new Game(size, size, savedGame.createPieceSource());
+        return;
+      }
+      //Saves are never practice games, so a practice game or a different size starts afresh
+      logger.info("Discarding a saved {} x {} challenge for the chosen settings",
+          savedGame.getCols(), savedGame.getRows());
+      savedGame = null;
+      deleteSavedGame();
+    }
+
     logger.info("Starting a new challenge");
-    //Start new game
-    game = new Game(5, 5);
+    //Start new game of the chosen size, seeded so that it can be replayed
+    game = new Game(size, size, new UniformPieceSource(System.nanoTime()));
+    game.setPractice(practiceMode.get());
+
+    //Undone moves cannot be replayed, so practice games are not recorded
+    if (recordReplays.get() && !game.isPractice()) {
+      startRecording();
+    }
+  }
+
+  /**
+   * Read the saved game, if there is one. A save which cannot be read is deleted.
+   *
+   * @return the saved game, or null if there is none
+   */
+  protected SavedGame readSavedGame() {
+    if (!Files.exists(SAVE_FILE)) {
+      return null;
+    }
+    try {
+      return SavedGame.read(SAVE_FILE);
+    } catch (IOException e) {
+      logger.error("Unable to resume saved game: " + e);
+      deleteSavedGame();
+      return null;
+    }
+  }
+
+  /**
+   * Save the game to the save file. Only called on the game thread.
+   */
+  protected void saveGame() {
+    try {
+      SavedGame.write(SAVE_FILE, game.getEngine(), game.getPieceSource(),
+          game.getTimeRemaining());
+      logger.info("Saved game to {}", SAVE_FILE);
+    } catch (IOException e) {
+      logger.error("Unable to save game: " + e);
+    }
+  }
+
+  /**
+   * Delete the save file, once it has been resumed or found to be unreadable or not to match the
+   * chosen settings
+   */
+  protected void deleteSavedGame() {
+    try {
+      Files.deleteIfExists(SAVE_FILE);
+    } catch (IOException e) {
+      logger.error("Unable to delete saved game: " + e);
+    }
+  }
+
+  /**
+   * Record the game to a new replay file. If the file cannot be created, the game is played
+   * without being recorded.
+   */
+  protected void startRecording() {
+    String name = "replay-" + LocalDateTime.now()
+        .format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".tetr";
+    try {
+      Files.createDirectories(REPLAY_FOLDER);
+      game.setGameInputListener(new ReplayRecorder(REPLAY_FOLDER.resolve(name), game.getCols(),
+          game.getRows(), game.getPieceSource()));
+    } catch (IOException e) {
+      logger.error("Unable to record replay: " + e);
+    }
   }
 
   /**
@@ -343,16 +538,30 @@ public class ChallengeScene extends BaseScene {
     //Start the background music for the scene
     Multimedia.playBackgroundMusic("Non-copyright Tetrics Music.mp3");
 
-    //Start the game
-    game.start();
+    //Start the game, or carry on with the saved one. The save is deleted once it has been
+    // restored, so a game is only ever resumed once
+    if (savedGame != null) {
+      SavedGame resumed = savedGame;
+      savedGame = null;
+      game.resume(engine -> {
+        resumed.restore(engine);
+        deleteSavedGame();
+      }, resumed.getTimeRemaining());
+    } else {
+      game.start();
+    }
 
     //keyboard listeners to allow the user to press various keys for various actions
     gameWindow.getScene().setOnKeyPressed(keyEvent -> {
 
-      //If escape key is pressed, cancel the timer, stop the background music and
-      // exit out from the challenge scene
+      //If escape key is pressed, save the game, cancel the timer, stop the background music and
+      // exit out from the challenge scene. Practice games are not saved
       if (keyEvent.getCode() == KeyCode.ESCAPE) {
-        game.cancelTimer();
+        if (aiPlayer != null) {
+          aiPlayer.shutdown();
+        }
+        stopHints();
+        game.cancelTimer(game.isPractice() ? null : this::saveGame);
         Multimedia.stopBackgroundMusic();
         gameWindow.startMenu();
       }
@@ -361,37 +570,29 @@ public class ChallengeScene extends BaseScene {
       // one right of it
       if (keyEvent.getCode() == KeyCode.RIGHT || keyEvent.getCode() == KeyCode.D) {
         game.changeXAim(1);
-        //Paint the selected GameBlock as hovered
-        selectedBlock.paintHover();
       }
 
       //If the left-arrow key or A key is pressed, change the selected block to the one
       // one left of it
       if (keyEvent.getCode() == KeyCode.LEFT || keyEvent.getCode() == KeyCode.A) {
         game.changeXAim(-1);
-        //Paint the selected GameBlock as hovered
-        selectedBlock.paintHover();
       }
 
       //If the up-arrow key or W key is pressed, change the selected block to the one
       // one up of it
       if (keyEvent.getCode() == KeyCode.UP || keyEvent.getCode() == KeyCode.W) {
         game.changeYAim(-1);
-        //Paint the selected GameBlock as hovered
-        selectedBlock.paintHover();
       }
 
       //If the down-arrow key or S key is pressed, change the selected block to the one
       // one down of it
       if (keyEvent.getCode() == KeyCode.DOWN || keyEvent.getCode() == KeyCode.S) {
         game.changeYAim(1);
-        //Paint the selected GameBlock as hovered
-        selectedBlock.paintHover();
       }
 
       //If the enter key or X key is pressed, place the selected block
       if (keyEvent.getCode() == KeyCode.ENTER || keyEvent.getCode() == KeyCode.X) {
-        game.blockClicked(selectedBlock);
+        game.blockClicked(game.getXAim().get(), game.getYAim().get());
       }
 
       //If the Q key, Z key or "[" key is pressed, rotate the selected block anti-clockwise
@@ -410,9 +611,79 @@ public class ChallengeScene extends BaseScene {
       if (keyEvent.getCode() == KeyCode.SPACE || keyEvent.getCode() == KeyCode.R) {
         game.swapCurrentPiece();
       }
+
+      //If the U key is pressed in a practice game, undo the last move
+      if (keyEvent.getCode() == KeyCode.U) {
+        game.undo();
+      }
+
+      //If the Y key is pressed in a practice game, redo the last move undone
+      if (keyEvent.getCode() == KeyCode.Y) {
+        game.redo();
+      }
+
+      //If the H key is pressed, switch hints on or off
+      if (keyEvent.getCode() == KeyCode.H) {
+        toggleHints();
+      }
+
+      //If the F2 key is pressed, switch the AI player on or off
+      if (keyEvent.getCode() == KeyCode.F2) {
+        if (aiPlayer == null) {
+          aiPlayer = new AiPlayer(game, Duration.millis(500));
+        }
+        if (aiPlayer.isRunning()) {
+          aiPlayer.stop();
+        } else {
+          aiPlayer.start();
+        }
+      }
     });
   }
 
+  /**
+   * Switch the hint for the current piece on or off
+   */
+  protected void toggleHints() {
+    if (hintService == null) {
+      hintService = new HintService();
+      hintService.setHintListener(board::showHint);
+    }
+    showHints = !showHints;
+    hintedSnapshot = null;
+    if (showHints) {
+      requestHint();
+    } else {
+      hintService.cancel();
+      board.clearHint();
+    }
+  }
+
+  /**
+   * Look for a new hint if hints are on, as the board or pieces have changed. The old hint is
+   * removed straight away, and any search for it cancelled. Nothing is done if a hint has already
+   * been asked for the latest snapshot.
+   */
+  protected void requestHint() {
+    GameSnapshot snapshot = game.getSnapshot();
+    if (!showHints || snapshot == hintedSnapshot) {
+      return;
+    }
+    hintedSnapshot = snapshot;
+    board.clearHint();
+    hintService.request(snapshot);
+  }
+
+  /**
+   * Stop looking for hints, as the game has been left
+   */
+  protected void stopHints() {
+    showHints = false;
+    if (hintService != null) {
+      hintService.shutdown();
+    }
+  }
+
   /**
    * Returns the current stored local game high score
    *
@@ -1,7 +1,5 @@
 package uk.ac.soton.comp1206.scene;
 
-import java.util.Timer;
-import java.util.TimerTask;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
@@ -20,6 +18,8 @@ import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.GameClock;
+import uk.ac.soton.comp1206.game.SchedulerClock;
 import uk.ac.soton.comp1206.multimedia.Multimedia;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.ui.ChannelWindow;
@@ -40,10 +40,10 @@ public class LobbyScene extends BaseScene {
   protected final Communicator communicator;
 
   /**
-   * Timer used to constantly check for any new channels that have been created and update the UI
+   * Clock used to constantly check for any new channels that have been created and update the UI
    * with them
    */
-  private final Timer timer = new Timer();
+  private final GameClock clock = SchedulerClock.getInstance();
 
   /**
    * Observable list of Strings used to hold the current channels active
@@ -72,9 +72,14 @@ public class LobbyScene extends BaseScene {
   protected VBox channelBox;
 
   /**
-   * The timer task assigned to the timer which calls the update channel method
+   * The task scheduled on the clock which calls the update channel method
    */
-  private TimerTask task;
+  private GameClock.Scheduled task;
+
+  /**
+   * boolean value that is set to false once the channels should no longer be updated
+   */
+  private volatile boolean updating = true;
 
   /**
    * boolean value that is updated when the player is in a channel or not
@@ -108,7 +113,7 @@ public class LobbyScene extends BaseScene {
       communicator.clearListeners();
 
       //Cancel the channel updating timer
-      timer.cancel();
+      stopUpdating();
 
       //start the menu scene
       gameWindow.startMenu();
@@ -295,12 +300,7 @@ public class LobbyScene extends BaseScene {
     communicator.addListener(this::checkMessage);
 
     //Schedule the timer to request all newly created channels from the server every 2 seconds
-    timer.schedule(task = new TimerTask() {
-      @Override
-      public void run() {
-        communicatorSend();
-      }
-    }, 2000);
+    task = clock.schedule(this::communicatorSend, 2000);
   }
 
   /**
@@ -345,13 +345,21 @@ public class LobbyScene extends BaseScene {
    * Requests the list of active channels from server
    */
   private void communicatorSend() {
+    if (!updating) {
+      return;
+    }
     communicator.send("LIST");
-    timer.schedule(task = new TimerTask() {
-      @Override
-      public void run() {
-        communicatorSend();
-      }
-    }, 2000);
+    task = clock.schedule(this::communicatorSend, 2000);
+  }
+
+  /**
+   * Stop requesting the list of active channels from the server
+   */
+  private void stopUpdating() {
+    updating = false;
+    if (task != null) {
+      task.cancel();
+    }
   }
 
   /**
@@ -404,7 +412,7 @@ public class LobbyScene extends BaseScene {
         Multimedia.stopBackgroundMusic();
 
         //Cancel the channel updating timer
-        timer.cancel();
+        stopUpdating();
 
         //Clear all listeners from the communicator
         communicator.clearListeners();
@@ -90,14 +90,6 @@ public class MultiplayerScene extends ChallengeScene {
     //Add a listener to the communicator to send all incoming messages to the checkMessage method
     communicator.addListener(this::checkMessage);
 
-    //Make the current thread sleep for 300 milliseconds in order to allow the buffer queue of
-    // pieces to be updated with the pieces
-    try {
-      Thread.sleep(300);
-    } catch (InterruptedException e) {
-      e.printStackTrace();
-    }
-
     //Execute the superclass' build method
     super.build();
 
@@ -197,37 +189,29 @@ public class MultiplayerScene extends ChallengeScene {
       // one right of it
       if (keyEvent.getCode() == KeyCode.RIGHT || keyEvent.getCode() == KeyCode.D) {
         super.game.changeXAim(1);
-        //Paint the selected GameBlock as hovered
-        super.selectedBlock.paintHover();
       }
 
       //If the left-arrow key or A key is pressed, change the selected block to the one
       // one left of it
       if (keyEvent.getCode() == KeyCode.LEFT || keyEvent.getCode() == KeyCode.A) {
         super.game.changeXAim(-1);
-        //Paint the selected GameBlock as hovered
-        super.selectedBlock.paintHover();
       }
 
       //If the up-arrow key or W key is pressed, change the selected block to the one
       // one up of it
       if (keyEvent.getCode() == KeyCode.UP || keyEvent.getCode() == KeyCode.W) {
         super.game.changeYAim(-1);
-        //Paint the selected GameBlock as hovered
-        super.selectedBlock.paintHover();
       }
 
       //If the down-arrow key or S key is pressed, change the selected block to the one
       // one down of it
       if (keyEvent.getCode() == KeyCode.DOWN || keyEvent.getCode() == KeyCode.S) {
         super.game.changeYAim(1);
-        //Paint the selected GameBlock as hovered
-        super.selectedBlock.paintHover();
       }
 
       //If the enter key or X key is pressed, place the selected block
       if ((keyEvent.getCode() == KeyCode.ENTER || keyEvent.getCode() == KeyCode.X) && middleBox.getChildren().size() != 3) {
-        super.game.blockClicked(selectedBlock);
+        super.game.blockClicked(super.game.getXAim().get(), super.game.getYAim().get());
       }
 
       //If the Q key, Z key or "[" key is pressed, rotate the selected block anti-clockwise
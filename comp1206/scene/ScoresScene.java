@@ -7,8 +7,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
-import java.util.Timer;
-import java.util.TimerTask;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -30,6 +28,8 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.Leaderboard;
 import uk.ac.soton.comp1206.component.ScoresList;
 import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GameClock;
+import uk.ac.soton.comp1206.game.SchedulerClock;
 import uk.ac.soton.comp1206.multimedia.Multimedia;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.ui.GamePane;
@@ -95,6 +95,11 @@ public class ScoresScene extends BaseScene {
    */
   protected BorderPane mainPane;
 
+  /**
+   * The task scheduled to take the user back to the start menu
+   */
+  private GameClock.Scheduled returnToMenu;
+
   /**
    * VBox component to hold the text field used to gather the player's username
    */
@@ -127,6 +132,9 @@ public class ScoresScene extends BaseScene {
     //keyboard listeners to allow the user to press the escape key to return to the menu scene
     getScene().setOnKeyPressed(keyEvent -> {
       if (keyEvent.getCode() == KeyCode.ESCAPE) {
+        if (returnToMenu != null) {
+          returnToMenu.cancel();
+        }
         gameWindow.startMenu();
       }
     });
@@ -420,13 +428,8 @@ public class ScoresScene extends BaseScene {
 
     //Schedule a timer to take the user back to the start menu after 10 seconds
     // of the scores scene being completed
-    Timer timer = new Timer();
-    timer.schedule(new TimerTask() {
-      @Override
-      public void run() {
-        Platform.runLater(gameWindow::startMenu);
-      }
-    }, 10000);
+    returnToMenu = SchedulerClock.getInstance().schedule(
+        () -> Platform.runLater(gameWindow::startMenu), 10000);
   }
 
   /**
@@ -438,6 +441,11 @@ public class ScoresScene extends BaseScene {
    * beaten
    */
   public int checkScore(Game game) {
+    //Practice games, where moves could be undone, do not go on the leaderboards
+    if (game.isPractice()) {
+      return -1;
+    }
+
     boolean localScore = false;
     boolean onlineScore = false;
 
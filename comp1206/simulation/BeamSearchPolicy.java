@@ -0,0 +1,418 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PlacementFinder;
+
+/**
+ * A Policy which does a beam search over the current piece, the following piece and the option of
+ * swapping them.
+ * <p>
+ * Every move of either piece is tried and valued with a Heuristic, and only the best few, the beam,
+ * are searched further. For each move in the beam, every move of the piece which would be left is
+ * tried, and the move in the beam leading to the best position is chosen. The moves in the beam are
+ * searched in parallel on a ForkJoinPool.
+ * <p>
+ * With a beam as wide as the number of moves, the search chooses exactly the same moves as the
+ * LookaheadPolicy. A narrower beam is faster but can play worse, as the move which is best after
+ * two pieces is often not among the best on the heuristic alone: on a 5 x 5 grid, a beam of
+ * DEFAULT_WIDTH scores about 10% less than the LookaheadPolicy, and a beam of 8 about 30% less.
+ * <p>
+ * The best move found after each move in the beam is kept in a TranspositionTable shared by every
+ * search thread, so a position seen in an earlier search is not searched twice. Single positions
+ * are not kept, as valuing one is cheaper than looking it up.
+ * <p>
+ * The search has a time budget. Moves in the beam which have not been searched when it runs out are
+ * left out, and if none were searched the best move on the heuristic alone is chosen, so a move is
+ * always ready in time.
+ */
+public class BeamSearchPolicy implements Policy {
+
+  /**
+   * The value given to a position where the piece left cannot be played at all
+   */
+  private static final double STUCK = -1_000_000;
+
+  /**
+   * A beam width which keeps most of the strength of searching every move
+   */
+  public static final int DEFAULT_WIDTH = 32;
+
+  /**
+   * The heuristic used to value positions
+   */
+  private final Heuristic heuristic;
+
+  /**
+   * The number of moves searched further after the first piece
+   */
+  private final int width;
+
+  /**
+   * The time budget for each move in nanoseconds, or 0 for no limit
+   */
+  private final long budget;
+
+  /**
+   * The pool the beam is searched on when the search is not already running on a pool
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * The table of positions already searched
+   */
+  private final TranspositionTable table;
+
+  /**
+   * The engines and arrays used by each thread
+   */
+  private final ThreadLocal<Workspace> workspace = new ThreadLocal<>();
+
+  /**
+   * Create a new BeamSearchPolicy which searches on the common pool with its own
+   * TranspositionTable
+   *
+   * @param heuristic    heuristic used to value positions
+   * @param width        number of moves searched further after the first piece
+   * @param budgetMillis time budget for each move in milliseconds, or 0 for no limit
+   */
+  public BeamSearchPolicy(Heuristic heuristic, int width, long budgetMillis) {
+    this(heuristic, width, budgetMillis, ForkJoinPool.commonPool(), new TranspositionTable(16));
+  }
+
+  /**
+   * Create a new BeamSearchPolicy
+   *
+   * @param heuristic    heuristic used to value positions
+   * @param width        number of moves searched further after the first piece
+   * @param budgetMillis time budget for each move in milliseconds, or 0 for no limit
+   * @param pool         pool to search on
+   * @param table        table of positions already searched, which must only be shared with
+   *                     policies using the same heuristic and width
+   */
+  public BeamSearchPolicy(Heuristic heuristic, int width, long budgetMillis, ForkJoinPool pool,
+      TranspositionTable table) {
+    if (width < 1) {
+      throw new IllegalArgumentException("Beam width must be at least 1: " + width);
+    }
+    this.heuristic = heuristic;
+    this.width = width;
+    this.budget = budgetMillis * 1_000_000;
+    this.pool = pool;
+    this.table = table;
+  }
+
+  /**
+   * Choose the move whose beam leads to the best valued position
+   *
+   * @param engine the game to choose a move for
+   * @param random random number generator belonging to this game, which is not used
+   * @return the packed Move, or Move.NONE if no piece can be played
+   */
+  @Override
+  public int chooseMove(GameEngine engine, SplittableRandom random) {
+    long deadline = System.nanoTime() + budget;
+    Workspace work = workspace(engine);
+    Grid grid = engine.getGrid();
+
+    //This exact position may have been searched already
+    long key = TranspositionTable.key(engine);
+    long known = table.probe(key, 2);
+    if (known != TranspositionTable.MISS) {
+      return TranspositionTable.move(known);
+    }
+    table.newSearch();
+
+    //Every move of the current piece, then every move of the following piece after a swap
+    GamePiece current = engine.getCurrentPiece();
+    GamePiece following = engine.getFollowingPiece();
+    int currentCount = work.finder.findPlacements(grid, current, work.placements);
+    int count = work.finder.findPlacements(grid, following, work.placements, currentCount);
+    if (count == 0) {
+      table.store(key, 2, STUCK, Move.NONE);
+      return Move.NONE;
+    }
+
+    //Value each of them on the heuristic alone
+    for (int i = 0; i < count; i++) {
+      int move = i < currentCount
+          ? Move.of(false, current, work.placements[i])
+          : Move.of(true, following, work.placements[i]);
+      work.moves[i] = move;
+      work.order[i] = i;
+      work.first.copyFrom(engine);
+      Move.apply(work.first, move);
+      work.values[i] = evaluate(work.first);
+    }
+
+    //Keep the best of them as the beam, best first, remembering the order each was found in
+    int beamSize = Math.min(width, count);
+    int[] beam = new int[beamSize];
+    int[] order = new int[beamSize];
+    for (int b = 0; b < beamSize; b++) {
+      int best = b;
+      for (int i = b + 1; i < count; i++) {
+        if (work.values[i] > work.values[best]) {
+          best = i;
+        }
+      }
+      swap(work, b, best);
+      beam[b] = work.moves[b];
+      order[b] = work.order[b];
+    }
+
+    //Search every move in the beam in parallel
+    double[] results = new double[beamSize];
+    var task = new BeamTask(engine, beam, results, 0, beamSize, deadline);
+    if (ForkJoinTask.inForkJoinPool()) {
+      task.invoke();
+    } else {
+      pool.invoke(task);
+    }
+
+    //Pick the best move which was searched, or the best on the heuristic if none were. Equal
+    // results go to the move found first, as in the LookaheadPolicy, so keeping the current piece
+    // is preferred to swapping. Breaking ties by the heuristic instead plays noticeably worse.
+    int chosen = -1;
+    boolean complete = true;
+    for (int b = 0; b < beamSize; b++) {
+      if (Double.isNaN(results[b])) {
+        complete = false;
+      } else if (chosen < 0 || results[b] > results[chosen]
+          || (results[b] == results[chosen] && order[b] < order[chosen])) {
+        chosen = b;
+      }
+    }
+    if (chosen < 0) {
+      return beam[0];
+    }
+
+    //Only remember the result if the whole beam was searched
+    if (complete) {
+      table.store(key, 2, results[chosen], beam[chosen]);
+    }
+    return beam[chosen];
+  }
+
+  /**
+   * Find the value of the best position reachable by playing the piece left after a move
+   *
+   * @param engine position to search from, which is not changed
+   * @param move   packed Move of the first piece
+   * @return value of the best position
+   */
+  private double searchBeam(GameEngine engine, int move) {
+    Workspace work = workspace(engine);
+    work.first.copyFrom(engine);
+    Move.apply(work.first, move);
+
+    long key = TranspositionTable.key(work.first);
+    long known = table.probe(key, 1);
+    if (known != TranspositionTable.MISS) {
+      return TranspositionTable.value(known);
+    }
+
+    GamePiece piece = work.first.getCurrentPiece();
+    int count = work.finder.findPlacements(work.first.getGrid(), piece, work.placements);
+    if (count == 0) {
+      double stuck = STUCK + evaluate(work.first);
+      table.store(key, 1, stuck, Move.NONE);
+      return stuck;
+    }
+
+    double best = Double.NEGATIVE_INFINITY;
+    int bestMove = Move.NONE;
+    for (int i = 0; i < count; i++) {
+      int next = Move.of(false, piece, work.placements[i]);
+      work.second.copyFrom(work.first);
+      Move.apply(work.second, next);
+      double value = evaluate(work.second);
+      if (value > best) {
+        best = value;
+        bestMove = next;
+      }
+    }
+    table.store(key, 1, best, bestMove);
+    return best;
+  }
+
+  /**
+   * Value a position on the heuristic alone
+   *
+   * @param engine position to value
+   * @return value of the position
+   */
+  private double evaluate(GameEngine engine) {
+    return heuristic.evaluate(engine);
+  }
+
+  /**
+   * Get this thread's workspace, creating it if needed
+   *
+   * @param engine the game being searched, which gives the size of grid
+   * @return workspace
+   */
+  private Workspace workspace(GameEngine engine) {
+    Workspace work = workspace.get();
+    if (work == null || work.first.getCols() != engine.getCols()
+        || work.first.getRows() != engine.getRows()) {
+      work = new Workspace(engine.getCols(), engine.getRows());
+      workspace.set(work);
+    }
+    return work;
+  }
+
+  /**
+   * Swap two of the moves being valued, along with their values and the order they were found in
+   *
+   * @param work workspace holding the moves
+   * @param i    first move
+   * @param j    second move
+   */
+  private static void swap(Workspace work, int i, int j) {
+    int move = work.moves[i];
+    work.moves[i] = work.moves[j];
+    work.moves[j] = move;
+    double value = work.values[i];
+    work.values[i] = work.values[j];
+    work.values[j] = value;
+    int found = work.order[i];
+    work.order[i] = work.order[j];
+    work.order[j] = found;
+  }
+
+  /**
+   * Return the name of this policy
+   *
+   * @return name
+   */
+  @Override
+  public String toString() {
+    return "beam";
+  }
+
+  /**
+   * The scratch engines and arrays used by one thread
+   */
+  private static class Workspace {
+
+    /**
+     * The engines moves of the first and second pieces are tried in
+     */
+    private final GameEngine first;
+    private final GameEngine second;
+
+    /**
+     * The PlacementFinder used by this thread
+     */
+    private final PlacementFinder finder = new PlacementFinder();
+
+    /**
+     * The placements found for a piece, with room for both pieces
+     */
+    private final int[] placements;
+
+    /**
+     * The moves of the first piece, their values and the order they were found in
+     */
+    private final int[] moves;
+    private final double[] values;
+    private final int[] order;
+
+    /**
+     * Create a new workspace for the given size of grid
+     *
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    private Workspace(int cols, int rows) {
+      first = SearchPolicy.createScratchEngine(cols, rows);
+      second = SearchPolicy.createScratchEngine(cols, rows);
+      placements = new int[2 * GamePiece.ROTATIONS * cols * rows];
+      moves = new int[placements.length];
+      values = new double[placements.length];
+      order = new int[placements.length];
+    }
+  }
+
+  /**
+   * Searches part of the beam, splitting it in half until each task has a single move
+   */
+  private class BeamTask extends RecursiveAction {
+
+    /**
+     * Fork/join tasks are serializable, though tasks are never serialized
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The position being searched from
+     */
+    private final GameEngine engine;
+
+    /**
+     * The moves in the beam
+     */
+    private final int[] beam;
+
+    /**
+     * The value of each move in the beam, left as NaN if it was not searched in time
+     */
+    private final double[] results;
+
+    /**
+     * The range of moves in the beam this task searches
+     */
+    private final int from;
+    private final int to;
+
+    /**
+     * The time by which the search must finish, from System.nanoTime
+     */
+    private final long deadline;
+
+    /**
+     * Create a new task
+     *
+     * @param engine   position to search from
+     * @param beam     moves in the beam
+     * @param results  array to receive the value of each move
+     * @param from     first move to search
+     * @param to       move after the last to search
+     * @param deadline time by which the search must finish
+     */
+    private BeamTask(GameEngine engine, int[] beam, double[] results, int from, int to,
+        long deadline) {
+      this.engine = engine;
+      this.beam = beam;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Search the moves in this task's range, splitting it if it holds more than one
+     */
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new BeamTask(engine, beam, results, from, middle, deadline),
+            new BeamTask(engine, beam, results, middle, to, deadline));
+        return;
+      }
+      if (budget > 0 && System.nanoTime() - deadline > 0) {
+        //Out of time, leave this move out
+        results[from] = Double.NaN;
+        return;
+      }
+      results[from] = searchBeam(engine, beam[from]);
+    }
+  }
+}
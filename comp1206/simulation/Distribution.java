@@ -0,0 +1,169 @@
+package uk.ac.soton.comp1206.simulation;
+
+/**
+ * A Distribution counts how often each value was seen, so that the mean and percentiles can be
+ * reported without keeping every value.
+ * <p>
+ * Values below 128 are counted exactly. Larger values are counted in buckets which are each 1/64th
+ * of a power of two wide, so percentiles are accurate to within about 1.5%. Negative values are
+ * counted as 0.
+ */
+public class Distribution {
+
+  /**
+   * Values below this are counted exactly
+   */
+  private static final int EXACT = 128;
+
+  /**
+   * The number of buckets each power of two above EXACT is split into
+   */
+  private static final int SUB_BUCKETS = 64;
+
+  /**
+   * The number of bits of a value used to pick its bucket within its power of two
+   */
+  private static final int SUB_BITS = 6;
+
+  /**
+   * The total number of buckets, enough for any int
+   */
+  private static final int BUCKETS = EXACT + (Integer.SIZE - 1 - 7) * SUB_BUCKETS;
+
+  /**
+   * The number of values seen in each bucket
+   */
+  private final long[] counts = new long[BUCKETS];
+
+  /**
+   * The number of values seen
+   */
+  private long count;
+
+  /**
+   * The sum of every value seen
+   */
+  private long sum;
+
+  /**
+   * The smallest and largest values seen
+   */
+  private int min = Integer.MAX_VALUE;
+  private int max = Integer.MIN_VALUE;
+
+  /**
+   * Count a value
+   *
+   * @param value value seen
+   */
+  public void record(int value) {
+    value = Math.max(value, 0);
+    counts[bucket(value)]++;
+    count++;
+    sum += value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Add every value counted by another distribution to this one
+   *
+   * @param other distribution to add
+   */
+  public void merge(Distribution other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] += other.counts[i];
+    }
+    count += other.count;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * Get the number of values seen
+   *
+   * @return count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Get the mean of the values seen
+   *
+   * @return mean, or 0 if nothing was seen
+   */
+  public double getMean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /**
+   * Get the smallest value seen
+   *
+   * @return minimum, or 0 if nothing was seen
+   */
+  public int getMin() {
+    return count == 0 ? 0 : min;
+  }
+
+  /**
+   * Get the largest value seen
+   *
+   * @return maximum, or 0 if nothing was seen
+   */
+  public int getMax() {
+    return count == 0 ? 0 : max;
+  }
+
+  /**
+   * Get the value which the given fraction of values are at or below
+   *
+   * @param fraction fraction of values, from 0 to 1
+   * @return the lowest value of the bucket the percentile falls in, or 0 if nothing was seen
+   */
+  public int getPercentile(double fraction) {
+    if (count == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(fraction * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return Math.max(min, Math.min(max, lowest(i)));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Work out which bucket a value is counted in
+   *
+   * @param value value, at least 0
+   * @return bucket index
+   */
+  private static int bucket(int value) {
+    if (value < EXACT) {
+      return value;
+    }
+    int power = 31 - Integer.numberOfLeadingZeros(value);
+    int sub = (value >>> (power - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return EXACT + (power - 7) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Work out the lowest value counted in a bucket
+   *
+   * @param bucket bucket index
+   * @return lowest value
+   */
+  private static int lowest(int bucket) {
+    if (bucket < EXACT) {
+      return bucket;
+    }
+    int power = (bucket - EXACT) / SUB_BUCKETS + 7;
+    int sub = (bucket - EXACT) % SUB_BUCKETS;
+    return (SUB_BUCKETS + sub) << (power - SUB_BITS);
+  }
+}
@@ -0,0 +1,39 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * A Policy which picks the move giving the best position straight away, using either the current
+ * or following piece, without thinking about the piece after.
+ */
+public class GreedyPolicy extends SearchPolicy {
+
+  /**
+   * Create a new GreedyPolicy, which only looks at the next move
+   */
+  public GreedyPolicy() {
+    super(1);
+  }
+
+  /**
+   * Value the position straight after the move
+   *
+   * @param engine position reached
+   * @param level  level of the search, always 0
+   * @return estimated value of the position
+   */
+  @Override
+  protected double value(GameEngine engine, int level) {
+    return evaluate(engine);
+  }
+
+  /**
+   * Return the name of this policy
+   *
+   * @return name
+   */
+  @Override
+  public String toString() {
+    return "greedy";
+  }
+}
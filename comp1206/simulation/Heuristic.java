@@ -0,0 +1,31 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * A Heuristic estimates how good a position is without looking any further ahead, so that searches
+ * can compare the positions their moves lead to. The same Heuristic is used by every search thread
+ * at once, so implementations must not keep any state between calls except per thread.
+ */
+public interface Heuristic {
+
+  /**
+   * The heuristic used by the search policies unless another is given: the score, plus a reward for
+   * rows and columns which are nearly full
+   */
+  public static final Heuristic STANDARD = new WeightedHeuristic(1, 1, 0, 0);
+
+  /**
+   * The heuristic with weights tuned with the Simulator, which also avoids isolated empty blocks
+   * and blocks no piece can fill
+   */
+  public static final Heuristic TUNED = new WeightedHeuristic(1, 1, -5, -20);
+
+  /**
+   * Estimate how good a position is
+   *
+   * @param engine position to estimate, which must not be changed
+   * @return estimated value, higher is better
+   */
+  public double evaluate(GameEngine engine);
+}
@@ -0,0 +1,53 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * A Policy which looks two pieces ahead: for every move of the current or following piece, it
+ * finds the best move of the piece which would be left, and picks the pair giving the best
+ * position.
+ */
+public class LookaheadPolicy extends SearchPolicy {
+
+  /**
+   * The value given to a position where the second piece cannot be played at all
+   */
+  private static final double STUCK = -1_000_000;
+
+  /**
+   * Create a new LookaheadPolicy, which looks at the next two moves
+   */
+  public LookaheadPolicy() {
+    super(2);
+  }
+
+  /**
+   * Value the position after the first move by the best position reachable with the second, or the
+   * position after the second move directly
+   *
+   * @param engine position reached
+   * @param level  level of the search
+   * @return value of the position
+   */
+  @Override
+  protected double value(GameEngine engine, int level) {
+    if (level > 0) {
+      return evaluate(engine);
+    }
+    double[] best = new double[1];
+    if (search(engine, 1, false, best) == Move.NONE) {
+      return STUCK + evaluate(engine);
+    }
+    return best[0];
+  }
+
+  /**
+   * Return the name of this policy
+   *
+   * @return name
+   */
+  @Override
+  public String toString() {
+    return "lookahead";
+  }
+}
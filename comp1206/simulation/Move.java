@@ -0,0 +1,124 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Placement;
+
+/**
+ * A Move is a decision made by a Policy, packed into a single int so that choosing moves never
+ * allocates. A move says whether to swap the current and following pieces, how many times to rotate
+ * the current piece clockwise, and the block to centre it on.
+ * <p>
+ * The class only contains static methods to pack, unpack and apply moves.
+ */
+public final class Move {
+
+  /**
+   * The move used when there is no piece which can be played, so the timer will run out
+   */
+  public static final int NONE = -1;
+
+  /**
+   * Moves are only packed into ints
+   */
+  private Move() {
+  }
+
+  /**
+   * Pack a move into an int
+   *
+   * @param swap     whether to swap the current and following pieces first
+   * @param rotation number of clockwise rotations of the current piece, from 0 to 3
+   * @param x        column to centre the piece on
+   * @param y        row to centre the piece on
+   * @return the packed move
+   */
+  public static int of(boolean swap, int rotation, int x, int y) {
+    return (swap ? 1 << 18 : 0) | (rotation << 16) | (x << 8) | y;
+  }
+
+  /**
+   * Pack the move which plays a Placement of a piece
+   *
+   * @param swap      whether to swap the current and following pieces first
+   * @param gamePiece the piece as it is before being rotated
+   * @param placement packed Placement of the same piece in any rotation
+   * @return the packed move
+   */
+  public static int of(boolean swap, GamePiece gamePiece, int placement) {
+    int rotation = Math.floorMod(
+        Placement.piece(placement).getRotation() - gamePiece.getRotation(), GamePiece.ROTATIONS);
+    return of(swap, rotation, Placement.x(placement), Placement.y(placement));
+  }
+
+  /**
+   * Whether the move swaps the current and following pieces
+   *
+   * @param move packed move
+   * @return true to swap
+   */
+  public static boolean swap(int move) {
+    return (move & (1 << 18)) != 0;
+  }
+
+  /**
+   * The number of clockwise rotations of the current piece
+   *
+   * @param move packed move
+   * @return rotations, from 0 to 3
+   */
+  public static int rotation(int move) {
+    return (move >>> 16) & 3;
+  }
+
+  /**
+   * The column to centre the piece on
+   *
+   * @param move packed move
+   * @return column
+   */
+  public static int x(int move) {
+    return (move >>> 8) & 0xFF;
+  }
+
+  /**
+   * The row to centre the piece on
+   *
+   * @param move packed move
+   * @return row
+   */
+  public static int y(int move) {
+    return move & 0xFF;
+  }
+
+  /**
+   * Make a move in an engine: swap and rotate the current piece as needed, then play it
+   *
+   * @param engine engine to make the move in
+   * @param move   packed move, which must not be NONE
+   * @return true if the piece was played
+   */
+  public static boolean apply(GameEngine engine, int move) {
+    if (swap(move)) {
+      engine.swapCurrentPiece();
+    }
+    if (rotation(move) != 0) {
+      engine.rotateCurrentPiece(rotation(move));
+    }
+    return engine.playPiece(x(move), y(move));
+  }
+
+  /**
+   * Return a readable representation of a move
+   *
+   * @param move packed move
+   * @return description of the move
+   */
+  public static String toString(int move) {
+    if (move == NONE) {
+      return "Move [none]";
+    }
+    return "Move [swap = " + swap(move) + ", rotation = " + rotation(move) + ", x = " + x(move)
+        + ", y = " + y(move) + "]";
+  }
+}
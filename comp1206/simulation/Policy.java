@@ -0,0 +1,21 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GameEngine;
+
+/**
+ * A Policy decides which move to make next in a simulated game. The same Policy is used by every
+ * simulation thread at once, so implementations must not keep any state between calls except per
+ * thread.
+ */
+public interface Policy {
+
+  /**
+   * Choose the next move to make in a game
+   *
+   * @param engine the game to choose a move for, which must not be changed
+   * @param random random number generator belonging to this game
+   * @return the packed Move to make, or Move.NONE to let the timer run out
+   */
+  public int chooseMove(GameEngine engine, SplittableRandom random);
+}
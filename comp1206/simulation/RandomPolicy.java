@@ -0,0 +1,68 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PlacementFinder;
+
+/**
+ * A Policy which picks any move that can be played, with every one equally likely. Used as a
+ * baseline of a player who does not think ahead at all.
+ */
+public class RandomPolicy implements Policy {
+
+  /**
+   * The PlacementFinder used by each thread
+   */
+  private final ThreadLocal<PlacementFinder> finder = ThreadLocal.withInitial(
+      PlacementFinder::new);
+
+  /**
+   * The array each thread collects placements into
+   */
+  private final ThreadLocal<int[]> placements = ThreadLocal.withInitial(() -> new int[0]);
+
+  /**
+   * Choose one of the moves that can be played at random
+   *
+   * @param engine the game to choose a move for
+   * @param random random number generator belonging to this game
+   * @return the packed Move, or Move.NONE if no piece can be played
+   */
+  @Override
+  public int chooseMove(GameEngine engine, SplittableRandom random) {
+    Grid grid = engine.getGrid();
+    int size = 2 * GamePiece.ROTATIONS * grid.getCols() * grid.getRows();
+    int[] found = placements.get();
+    if (found.length < size) {
+      found = new int[size];
+      placements.set(found);
+    }
+
+    //Pick from the placements of the current piece and of the following piece as one list, so
+    // every move is equally likely
+    GamePiece current = engine.getCurrentPiece();
+    GamePiece following = engine.getFollowingPiece();
+    int currentCount = finder.get().findPlacements(grid, current, found);
+    int count = finder.get().findPlacements(grid, following, found, currentCount);
+    if (count == 0) {
+      return Move.NONE;
+    }
+    int chosen = random.nextInt(count);
+    if (chosen < currentCount) {
+      return Move.of(false, current, found[chosen]);
+    }
+    return Move.of(true, following, found[chosen]);
+  }
+
+  /**
+   * Return the name of this policy
+   *
+   * @return name
+   */
+  @Override
+  public String toString() {
+    return "random";
+  }
+}
@@ -0,0 +1,153 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PlacementFinder;
+
+/**
+ * A SearchPolicy tries out moves on scratch copies of the game and picks the move which leads to
+ * the best valued position. Subclasses decide how deep to look.
+ * <p>
+ * Each thread has its own scratch engines and PlacementFinder, so a single SearchPolicy can be
+ * shared by every simulation thread.
+ */
+public abstract class SearchPolicy implements Policy {
+
+  /**
+   * The piece given to scratch engines when they need a new piece
+   */
+  private static final GamePiece UNKNOWN_PIECE = GamePiece.createPiece(3);
+
+  /**
+   * The scratch engines used by each thread, one for each level of the search
+   */
+  private final ThreadLocal<GameEngine[]> scratch = new ThreadLocal<>();
+
+  /**
+   * The PlacementFinder used by each thread
+   */
+  private final ThreadLocal<PlacementFinder> finder = ThreadLocal.withInitial(
+      PlacementFinder::new);
+
+  /**
+   * The arrays each thread collects placements into, one for each level of the search
+   */
+  private final ThreadLocal<int[][]> placements = new ThreadLocal<>();
+
+  /**
+   * The number of levels of the search, and so the number of scratch engines needed per thread
+   */
+  private final int depth;
+
+  /**
+   * Create a new SearchPolicy
+   *
+   * @param depth number of pieces to look ahead
+   */
+  protected SearchPolicy(int depth) {
+    this.depth = depth;
+  }
+
+  /**
+   * Get this thread's scratch engine for a level of the search, creating them if needed
+   *
+   * @param engine the game being searched, which gives the size of grid
+   * @param level  level of the search, from 0 to depth - 1
+   * @return scratch engine
+   */
+  protected GameEngine scratch(GameEngine engine, int level) {
+    GameEngine[] engines = scratch.get();
+    if (engines == null || engines[0].getCols() != engine.getCols()
+        || engines[0].getRows() != engine.getRows()) {
+      engines = new GameEngine[depth];
+      for (int i = 0; i < depth; i++) {
+        engines[i] = createScratchEngine(engine.getCols(), engine.getRows());
+      }
+      scratch.set(engines);
+      placements.set(new int[depth][GamePiece.ROTATIONS * engine.getCols() * engine.getRows()]);
+    }
+    return engines[level];
+  }
+
+  /**
+   * Find the best valued move from the position in the given engine, trying every placement of the
+   * current piece and, if allowed, of the following piece
+   *
+   * @param engine     position to search from, which is not changed
+   * @param level      level of the search
+   * @param allowSwap  whether to try swapping the pieces first
+   * @param bestValue  array of length 1 to receive the value of the best move
+   * @return the best packed Move, or Move.NONE if no piece can be played
+   */
+  protected int search(GameEngine engine, int level, boolean allowSwap, double[] bestValue) {
+    Grid grid = engine.getGrid();
+    GameEngine trial = scratch(engine, level);
+    int best = Move.NONE;
+    bestValue[0] = Double.NEGATIVE_INFINITY;
+
+    int[] found = placements.get()[level];
+
+    for (int swap = 0; swap < (allowSwap ? 2 : 1); swap++) {
+      GamePiece piece = swap == 0 ? engine.getCurrentPiece() : engine.getFollowingPiece();
+      int count = finder.get().findPlacements(grid, piece, found);
+      for (int i = 0; i < count; i++) {
+        int move = Move.of(swap == 1, piece, found[i]);
+        trial.copyFrom(engine);
+        Move.apply(trial, move);
+
+        double value = value(trial, level);
+        if (value > bestValue[0]) {
+          bestValue[0] = value;
+          best = move;
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Choose the move which leads to the best valued position
+   *
+   * @param engine the game to choose a move for
+   * @param random random number generator belonging to this game, which is not used
+   * @return the packed Move, or Move.NONE if no piece can be played
+   */
+  @Override
+  public int chooseMove(GameEngine engine, SplittableRandom random) {
+    return search(engine, 0, true, new double[1]);
+  }
+
+  /**
+   * Work out the value of the position reached after a move at the given level of the search
+   *
+   * @param engine position reached
+   * @param level  level of the search the move was made at
+   * @return value of the position, higher is better
+   */
+  protected abstract double value(GameEngine engine, int level);
+
+  /**
+   * Estimate how good a position is without looking any further ahead, using the standard
+   * Heuristic
+   *
+   * @param engine position to estimate
+   * @return estimated value, higher is better
+   */
+  protected double evaluate(GameEngine engine) {
+    return Heuristic.STANDARD.evaluate(engine);
+  }
+
+  /**
+   * Create an engine to try moves out in. Scratch engines never look at pieces beyond the following
+   * piece, so every new piece they are given is the same.
+   *
+   * @param cols number of columns
+   * @param rows number of rows
+   * @return scratch engine
+   */
+  public static GameEngine createScratchEngine(int cols, int rows) {
+    return new GameEngine(cols, rows, () -> UNKNOWN_PIECE);
+  }
+}
@@ -0,0 +1,164 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.io.PrintStream;
+
+/**
+ * SimulationStatistics collects the results of a batch of simulated games. Each simulation thread
+ * fills in its own statistics, and they are merged together at the end.
+ */
+public class SimulationStatistics {
+
+  /**
+   * The final score of each game
+   */
+  private final Distribution scores = new Distribution();
+
+  /**
+   * The final level of each game
+   */
+  private final Distribution levels = new Distribution();
+
+  /**
+   * The number of lives lost in each game
+   */
+  private final Distribution livesLost = new Distribution();
+
+  /**
+   * The number of lines cleared per 1000 pieces played in each game
+   */
+  private final Distribution clearRates = new Distribution();
+
+  /**
+   * The number of pieces played in each game
+   */
+  private final Distribution piecesPlayed = new Distribution();
+
+  /**
+   * The distribution of the time each game would take in real time, in seconds
+   */
+  private final Distribution durations = new Distribution();
+
+  /**
+   * The number of games which ended by running out of lives rather than reaching the move limit
+   */
+  private long gamesOver;
+
+  /**
+   * Record the result of one game
+   *
+   * @param score        final score
+   * @param level        final level
+   * @param livesLost    number of lives lost
+   * @param linesCleared number of lines cleared
+   * @param pieces       number of pieces played
+   * @param seconds      time the game would take in real time, in seconds
+   * @param gameOver     whether the game ended by running out of lives
+   */
+  public void record(int score, int level, int livesLost, int linesCleared, int pieces,
+      int seconds, boolean gameOver) {
+    scores.record(score);
+    levels.record(level);
+    this.livesLost.record(livesLost);
+    clearRates.record(pieces == 0 ? 0 : (int) (1000L * linesCleared / pieces));
+    piecesPlayed.record(pieces);
+    durations.record(seconds);
+    if (gameOver) {
+      gamesOver++;
+    }
+  }
+
+  /**
+   * Add the results of another set of statistics to this one
+   *
+   * @param other statistics to add
+   * @return this statistics
+   */
+  public SimulationStatistics merge(SimulationStatistics other) {
+    scores.merge(other.scores);
+    levels.merge(other.levels);
+    livesLost.merge(other.livesLost);
+    clearRates.merge(other.clearRates);
+    piecesPlayed.merge(other.piecesPlayed);
+    durations.merge(other.durations);
+    gamesOver += other.gamesOver;
+    return this;
+  }
+
+  /**
+   * Get the number of games recorded
+   *
+   * @return number of games
+   */
+  public long getGames() {
+    return scores.getCount();
+  }
+
+  /**
+   * Get the distribution of final scores
+   *
+   * @return scores
+   */
+  public Distribution getScores() {
+    return scores;
+  }
+
+  /**
+   * Get the distribution of final levels
+   *
+   * @return levels
+   */
+  public Distribution getLevels() {
+    return levels;
+  }
+
+  /**
+   * Get the distribution of lives lost
+   *
+   * @return lives lost
+   */
+  public Distribution getLivesLost() {
+    return livesLost;
+  }
+
+  /**
+   * Get the distribution of lines cleared per 1000 pieces played
+   *
+   * @return clear rates
+   */
+  public Distribution getClearRates() {
+    return clearRates;
+  }
+
+  /**
+   * Print a table of every distribution
+   *
+   * @param out stream to print to
+   */
+  public void report(PrintStream out) {
+    out.printf("%-18s %10s %8s %8s %8s %8s %8s %8s%n", "", "mean", "min", "p10", "p50", "p90",
+        "p99", "max");
+    row(out, "score", scores, 1);
+    row(out, "level", levels, 1);
+    row(out, "lives lost", livesLost, 1);
+    row(out, "clears per piece", clearRates, 1000);
+    row(out, "pieces played", piecesPlayed, 1);
+    row(out, "minutes", durations, 60);
+    out.printf("%d of %d games ran out of lives%n", gamesOver, getGames());
+  }
+
+  /**
+   * Print one row of the table
+   *
+   * @param out          stream to print to
+   * @param name         name of the row
+   * @param distribution values to print
+   * @param scale        amount each value is divided by before printing
+   */
+  private static void row(PrintStream out, String name, Distribution distribution, double scale) {
+    out.printf("%-18s %10.3f %8.3f %8.3f %8.3f %8.3f %8.3f %8.3f%n", name,
+        distribution.getMean() / scale, distribution.getMin() / scale,
+        distribution.getPercentile(0.10) / scale, distribution.getPercentile(0.50) / scale,
+        distribution.getPercentile(0.90) / scale, distribution.getPercentile(0.99) / scale,
+        distribution.getMax() / scale);
+  }
+}
@@ -0,0 +1,71 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A SimulationTask plays a range of simulated games. Large ranges are split in half and played in
+ * parallel by the fork/join pool, which steals work between threads so they all stay busy even
+ * though some games last much longer than others.
+ */
+public class SimulationTask extends RecursiveTask<SimulationStatistics> {
+
+  /**
+   * Fork/join tasks are serializable, though tasks are never serialized
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Ranges of at most this many games are played directly rather than being split
+   */
+  private static final int THRESHOLD = 64;
+
+  /**
+   * The simulator which plays each game
+   */
+  private final Simulator simulator;
+
+  /**
+   * The number of the first game in the range
+   */
+  private final long from;
+
+  /**
+   * The number after the last game in the range
+   */
+  private final long to;
+
+  /**
+   * Create a new task to play a range of games
+   *
+   * @param simulator simulator which plays each game
+   * @param from      number of the first game
+   * @param to        number after the last game
+   */
+  public SimulationTask(Simulator simulator, long from, long to) {
+    this.simulator = simulator;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * Play every game in the range, splitting it up if it is large
+   *
+   * @return statistics of every game in the range
+   */
+  @Override
+  protected SimulationStatistics compute() {
+    if (to - from <= THRESHOLD) {
+      SimulationStatistics statistics = new SimulationStatistics();
+      for (long game = from; game < to; game++) {
+        simulator.playGame(game, statistics);
+      }
+      return statistics;
+    }
+
+    long middle = (from + to) >>> 1;
+    SimulationTask left = new SimulationTask(simulator, from, middle);
+    left.fork();
+    SimulationStatistics right = new SimulationTask(simulator, middle, to).compute();
+    return right.merge(left.join());
+  }
+}
@@ -0,0 +1,292 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import uk.ac.soton.comp1206.event.GameEngineListener;
+import uk.ac.soton.comp1206.game.BagPieceSource;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GameTimer;
+import uk.ac.soton.comp1206.game.PieceSource;
+import uk.ac.soton.comp1206.game.UniformPieceSource;
+import uk.ac.soton.comp1206.game.VirtualClock;
+import uk.ac.soton.comp1206.save.SavedGame;
+
+/**
+ * The Simulator plays large numbers of games headlessly using a Policy to choose the moves, and
+ * reports how the scores, levels, lives lost and clear rates are distributed. It is used to see
+ * how changes to the scoring, levelling and timer rules would affect real play.
+ * <p>
+ * Games are played in parallel across a fork/join pool. Each game gets its own PieceSource and
+ * random number generator seeded from the simulation seed and the game's number, so a simulation
+ * gives the same results whatever the number of threads.
+ * <p>
+ * Each game is timed on its own VirtualClock, so no time is spent waiting. Each turn the policy
+ * takes the think time to play a piece, or if it has no move the clock skips straight to the timer
+ * running out, until the game is over or the move limit is reached.
+ */
+public class Simulator {
+
+  /**
+   * The policy used to choose moves
+   */
+  private final Policy policy;
+
+  /**
+   * The size of the grid
+   */
+  private final int cols;
+  private final int rows;
+
+  /**
+   * The most turns any one game can last
+   */
+  private final int maxMoves;
+
+  /**
+   * The seed every game's random number generator is made from
+   */
+  private final long seed;
+
+  /**
+   * Creates the PieceSource for a game from its seed
+   */
+  private final LongFunction<PieceSource> pieceSources;
+
+  /**
+   * The time the policy is taken to spend choosing each move, in milliseconds
+   */
+  private int thinkTime = 1000;
+
+  /**
+   * The saved game every game starts from, or null to start from an empty grid
+   */
+  private SavedGame startPosition;
+
+  /**
+   * Create a new Simulator
+   *
+   * @param policy   policy used to choose moves
+   * @param cols     number of columns of the grid
+   * @param rows     number of rows of the grid
+   * @param maxMoves most turns any one game can last
+   * @param seed     seed every game's random number generator is made from
+   */
+  public Simulator(Policy policy, int cols, int rows, int maxMoves, long seed) {
+    this(policy, cols, rows, maxMoves, seed, UniformPieceSource::new);
+  }
+
+  /**
+   * Create a new Simulator with the given kind of PieceSource
+   *
+   * @param policy       policy used to choose moves
+   * @param cols         number of columns of the grid
+   * @param rows         number of rows of the grid
+   * @param maxMoves     most turns any one game can last
+   * @param seed         seed every game's random number generator is made from
+   * @param pieceSources creates the PieceSource for a game from its seed
+   */
+  public Simulator(Policy policy, int cols, int rows, int maxMoves, long seed,
+      LongFunction<PieceSource> pieceSources) {
+    this.policy = policy;
+    this.cols = cols;
+    this.rows = rows;
+    this.maxMoves = maxMoves;
+    this.seed = seed;
+    this.pieceSources = pieceSources;
+  }
+
+  /**
+   * Run the simulator from the command line
+   *
+   * @param args commandline arguments
+   */
+  public static void main(String[] args) {
+    long games = 100_000;
+    String policyName = "greedy";
+    String piecesName = "uniform";
+    int cols = 5;
+    int rows = 5;
+    int maxMoves = 1000;
+    int thinkTime = 1000;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seed = System.nanoTime();
+    SavedGame startPosition = null;
+
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--games" -> games = Long.parseLong(args[++i]);
+          case "--policy" -> policyName = args[++i];
+          case "--pieces" -> piecesName = args[++i];
+          case "--cols" -> cols = Integer.parseInt(args[++i]);
+          case "--rows" -> rows = Integer.parseInt(args[++i]);
+          case "--max-moves" -> maxMoves = Integer.parseInt(args[++i]);
+          case "--think-ms" -> thinkTime = Integer.parseInt(args[++i]);
+          case "--threads" -> threads = Integer.parseInt(args[++i]);
+          case "--seed" -> seed = Long.parseLong(args[++i]);
+          case "--start" -> {
+            startPosition = SavedGame.read(Path.of(args[++i]));
+            cols = startPosition.getCols();
+            rows = startPosition.getRows();
+          }
+          default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+        }
+      }
+    } catch (RuntimeException | IOException e) {
+      System.err.println(e.getMessage());
+      System.err.println("Usage: Simulator [--games N] [--policy random|greedy|lookahead|beam]"
+          + " [--pieces uniform|bag] [--cols N] [--rows N] [--max-moves N] [--think-ms N]"
+          + " [--threads N] [--seed N] [--start SAVE]");
+      System.exit(1);
+      return;
+    }
+
+    Policy policy = createPolicy(policyName);
+    var simulator = new Simulator(policy, cols, rows, maxMoves, seed,
+        createPieceSources(piecesName));
+    simulator.setThinkTime(thinkTime);
+    simulator.setStartPosition(startPosition);
+    System.out.printf(
+        "Simulating %d %d x %d games with the %s policy and %s pieces on %d threads, seed %d%n",
+        games, cols, rows, policy, piecesName, threads, seed);
+
+    long start = System.nanoTime();
+    SimulationStatistics statistics = simulator.run(games, threads);
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    statistics.report(System.out);
+    System.out.printf("%.2f seconds, %.0f games per second%n", seconds, games / seconds);
+  }
+
+  /**
+   * Create the policy with the given name
+   *
+   * @param name name of the policy
+   * @return the policy
+   */
+  public static Policy createPolicy(String name) {
+    return switch (name) {
+      case "random" -> new RandomPolicy();
+      case "greedy" -> new GreedyPolicy();
+      case "lookahead" -> new LookaheadPolicy();
+      case "beam" -> new BeamSearchPolicy(Heuristic.STANDARD,
+          BeamSearchPolicy.DEFAULT_WIDTH, 0, ForkJoinPool.commonPool(),
+          new TranspositionTable(20));
+      default -> throw new IllegalArgumentException("Unknown policy: " + name);
+    };
+  }
+
+  /**
+   * Set the time the policy is taken to spend choosing each move. If it is longer than the timer,
+   * the timer runs out first.
+   *
+   * @param thinkTime think time in milliseconds
+   */
+  public void setThinkTime(int thinkTime) {
+    this.thinkTime = thinkTime;
+  }
+
+  /**
+   * Start every game from a saved game instead of an empty grid. Each game still takes its pieces
+   * after the saved ones from its own seeded source, so the games go their own ways from the same
+   * position.
+   *
+   * @param startPosition saved game with a grid the size of the simulated games, or null to start
+   *                      from an empty grid
+   */
+  public void setStartPosition(SavedGame startPosition) {
+    this.startPosition = startPosition;
+  }
+
+  /**
+   * Create the kind of PieceSource with the given name
+   *
+   * @param name name of the kind of PieceSource
+   * @return function creating the PieceSource for a game from its seed
+   */
+  public static LongFunction<PieceSource> createPieceSources(String name) {
+    return switch (name) {
+      case "uniform" -> UniformPieceSource::new;
+      case "bag" -> BagPieceSource::new;
+      default -> throw new IllegalArgumentException("Unknown pieces: " + name);
+    };
+  }
+
+  /**
+   * Play the given number of games in parallel
+   *
+   * @param games   number of games to play
+   * @param threads number of threads to play them on
+   * @return statistics of every game played
+   */
+  public SimulationStatistics run(long games, int threads) {
+    var pool = new ForkJoinPool(threads);
+    try {
+      return pool.invoke(new SimulationTask(this, 0, games));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Play a single game to the end and record its result
+   *
+   * @param game       number of the game, used to seed it
+   * @param statistics statistics to record the result in
+   */
+  public void playGame(long game, SimulationStatistics statistics) {
+    long gameSeed = seed + game * 0x9E3779B97F4A7C15L;
+    var random = new SplittableRandom(gameSeed);
+    var engine = new GameEngine(cols, rows, pieceSources.apply(gameSeed));
+
+    //Count the lines cleared as the game is played
+    int[] linesCleared = new int[1];
+    engine.setListener(new GameEngineListener() {
+      @Override
+      public void linesCleared(int lines, int blocks) {
+        linesCleared[0] += lines;
+      }
+    });
+
+    //Time the game on its own virtual clock
+    var clock = new VirtualClock();
+    var timer = new GameTimer(clock, engine::timerExpired);
+
+    engine.start();
+    timer.restart(engine.getTimerDelay());
+    if (startPosition != null) {
+      startPosition.restore(engine);
+      if (startPosition.getTimeRemaining() > 0) {
+        timer.restart(startPosition.getTimeRemaining());
+      }
+    }
+    int startLives = engine.getLives();
+    int pieces = 0;
+    for (int turn = 0; turn < maxMoves && !engine.isGameOver(); turn++) {
+      int lives = engine.getLives();
+      boolean played = false;
+      int move = policy.chooseMove(engine, random);
+      if (move == Move.NONE) {
+        //Nothing can be played, skip straight to the timer running out
+        clock.runNext();
+      } else {
+        //The move is only made if the timer did not run out while thinking
+        clock.advance(thinkTime);
+        played = engine.getLives() == lives && Move.apply(engine, move);
+      }
+
+      if (played) {
+        pieces++;
+      }
+      if (played || engine.getLives() != lives) {
+        timer.restart(engine.getTimerDelay());
+      }
+    }
+
+    statistics.record(engine.getScore(), engine.getLevel(), startLives - engine.getLives(),
+        linesCleared[0], pieces, (int) (clock.currentTimeMillis() / 1000), engine.isGameOver());
+  }
+}
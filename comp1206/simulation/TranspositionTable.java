@@ -0,0 +1,212 @@
+package uk.ac.soton.comp1206.simulation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * A TranspositionTable remembers the values and best moves of positions which have already been
+ * searched, so that a search reaching the same position again, by a different order of moves or on
+ * a different thread, does not have to search it again.
+ * <p>
+ * Positions are identified by a 64 bit key made from the grid bitmasks, the current and following
+ * pieces, the score and the multiplier. The table has a fixed number of buckets of two entries. The
+ * first entry of a bucket keeps the deepest result, unless it is from an earlier search, and the
+ * second is always replaced, so recent results are kept without losing expensive ones.
+ * <p>
+ * The table is shared by every search thread without locking. Each entry is stored as two longs,
+ * the data and the key XORed with the data, so an entry torn by two threads writing at once no
+ * longer matches its key and is treated as a miss.
+ */
+public class TranspositionTable {
+
+  /**
+   * The value returned by probe when the position is not in the table
+   */
+  public static final long MISS = 0;
+
+  /**
+   * The number of entries in each bucket
+   */
+  private static final int BUCKET = 2;
+
+  /**
+   * The entries, as pairs of longs: the key XORed with the data, then the data
+   */
+  private final AtomicLongArray entries;
+
+  /**
+   * The mask selecting a bucket from a key
+   */
+  private final int mask;
+
+  /**
+   * The current search, so that results from earlier searches are replaced first
+   */
+  private final AtomicInteger generation = new AtomicInteger();
+
+  /**
+   * Create a new, empty TranspositionTable
+   *
+   * @param sizeBits the table holds 2 to the power of sizeBits buckets
+   */
+  public TranspositionTable(int sizeBits) {
+    if (sizeBits < 1 || sizeBits > 26) {
+      throw new IllegalArgumentException("Invalid table size: " + sizeBits);
+    }
+    entries = new AtomicLongArray((1 << sizeBits) * BUCKET * 2);
+    mask = (1 << sizeBits) - 1;
+  }
+
+  /**
+   * Work out the key of the position in an engine
+   *
+   * @param engine position
+   * @return key
+   */
+  public static long key(GameEngine engine) {
+    Grid grid = engine.getGrid();
+    long hash = mix(((long) engine.getCurrentPiece().getIndex() << 8)
+        | engine.getFollowingPiece().getIndex());
+    hash = mix(hash ^ (((long) engine.getScore() << 16) | engine.getMultiplier()));
+    for (int y = 0; y < grid.getRows(); y++) {
+      hash = mix(hash ^ grid.getRowBits(y));
+    }
+    return hash;
+  }
+
+  /**
+   * Start a new search. Results from earlier searches are still found, but are replaced first.
+   */
+  public void newSearch() {
+    generation.incrementAndGet();
+  }
+
+  /**
+   * Look up a position
+   *
+   * @param key   key of the position
+   * @param depth the number of pieces the result must have looked ahead
+   * @return the packed data of the entry, or MISS if there is no entry of that depth
+   */
+  public long probe(long key, int depth) {
+    int base = bucket(key);
+    for (int entry = base; entry < base + BUCKET * 2; entry += 2) {
+      long data = entries.getOpaque(entry + 1);
+      if (data != MISS && (entries.getOpaque(entry) ^ data) == key && depth(data) == depth) {
+        return data;
+      }
+    }
+    return MISS;
+  }
+
+  /**
+   * Store the result of searching a position
+   *
+   * @param key   key of the position
+   * @param depth number of pieces looked ahead
+   * @param value value of the position
+   * @param move  best packed Move from the position, or Move.NONE
+   */
+  public void store(long key, int depth, double value, int move) {
+    int current = generation.get() & 0xFF;
+    long data = pack(depth, value, move, current);
+
+    //Keep the deepest result in the first entry, unless it is out of date
+    int base = bucket(key);
+    long first = entries.getOpaque(base + 1);
+    int entry = base + 2;
+    if (first == MISS || (entries.getOpaque(base) ^ first) == key
+        || generation(first) != current || depth >= depth(first)) {
+      entry = base;
+    }
+    entries.setOpaque(entry + 1, data);
+    entries.setOpaque(entry, key ^ data);
+  }
+
+  /**
+   * Empty the table
+   */
+  public void clear() {
+    for (int i = 0; i < entries.length(); i++) {
+      entries.setOpaque(i, 0);
+    }
+  }
+
+  /**
+   * Get the value stored in an entry
+   *
+   * @param data packed data returned by probe
+   * @return value
+   */
+  public static double value(long data) {
+    return Float.intBitsToFloat((int) data);
+  }
+
+  /**
+   * Get the best move stored in an entry
+   *
+   * @param data packed data returned by probe
+   * @return packed Move, or Move.NONE
+   */
+  public static int move(long data) {
+    return (int) ((data >>> 32) & 0xFFFFF) - 1;
+  }
+
+  /**
+   * Get the number of pieces looked ahead for an entry
+   *
+   * @param data packed data returned by probe
+   * @return depth
+   */
+  public static int depth(long data) {
+    return (int) ((data >>> 52) & 0xF) - 1;
+  }
+
+  /**
+   * Get the search an entry was stored in
+   *
+   * @param data packed data
+   * @return lowest 8 bits of the generation
+   */
+  private static int generation(long data) {
+    return (int) (data >>> 56);
+  }
+
+  /**
+   * Pack the data of an entry into a long, which is never MISS as the depth is stored plus one
+   *
+   * @param depth      number of pieces looked ahead
+   * @param value      value of the position, stored as a float
+   * @param move       packed Move, or Move.NONE
+   * @param generation lowest 8 bits of the generation
+   * @return packed data
+   */
+  private static long pack(int depth, double value, int move, int generation) {
+    return ((long) generation << 56) | ((long) (depth + 1) << 52)
+        | ((long) (move + 1) << 32) | (Float.floatToIntBits((float) value) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Work out the position in the array of the first entry of the bucket for a key
+   *
+   * @param key key of a position
+   * @return array index
+   */
+  private int bucket(long key) {
+    return ((int) (key >>> 32) & mask) * BUCKET * 2;
+  }
+
+  /**
+   * Mix the bits of a hash, so that every bit of the input affects every bit of the output
+   *
+   * @param hash value to mix
+   * @return mixed value
+   */
+  private static long mix(long hash) {
+    hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+    hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+    return hash ^ (hash >>> 31);
+  }
+}
@@ -0,0 +1,136 @@
+package uk.ac.soton.comp1206.simulation;
+
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PlacementFinder;
+
+/**
+ * A Heuristic made of a weighted sum of features of the position, so that players of different
+ * styles can be made by changing the weights:
+ * <ul>
+ *   <li>score: the points scored so far</li>
+ *   <li>fill: the square of the number of filled blocks in every row and column, which rewards
+ *   building up lines to clear</li>
+ *   <li>isolated: the number of empty blocks with no empty neighbour, which only a Dot can fill</li>
+ *   <li>blocked: the number of pieces which could not be played anywhere in any rotation</li>
+ * </ul>
+ * Every feature is worked out from the row bitmasks of the grid.
+ */
+public class WeightedHeuristic implements Heuristic {
+
+  /**
+   * The weight of each feature
+   */
+  private final double scoreWeight;
+  private final double fillWeight;
+  private final double isolatedWeight;
+  private final double blockedWeight;
+
+  /**
+   * The PlacementFinder used by each thread to check which pieces can still be played
+   */
+  private final ThreadLocal<PlacementFinder> finder = ThreadLocal.withInitial(
+      PlacementFinder::new);
+
+  /**
+   * Create a new WeightedHeuristic. Features which should count against a position should be given
+   * negative weights.
+   *
+   * @param scoreWeight    weight of the score
+   * @param fillWeight     weight of the filled blocks in each line
+   * @param isolatedWeight weight of the empty blocks with no empty neighbour
+   * @param blockedWeight  weight of the pieces which cannot be played anywhere
+   */
+  public WeightedHeuristic(double scoreWeight, double fillWeight, double isolatedWeight,
+      double blockedWeight) {
+    this.scoreWeight = scoreWeight;
+    this.fillWeight = fillWeight;
+    this.isolatedWeight = isolatedWeight;
+    this.blockedWeight = blockedWeight;
+  }
+
+  /**
+   * Estimate how good a position is from the weighted sum of its features
+   *
+   * @param engine position to estimate
+   * @return estimated value, higher is better
+   */
+  @Override
+  public double evaluate(GameEngine engine) {
+    Grid grid = engine.getGrid();
+    double value = scoreWeight * engine.getScore();
+    if (fillWeight != 0) {
+      value += fillWeight * fill(grid);
+    }
+    if (isolatedWeight != 0) {
+      value += isolatedWeight * isolated(grid);
+    }
+    if (blockedWeight != 0) {
+      value += blockedWeight * blocked(grid);
+    }
+    return value;
+  }
+
+  /**
+   * Add up the square of the number of filled blocks in every row and column
+   *
+   * @param grid grid to check
+   * @return sum of squares
+   */
+  private static int fill(Grid grid) {
+    int total = 0;
+    for (int y = 0; y < grid.getRows(); y++) {
+      int filled = Long.bitCount(grid.getRowBits(y));
+      total += filled * filled;
+    }
+    for (int x = 0; x < grid.getCols(); x++) {
+      int filled = 0;
+      for (int y = 0; y < grid.getRows(); y++) {
+        filled += (int) (grid.getRowBits(y) >>> x) & 1;
+      }
+      total += filled * filled;
+    }
+    return total;
+  }
+
+  /**
+   * Count the empty blocks with no empty block above, below, left or right of them
+   *
+   * @param grid grid to check
+   * @return number of isolated empty blocks
+   */
+  private static int isolated(Grid grid) {
+    long full = -1L >>> (Grid.MAX_COLS - grid.getCols());
+    int total = 0;
+    for (int y = 0; y < grid.getRows(); y++) {
+      long empty = ~grid.getRowBits(y) & full;
+      long neighbours = (empty << 1) | (empty >>> 1);
+      if (y > 0) {
+        neighbours |= ~grid.getRowBits(y - 1);
+      }
+      if (y < grid.getRows() - 1) {
+        neighbours |= ~grid.getRowBits(y + 1);
+      }
+      total += Long.bitCount(empty & ~neighbours);
+    }
+    return total;
+  }
+
+  /**
+   * Count the pieces which could not be played anywhere in any rotation
+   *
+   * @param grid grid to check
+   * @return number of blocked pieces
+   */
+  private int blocked(Grid grid) {
+    PlacementFinder placementFinder = finder.get();
+    int total = 0;
+    for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+      if (!placementFinder.canPlayAnywhere(grid, GamePiece.createPiece(piece))) {
+        total++;
+      }
+    }
+    return total;
+  }
+}
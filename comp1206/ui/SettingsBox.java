@@ -8,11 +8,14 @@ import javafx.animation.Timeline;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.Spinner;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.util.Duration;
+import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.multimedia.Multimedia;
+import uk.ac.soton.comp1206.scene.ChallengeScene;
 
 /**
  * The Settings Box is a custom UI component that displays and holds the settings used to
@@ -28,6 +31,26 @@ public class SettingsBox extends HBox {
    */
   private CheckBox sound;
 
+  /**
+   * CheckBox to register if games should be recorded to replay files
+   */
+  private CheckBox record;
+
+  /**
+   * CheckBox to register if single player games should be practice games
+   */
+  private CheckBox practice;
+
+  /**
+   * CheckBox to register if boards should be drawn on a single canvas
+   */
+  private CheckBox singleCanvas;
+
+  /**
+   * Spinner to choose the number of columns and rows of single player boards
+   */
+  private Spinner<Integer> boardSize;
+
   /**
    * boolean value that shows if settings box is visible or not
    */
@@ -59,7 +82,26 @@ public class SettingsBox extends HBox {
     sound = new CheckBox("Mute");
     sound.selectedProperty().bindBidirectional(Multimedia.audioEnabled);
 
-    getChildren().addAll(sound, image);
+    //Add a button to record games to replay files
+    record = new CheckBox("Record");
+    record.selectedProperty().bindBidirectional(ChallengeScene.recordReplays);
+
+    //Add a button to play practice games, where moves can be undone
+    practice = new CheckBox("Practice");
+    practice.selectedProperty().bindBidirectional(ChallengeScene.practiceMode);
+
+    //Add a button to draw boards on a single canvas, taking effect from the next board built
+    singleCanvas = new CheckBox("Fast boards");
+    singleCanvas.selectedProperty().bindBidirectional(GameBoard.singleCanvas);
+
+    //Add a spinner to choose the size of the board, taking effect from the next game
+    boardSize = new Spinner<>(ChallengeScene.MIN_BOARD_SIZE, ChallengeScene.MAX_BOARD_SIZE,
+        ChallengeScene.boardSize.get());
+    boardSize.setPrefWidth(70);
+    boardSize.valueProperty().addListener(
+        (observable, oldValue, newValue) -> ChallengeScene.boardSize.set(newValue));
+
+    getChildren().addAll(sound, record, practice, singleCanvas, boardSize, image);
     setAlignment(Pos.CENTER_RIGHT);
 
     toggleSettingsBox();
@@ -13,5 +13,9 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.event;
     exports uk.ac.soton.comp1206.component;
     exports uk.ac.soton.comp1206.game;
+    exports uk.ac.soton.comp1206.simulation;
+    exports uk.ac.soton.comp1206.ai;
+    exports uk.ac.soton.comp1206.replay;
+    exports uk.ac.soton.comp1206.save;
   opens uk.ac.soton.comp1206.component to javafx.fxml;
 }
\ No newline at end of file
@@ -0,0 +1,233 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the row bitmasks of the Grid: placing pieces, clearing blocks, bounds and snapshots
+ */
+class GridTest {
+
+  /**
+   * The Plus piece, which reaches one block out from its centre on every side
+   */
+  private static final GamePiece PLUS = GamePiece.createPiece(2);
+
+  /**
+   * The Dot piece, a single block
+   */
+  private static final GamePiece DOT = GamePiece.createPiece(3);
+
+  /**
+   * Playing a piece fills its blocks in both the row bitmasks and the colours
+   */
+  @Test
+  void playPieceFillsRowBitsAndColours() {
+    var grid = new Grid(5, 5);
+
+    assertTrue(grid.playPiece(PLUS, 2, 2));
+
+    assertEquals(0b00000, grid.getRowBits(0));
+    assertEquals(0b00100, grid.getRowBits(1));
+    assertEquals(0b01110, grid.getRowBits(2));
+    assertEquals(0b00100, grid.getRowBits(3));
+    assertEquals(0b00000, grid.getRowBits(4));
+    assertEquals(PLUS.getValue(), grid.get(2, 1));
+    assertEquals(PLUS.getValue(), grid.get(1, 2));
+    assertEquals(0, grid.get(1, 1));
+  }
+
+  /**
+   * A piece cannot hang off any side of the grid
+   */
+  @Test
+  void canPlayPieceRejectsEveryEdge() {
+    var grid = new Grid(5, 5);
+
+    assertFalse(grid.canPlayPiece(PLUS, 0, 2));
+    assertFalse(grid.canPlayPiece(PLUS, 4, 2));
+    assertFalse(grid.canPlayPiece(PLUS, 2, 0));
+    assertFalse(grid.canPlayPiece(PLUS, 2, 4));
+    assertTrue(grid.canPlayPiece(PLUS, 1, 1));
+    assertTrue(grid.canPlayPiece(PLUS, 3, 3));
+  }
+
+  /**
+   * A piece cannot cover a filled block, but can sit next to one
+   */
+  @Test
+  void canPlayPieceRejectsFilledBlocks() {
+    var grid = new Grid(5, 5);
+    grid.set(2, 2, 1);
+
+    assertFalse(grid.canPlayPiece(PLUS, 2, 2));
+    assertFalse(grid.canPlayPiece(PLUS, 2, 1));
+    assertFalse(grid.canPlayPiece(PLUS, 3, 2));
+    assertTrue(grid.canPlayPiece(PLUS, 1, 1));
+    assertTrue(grid.canPlayPiece(PLUS, 3, 3));
+  }
+
+  /**
+   * Pieces centred on the first and last columns are shifted the right way, including into the
+   * top bit of a row of a 64 column grid
+   */
+  @Test
+  void playPieceReachesBothEndsOfTheRow() {
+    var grid = new Grid(Grid.MAX_COLS, 3);
+
+    assertTrue(grid.playPiece(DOT, 0, 0));
+    assertTrue(grid.playPiece(PLUS, Grid.MAX_COLS - 2, 1));
+
+    assertEquals(1L, grid.getRowBits(0) & 1L);
+    assertEquals(0b111L << (Grid.MAX_COLS - 3), grid.getRowBits(1));
+    assertEquals(PLUS.getValue(), grid.get(Grid.MAX_COLS - 1, 1));
+    assertFalse(grid.canPlayPiece(DOT, Grid.MAX_COLS - 1, 1));
+  }
+
+  /**
+   * A piece which cannot be played leaves the grid as it was and tells the listener nothing
+   */
+  @Test
+  void playPieceRejectedLeavesGridUnchanged() {
+    var grid = new Grid(5, 5);
+    grid.set(2, 2, 1);
+    var changes = listen(grid);
+
+    assertFalse(grid.playPiece(PLUS, 2, 2));
+
+    assertEquals(0b00100, grid.getRowBits(2));
+    assertEquals(0b00000, grid.getRowBits(1));
+    assertTrue(changes.isEmpty());
+  }
+
+  /**
+   * Playing a piece is one update, so the listener is told once with every block
+   */
+  @Test
+  void playPieceIsOneUpdate() {
+    var grid = new Grid(5, 5);
+    var changes = listen(grid);
+
+    grid.playPiece(PLUS, 2, 2);
+
+    assertEquals(1, changes.size());
+    GridChange change = changes.get(0);
+    assertEquals(PLUS.getBlockCount(), change.getCount());
+    assertEquals(0b01110, change.getRowBits(2));
+    assertTrue(change.isChanged(2, 3));
+    assertFalse(change.isChanged(1, 1));
+  }
+
+  /**
+   * Clearing blocks empties only the filled blocks in the mask, as one update
+   */
+  @Test
+  void clearBlocksEmptiesOnlyMaskedBlocks() {
+    var grid = new Grid(5, 5);
+    for (int x = 0; x < 5; x++) {
+      grid.set(x, 2, 4);
+    }
+    grid.set(0, 0, 4);
+    grid.set(1, 0, 4);
+    var changes = listen(grid);
+
+    grid.clearBlocks(new long[] {0b00001, 0b10000, 0b11111, 0, 0});
+
+    assertEquals(0b00010, grid.getRowBits(0));
+    assertEquals(0, grid.getRowBits(1));
+    assertEquals(0, grid.getRowBits(2));
+    assertEquals(0, grid.get(0, 0));
+    assertEquals(4, grid.get(1, 0));
+    assertEquals(0, grid.get(3, 2));
+
+    //The empty block in the mask was not changed
+    assertEquals(1, changes.size());
+    assertEquals(6, changes.get(0).getCount());
+    assertEquals(0, changes.get(0).getRowBits(1));
+  }
+
+  /**
+   * Clearing a mask with no filled blocks tells the listener nothing
+   */
+  @Test
+  void clearBlocksOfEmptyBlocksChangesNothing() {
+    var grid = new Grid(5, 5);
+    var changes = listen(grid);
+
+    grid.clearBlocks(new long[] {0b11111, 0b11111, 0, 0, 0});
+
+    assertTrue(changes.isEmpty());
+  }
+
+  /**
+   * Setting a block outside the grid throws rather than landing in the next row, and getting one
+   * gives -1
+   */
+  @Test
+  void setOutsideGridThrows() {
+    var grid = new Grid(5, 4);
+
+    assertThrows(IndexOutOfBoundsException.class, () -> grid.set(5, 0, 1));
+    assertThrows(IndexOutOfBoundsException.class, () -> grid.set(-1, 1, 1));
+    assertThrows(IndexOutOfBoundsException.class, () -> grid.set(0, 4, 1));
+    assertEquals(-1, grid.get(5, 0));
+    assertEquals(-1, grid.get(0, -1));
+    assertEquals(0, grid.getRowBits(1));
+  }
+
+  /**
+   * A snapshot shares the rows which have not changed since the previous one and copies the rest
+   */
+  @Test
+  void snapshotSharesUnchangedRows() {
+    var grid = new Grid(5, 5);
+    GridSnapshot before = grid.snapshot(null);
+
+    grid.set(1, 3, 2);
+    GridSnapshot after = grid.snapshot(before);
+
+    assertSame(before.row(0), after.row(0));
+    assertSame(before.row(4), after.row(4));
+    assertNotSame(before.row(3), after.row(3));
+    assertEquals(0, before.get(1, 3));
+    assertEquals(2, after.get(1, 3));
+    assertEquals(0b00010, after.getRowBits(3));
+  }
+
+  /**
+   * A snapshot taken from a change only copies the rows the change covers
+   */
+  @Test
+  void snapshotFromChangeCopiesChangedRows() {
+    var grid = new Grid(5, 5);
+    GridSnapshot before = grid.snapshot(null);
+    var changes = listen(grid);
+
+    grid.playPiece(DOT, 4, 1);
+    GridSnapshot after = grid.snapshot(before, changes.get(0));
+
+    assertSame(before.row(0), after.row(0));
+    assertSame(before.row(2), after.row(2));
+    assertNotSame(before.row(1), after.row(1));
+    assertEquals(DOT.getValue(), after.get(4, 1));
+  }
+
+  /**
+   * Record every change the grid tells its listener about
+   *
+   * @param grid grid to listen to
+   * @return the changes, in the order they are told
+   */
+  private static ArrayList<GridChange> listen(Grid grid) {
+    var changes = new ArrayList<GridChange>();
+    grid.setGridChangedListener((changed, change) -> changes.add(change));
+    return changes;
+  }
+}
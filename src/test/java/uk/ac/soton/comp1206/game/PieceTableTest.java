@@ -0,0 +1,124 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the rotations precomputed in the PieceTable, read through GamePiece
+ */
+class PieceTableTest {
+
+  /**
+   * Every rotation is the shape of the rotation before it turned once clockwise
+   */
+  @Test
+  void eachRotationTurnsThePreviousClockwise() {
+    for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+      for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+        int[][] shape = GamePiece.createPiece(piece, rotation).getBlocks();
+        int[][] expected = new int[PieceTable.SIZE][PieceTable.SIZE];
+        for (int x = 0; x < PieceTable.SIZE; x++) {
+          for (int y = 0; y < PieceTable.SIZE; y++) {
+            expected[PieceTable.SIZE - 1 - y][x] = shape[x][y];
+          }
+        }
+
+        assertArrayEquals(expected, GamePiece.createPiece(piece, rotation + 1).getBlocks(),
+            "Piece " + piece + " rotation " + rotation);
+      }
+    }
+  }
+
+  /**
+   * Rotating goes round the four flyweights of a piece and back, in either direction
+   */
+  @Test
+  void rotatingWrapsRoundTheFlyweights() {
+    for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+      GamePiece gamePiece = GamePiece.createPiece(piece);
+
+      assertSame(gamePiece, gamePiece.rotate().rotate().rotate().rotate());
+      assertSame(gamePiece.rotate(3), gamePiece.rotate(-1));
+      assertSame(gamePiece.rotate(2), GamePiece.createPiece(piece, 6));
+      assertSame(gamePiece.rotate(), GamePiece.fromIndex(gamePiece.rotate().getIndex()));
+      assertEquals(1, gamePiece.rotate().getRotation());
+      assertEquals(piece, gamePiece.rotate(3).getPieceNumber());
+    }
+  }
+
+  /**
+   * The row masks, shape mask, block list and bounds of every entry all describe the same blocks
+   */
+  @Test
+  void masksBlocksAndBoundsAgree() {
+    for (int index = 0; index < PieceTable.ENTRIES; index++) {
+      GamePiece gamePiece = GamePiece.fromIndex(index);
+      int[][] blocks = gamePiece.getBlocks();
+
+      int shapeMask = 0;
+      int minX = 1;
+      int maxX = -1;
+      int minY = 1;
+      int maxY = -1;
+      for (int block = 0; block < gamePiece.getBlockCount(); block++) {
+        int x = gamePiece.getBlockX(block) + 1;
+        int y = gamePiece.getBlockY(block) + 1;
+        shapeMask |= 1 << (y * PieceTable.SIZE + x);
+        minX = Math.min(minX, x - 1);
+        maxX = Math.max(maxX, x - 1);
+        minY = Math.min(minY, y - 1);
+        maxY = Math.max(maxY, y - 1);
+      }
+      for (int y = 0; y < PieceTable.SIZE; y++) {
+        int rowMask = 0;
+        for (int x = 0; x < PieceTable.SIZE; x++) {
+          if (blocks[x][y] != 0) {
+            rowMask |= 1 << x;
+          }
+        }
+        assertEquals(rowMask, gamePiece.getRowMask(y), "Entry " + index + " row " + y);
+      }
+
+      assertEquals(shapeMask, gamePiece.getShapeMask(), "Entry " + index);
+      assertEquals(Integer.bitCount(shapeMask), gamePiece.getBlockCount(), "Entry " + index);
+      assertEquals(minX, gamePiece.getMinX(), "Entry " + index);
+      assertEquals(maxX, gamePiece.getMaxX(), "Entry " + index);
+      assertEquals(minY, gamePiece.getMinY(), "Entry " + index);
+      assertEquals(maxY, gamePiece.getMaxY(), "Entry " + index);
+    }
+  }
+
+  /**
+   * The Line lies along a column at first and along a row once rotated
+   */
+  @Test
+  void lineLiesFlatWhenRotated() {
+    GamePiece line = GamePiece.createPiece(0);
+
+    assertEquals(0, line.getMinX());
+    assertEquals(0, line.getMaxX());
+    assertEquals(-1, line.getMinY());
+    assertEquals(1, line.getMaxY());
+    assertEquals(0b010, line.getRowMask(0));
+
+    GamePiece rotated = line.rotate();
+    assertEquals(-1, rotated.getMinX());
+    assertEquals(1, rotated.getMaxX());
+    assertEquals(0, rotated.getMinY());
+    assertEquals(0, rotated.getMaxY());
+    assertEquals(0b111, rotated.getRowMask(1));
+  }
+
+  /**
+   * Only the fifteen piece numbers can be created
+   */
+  @Test
+  void createPieceRejectsUnknownPieces() {
+    assertThrows(IndexOutOfBoundsException.class, () -> GamePiece.createPiece(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> GamePiece.createPiece(GamePiece.PIECES));
+  }
+}
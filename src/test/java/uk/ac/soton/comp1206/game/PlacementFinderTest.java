@@ -0,0 +1,186 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the PlacementFinder, against canPlayPiece checked one position at a time
+ */
+class PlacementFinderTest {
+
+  /**
+   * The Plus piece, which reaches one block out from its centre on every side
+   */
+  private static final GamePiece PLUS = GamePiece.createPiece(2);
+
+  /**
+   * The Dot piece, a single block
+   */
+  private static final GamePiece DOT = GamePiece.createPiece(3);
+
+  /**
+   * On grids small enough to be packed, every rotation of every piece has exactly the placements
+   * canPlayPiece allows
+   */
+  @Test
+  void findsEveryPlacementInPackedGrids() {
+    checkRandomGrids(new PlacementFinder(), 5, 5);
+    checkRandomGrids(new PlacementFinder(), 8, 8);
+  }
+
+  /**
+   * On grids too big to be packed, every rotation of every piece has exactly the placements
+   * canPlayPiece allows
+   */
+  @Test
+  void findsEveryPlacementInLargeGrids() {
+    checkRandomGrids(new PlacementFinder(), 10, 10);
+    checkRandomGrids(new PlacementFinder(), Grid.MAX_COLS, 3);
+  }
+
+  /**
+   * Rotations with the same shape as an earlier one are only searched once
+   */
+  @Test
+  void findPlacementsSkipsRepeatedRotations() {
+    var finder = new PlacementFinder();
+    var grid = new Grid(5, 5);
+    var placements = new int[grid.getCols() * grid.getRows() * GamePiece.ROTATIONS];
+
+    assertEquals(25, finder.findPlacements(grid, DOT, placements));
+    assertEquals(9, finder.findPlacements(grid, PLUS, placements));
+    assertEquals(30, finder.findPlacements(grid, GamePiece.createPiece(0), placements));
+  }
+
+  /**
+   * Placements are added after those already in the array
+   */
+  @Test
+  void findPlacementsAppends() {
+    var finder = new PlacementFinder();
+    var grid = new Grid(3, 3);
+    var placements = new int[16];
+    placements[0] = -1;
+
+    int found = finder.findPlacements(grid, PLUS, placements, 1);
+
+    assertEquals(2, found);
+    assertEquals(-1, placements[0]);
+    assertEquals(Placement.of(PLUS, 1, 1), placements[1]);
+  }
+
+  /**
+   * Empty grids of different sizes pack to the same bits, but must not share cache entries
+   */
+  @Test
+  void cacheKeepsGridSizesApart() {
+    var finder = new PlacementFinder();
+
+    assertEquals(-1L, finder.legalCentres(new Grid(8, 8), DOT));
+    assertEquals(0xFFFFL, finder.legalCentres(new Grid(4, 4), DOT));
+    assertEquals(0b0110_0110_0000L, finder.legalCentres(new Grid(4, 4), PLUS));
+    assertEquals(0, finder.legalCentres(new Grid(8, 2), PLUS));
+    assertEquals(0, finder.legalCentres(new Grid(2, 8), PLUS));
+    assertEquals(1L << 4, finder.legalCentres(new Grid(3, 3), PLUS));
+  }
+
+  /**
+   * A cached answer is not used once the grid has changed, and is used again when the grid goes
+   * back
+   */
+  @Test
+  void cacheFollowsTheGrid() {
+    var finder = new PlacementFinder();
+    var grid = new Grid(3, 3);
+
+    assertEquals(1L << 4, finder.legalCentres(grid, PLUS));
+    assertTrue(finder.canPlayAnywhere(grid, PLUS));
+
+    grid.set(1, 0, 1);
+    assertEquals(0, finder.legalCentres(grid, PLUS));
+    assertFalse(finder.canPlayAnywhere(grid, PLUS));
+    assertEquals(0b111_111_101L, finder.legalCentres(grid, DOT));
+
+    grid.set(1, 0, 0);
+    assertEquals(1L << 4, finder.legalCentres(grid, PLUS));
+  }
+
+  /**
+   * Compare the finder with canPlayPiece on random grids of one size, filled more and more
+   *
+   * @param finder finder to check
+   * @param cols   number of columns
+   * @param rows   number of rows
+   */
+  private static void checkRandomGrids(PlacementFinder finder, int cols, int rows) {
+    var random = new Random(cols * 31L + rows);
+    var placements = new int[cols * rows];
+    for (int density = 0; density <= 6; density++) {
+      var grid = new Grid(cols, rows);
+      for (int y = 0; y < rows; y++) {
+        for (int x = 0; x < cols; x++) {
+          if (random.nextInt(8) < density) {
+            grid.set(x, y, 1);
+          }
+        }
+      }
+
+      for (int index = 0; index < PieceTable.ENTRIES; index++) {
+        GamePiece gamePiece = GamePiece.fromIndex(index);
+        int found = finder.findRotationPlacements(grid, gamePiece, placements, 0);
+        int[] actual = Arrays.copyOf(placements, found);
+        int[] expected = legalPlacements(grid, gamePiece);
+        Arrays.sort(actual);
+        Arrays.sort(expected);
+
+        String message = gamePiece + " rotation " + gamePiece.getRotation() + " on " + cols
+            + " x " + rows + " density " + density;
+        assertArrayEquals(expected, actual, message);
+        assertEquals(expected.length > 0 || anyRotationFits(grid, gamePiece),
+            finder.canPlayAnywhere(grid, gamePiece), message);
+      }
+    }
+  }
+
+  /**
+   * Find every placement of a piece by checking every position with canPlayPiece
+   *
+   * @param grid      grid to play in
+   * @param gamePiece piece to play, in the rotation to play it
+   * @return the placements
+   */
+  private static int[] legalPlacements(Grid grid, GamePiece gamePiece) {
+    var placements = new int[grid.getCols() * grid.getRows()];
+    int found = 0;
+    for (int y = 0; y < grid.getRows(); y++) {
+      for (int x = 0; x < grid.getCols(); x++) {
+        if (grid.canPlayPiece(gamePiece, x, y)) {
+          placements[found++] = Placement.of(gamePiece, x, y);
+        }
+      }
+    }
+    return Arrays.copyOf(placements, found);
+  }
+
+  /**
+   * Check with canPlayPiece whether any rotation of a piece fits anywhere
+   *
+   * @param grid      grid to play in
+   * @param gamePiece piece to play, in any rotation
+   * @return true if there is at least one placement
+   */
+  private static boolean anyRotationFits(Grid grid, GamePiece gamePiece) {
+    for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+      if (legalPlacements(grid, gamePiece.rotate(rotation)).length > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,79 @@
+package uk.ac.soton.comp1206.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the varints replays are written with
+ */
+class ReplayFormatTest {
+
+  /**
+   * Every value reads back as written, in as few bytes as its 7 bit groups need
+   */
+  @Test
+  void varintsRoundTrip() {
+    long[] values = {0, 1, 0x7F, 0x80, 0x3FFF, 0x4000, 1_700_000_000_000L, Integer.MAX_VALUE,
+        Long.MAX_VALUE, -1L, Long.MIN_VALUE};
+    int[] sizes = {1, 1, 1, 2, 2, 3, 6, 5, 9, 10, 10};
+    var buffer = ByteBuffer.allocate(128);
+
+    for (int i = 0; i < values.length; i++) {
+      int start = buffer.position();
+      ReplayFormat.putVarint(buffer, values[i]);
+      assertEquals(sizes[i], buffer.position() - start, "Size of " + values[i]);
+    }
+    buffer.flip();
+    for (long value : values) {
+      assertEquals(value, ReplayFormat.getVarint(buffer));
+    }
+    assertFalse(buffer.hasRemaining());
+  }
+
+  /**
+   * A record's time and type share its first varint, so short gaps take a single byte
+   */
+  @Test
+  void recordHeaderPacksTimeAndType() {
+    var buffer = ByteBuffer.allocate(16);
+    long millis = 15;
+
+    ReplayFormat.putVarint(buffer, (millis << ReplayFormat.TYPE_BITS) | ReplayFormat.PLACE);
+    assertEquals(1, buffer.position());
+
+    buffer.flip();
+    long first = ReplayFormat.getVarint(buffer);
+    assertEquals(ReplayFormat.PLACE, first & ((1 << ReplayFormat.TYPE_BITS) - 1));
+    assertEquals(millis, first >>> ReplayFormat.TYPE_BITS);
+  }
+
+  /**
+   * A varint which never ends is rejected
+   */
+  @Test
+  void overlongVarintIsRejected() {
+    var buffer = ByteBuffer.allocate(16);
+    for (int i = 0; i < 10; i++) {
+      buffer.put((byte) 0x80);
+    }
+    buffer.put((byte) 0);
+    buffer.flip();
+
+    assertThrows(IllegalArgumentException.class, () -> ReplayFormat.getVarint(buffer));
+  }
+
+  /**
+   * A varint cut short runs out of buffer
+   */
+  @Test
+  void truncatedVarintUnderflows() {
+    var buffer = ByteBuffer.wrap(new byte[] {(byte) 0x80, (byte) 0x80});
+
+    assertThrows(BufferUnderflowException.class, () -> ReplayFormat.getVarint(buffer));
+  }
+}
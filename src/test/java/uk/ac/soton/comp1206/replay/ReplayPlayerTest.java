@@ -0,0 +1,327 @@
+package uk.ac.soton.comp1206.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.Placement;
+import uk.ac.soton.comp1206.game.PlacementFinder;
+import uk.ac.soton.comp1206.game.UniformPieceSource;
+
+/**
+ * Tests for reading replay files and seeking through them with the ReplayPlayer
+ */
+class ReplayPlayerTest {
+
+  /**
+   * The seed of the recorded game
+   */
+  private static final long SEED = 0x5EED;
+
+  /**
+   * The number of columns and rows of the recorded game
+   */
+  private static final int SIZE = 8;
+
+  /**
+   * The time the recorded game started
+   */
+  private static final long START_TIME = 1_700_000_000_000L;
+
+  /**
+   * Folder for the replay files
+   */
+  @TempDir
+  Path folder;
+
+  /**
+   * A recorded game reads back with its header, every input and the final score
+   */
+  @Test
+  void readsEveryInput() throws IOException {
+    var recording = new Recording(400);
+    Replay replay = Replay.read(recording.write(folder.resolve("game.trpy")));
+
+    assertEquals(SIZE, replay.getCols());
+    assertEquals(SIZE, replay.getRows());
+    assertEquals(SEED, replay.getSeed());
+    assertEquals(START_TIME, replay.getStartTime());
+    assertEquals(recording.count, replay.getCount());
+    assertTrue(replay.getCount() > 64);
+    for (int input = 0; input < recording.count; input++) {
+      assertEquals(recording.types[input], replay.getType(input));
+      assertEquals(recording.times[input], replay.getTime(input));
+    }
+    assertTrue(replay.isEnded());
+    assertEquals(recording.finalScore, replay.getFinalScore());
+  }
+
+  /**
+   * Playing a replay to its end reaches the recorded score
+   */
+  @Test
+  void verifiesTheRecordedScore() throws IOException {
+    var recording = new Recording(400);
+    var player = new ReplayPlayer(Replay.read(recording.write(folder.resolve("game.trpy"))), 16);
+
+    assertTrue(player.verify());
+    assertTrue(recording.finalScore > 0);
+  }
+
+  /**
+   * A recording cut short keeps every complete input and is not ended
+   */
+  @Test
+  void readsTruncatedRecordingUpToLastCompleteInput() throws IOException {
+    var recording = new Recording(400);
+    Path path = recording.write(folder.resolve("game.trpy"));
+    byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 4));
+
+    Replay replay = Replay.read(path);
+
+    assertFalse(replay.isEnded());
+    assertTrue(replay.getCount() > 0 && replay.getCount() <= recording.count);
+    assertFalse(new ReplayPlayer(replay, 16).verify());
+  }
+
+  /**
+   * A file which is not a replay is rejected
+   */
+  @Test
+  void rejectsOtherFiles() throws IOException {
+    Path other = Files.write(folder.resolve("other.trpy"), new byte[] {'T', 'S', 'A', 'V', 1});
+    Path empty = Files.write(folder.resolve("empty.trpy"), new byte[] {'T', 'R', 'P', 'Y'});
+
+    assertThrows(IOException.class, () -> Replay.read(other));
+    assertThrows(IOException.class, () -> Replay.read(empty));
+  }
+
+  /**
+   * Seeking to any input, forwards or backwards, leaves the engine exactly as stepping there from
+   * the start does
+   */
+  @Test
+  void seekMatchesSteppingFromTheStart() throws IOException {
+    Replay replay = Replay.read(new Recording(400).write(folder.resolve("game.trpy")));
+    var player = new ReplayPlayer(replay, 16);
+    var random = new Random(1);
+
+    int count = replay.getCount();
+    int[] targets = {count, 0, 17, 16, 15, count / 2, 3, count - 1, 64, 64};
+    for (int target : targets) {
+      checkSeek(replay, player, target);
+    }
+    for (int i = 0; i < 20; i++) {
+      checkSeek(replay, player, random.nextInt(replay.getCount() + 1));
+    }
+  }
+
+  /**
+   * Seeking to a time moves to the first input made at or after it
+   */
+  @Test
+  void seekTimeFindsFirstInputAtTime() throws IOException {
+    Replay replay = Replay.read(new Recording(400).write(folder.resolve("game.trpy")));
+    var player = new ReplayPlayer(replay, 16);
+
+    for (int input = 1; input < replay.getCount(); input += 7) {
+      long time = replay.getTime(input);
+      player.seekTime(time);
+
+      int position = player.getPosition();
+      assertEquals(time, replay.getTime(position));
+      assertTrue(position == 0 || replay.getTime(position - 1) < time);
+    }
+    player.seekTime(replay.getTime(replay.getCount() - 1) + 1);
+    assertEquals(replay.getCount(), player.getPosition());
+  }
+
+  /**
+   * Seek a player and check its engine against a new player stepped to the same input
+   *
+   * @param replay replay being played
+   * @param player player to seek
+   * @param target input to seek to
+   */
+  private static void checkSeek(Replay replay, ReplayPlayer player, int target) {
+    player.seek(target);
+    var expected = new ReplayPlayer(replay, Integer.MAX_VALUE);
+    for (int input = 0; input < target; input++) {
+      expected.step();
+    }
+
+    GameEngine actual = player.getEngine();
+    GameEngine engine = expected.getEngine();
+    String message = "Seek to " + target;
+    assertEquals(target, player.getPosition(), message);
+    assertEquals(engine.getScore(), actual.getScore(), message);
+    assertEquals(engine.getLives(), actual.getLives(), message);
+    assertEquals(engine.getMultiplier(), actual.getMultiplier(), message);
+    assertSame(engine.getCurrentPiece(), actual.getCurrentPiece(), message);
+    assertSame(engine.getFollowingPiece(), actual.getFollowingPiece(), message);
+    for (int y = 0; y < engine.getRows(); y++) {
+      assertEquals(engine.getGrid().getRowBits(y), actual.getGrid().getRowBits(y), message);
+    }
+  }
+
+  /**
+   * A game played on an engine with random moves, recorded in the ReplayFormat
+   */
+  private static class Recording {
+
+    /**
+     * The records, in the ReplayFormat
+     */
+    private final ByteBuffer records = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * The type and time of every input recorded
+     */
+    private final int[] types;
+    private final long[] times;
+
+    /**
+     * The number of inputs recorded
+     */
+    private int count;
+
+    /**
+     * The score at the end of the game
+     */
+    private int finalScore;
+
+    /**
+     * Play and record a game of up to the given number of inputs
+     *
+     * @param inputs most inputs to make
+     */
+    Recording(int inputs) {
+      types = new int[inputs];
+      times = new long[inputs];
+      var random = new Random(SEED);
+      var engine = new GameEngine(SIZE, SIZE, new UniformPieceSource(SEED));
+      var scratch = new GameEngine(SIZE, SIZE, new UniformPieceSource(0));
+      var finder = new PlacementFinder();
+      var placements = new int[SIZE * SIZE * 4];
+      engine.start();
+
+      long time = 0;
+      while (count < inputs - 2 && !engine.isGameOver()) {
+        //Several inputs are made in the same millisecond now and then
+        long gap = random.nextInt(4) == 0 ? 0 : random.nextInt(3000);
+        time += gap;
+
+        int found = finder.findPlacements(engine.getGrid(), engine.getCurrentPiece(), placements);
+        int choice = random.nextInt(10);
+        if (found == 0 || choice == 0 && engine.getLives() > 1) {
+          record(ReplayFormat.TIMER, time, gap);
+          engine.timerExpired();
+        } else if (choice == 1) {
+          record(ReplayFormat.SWAP, time, gap);
+          engine.swapCurrentPiece();
+        } else if (choice == 2) {
+          record(ReplayFormat.AIM, time, gap, random.nextInt(SIZE), random.nextInt(SIZE));
+        } else {
+          int placement = emptiest(engine, scratch, placements, found, random);
+          int rotations = Math.floorMod(Placement.piece(placement).getRotation()
+              - engine.getCurrentPiece().getRotation(), 4);
+          if (rotations != 0) {
+            record(ReplayFormat.ROTATE, time, gap, rotations);
+            engine.rotateCurrentPiece(rotations);
+            gap = 0;
+          }
+          record(ReplayFormat.PLACE, time, gap, Placement.x(placement), Placement.y(placement));
+          engine.playPiece(Placement.x(placement), Placement.y(placement));
+        }
+      }
+
+      finalScore = engine.getScore();
+      ReplayFormat.putVarint(records, ReplayFormat.END);
+      ReplayFormat.putVarint(records, finalScore);
+    }
+
+    /**
+     * Choose the placement which leaves the fewest blocks filled, so the game lasts
+     *
+     * @param engine     engine being played
+     * @param scratch    engine to try placements on
+     * @param placements placements of the current piece
+     * @param found      number of placements
+     * @param random     source of the choice between equally good placements
+     * @return the chosen placement
+     */
+    private static int emptiest(GameEngine engine, GameEngine scratch, int[] placements,
+        int found, Random random) {
+      int best = placements[random.nextInt(found)];
+      int fewest = Integer.MAX_VALUE;
+      for (int i = 0; i < found; i++) {
+        scratch.copyFrom(engine);
+        scratch.rotateCurrentPiece(Placement.piece(placements[i]).getRotation()
+            - scratch.getCurrentPiece().getRotation());
+        scratch.playPiece(Placement.x(placements[i]), Placement.y(placements[i]));
+        int filled = 0;
+        for (int y = 0; y < scratch.getRows(); y++) {
+          filled += Long.bitCount(scratch.getGrid().getRowBits(y));
+        }
+        if (filled < fewest) {
+          fewest = filled;
+          best = placements[i];
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Record an input
+     *
+     * @param type      record type
+     * @param time      milliseconds since the start of the game
+     * @param gap       milliseconds since the previous input
+     * @param arguments values the type needs
+     */
+    private void record(int type, long time, long gap, int... arguments) {
+      ReplayFormat.putVarint(records, gap << ReplayFormat.TYPE_BITS | type);
+      for (int argument : arguments) {
+        ReplayFormat.putVarint(records, argument);
+      }
+      types[count] = type;
+      times[count] = time;
+      count++;
+    }
+
+    /**
+     * Write the header and the records to a replay file
+     *
+     * @param path file to write
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    Path write(Path path) throws IOException {
+      var header = ByteBuffer.allocate(64);
+      header.putInt(ReplayFormat.MAGIC);
+      header.put(ReplayFormat.VERSION);
+      ReplayFormat.putVarint(header, SIZE);
+      ReplayFormat.putVarint(header, SIZE);
+      header.put(ReplayFormat.UNIFORM);
+      header.putLong(SEED);
+      ReplayFormat.putVarint(header, START_TIME);
+
+      byte[] bytes = new byte[header.position() + records.position()];
+      System.arraycopy(header.array(), 0, bytes, 0, header.position());
+      System.arraycopy(records.array(), 0, bytes, header.position(), records.position());
+      return Files.write(path, bytes);
+    }
+  }
+}
@@ -0,0 +1,286 @@
+package uk.ac.soton.comp1206.save;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.soton.comp1206.game.BagPieceSource;
+import uk.ac.soton.comp1206.game.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PieceSource;
+import uk.ac.soton.comp1206.game.UniformPieceSource;
+
+/**
+ * Tests for writing save files, reading them back and rejecting files which are not valid saves
+ */
+class SavedGameTest {
+
+  /**
+   * Folder for the save files
+   */
+  @TempDir
+  Path folder;
+
+  /**
+   * A game with uniform pieces reads back with every value, and carries on with the same pieces
+   */
+  @Test
+  void uniformGameRoundTrips() throws IOException {
+    var pieceSource = new UniformPieceSource(42);
+    GameEngine engine = playedEngine(6, 5, pieceSource);
+    Path path = folder.resolve("save.tsav");
+
+    SavedGame.write(path, engine, pieceSource, 9_500);
+    SavedGame saved = SavedGame.read(path);
+
+    checkValues(engine, saved);
+    assertEquals(9_500, saved.getTimeRemaining());
+    checkPieces(pieceSource, saved.createPieceSource());
+    checkRestore(engine, saved);
+  }
+
+  /**
+   * A game with a bag of pieces reads back part-way through the bag, and carries on with the same
+   * pieces
+   */
+  @Test
+  void bagGameRoundTrips() throws IOException {
+    var pieceSource = new BagPieceSource(7);
+    GameEngine engine = playedEngine(5, 5, pieceSource);
+    Path path = folder.resolve("save.tsav");
+
+    SavedGame.write(path, engine, pieceSource, 0);
+    SavedGame saved = SavedGame.read(path);
+
+    checkValues(engine, saved);
+    checkPieces(pieceSource, saved.createPieceSource());
+    checkRestore(engine, saved);
+  }
+
+  /**
+   * Writing over an existing save replaces it whole and leaves no temporary file behind
+   */
+  @Test
+  void writeReplacesExistingSave() throws IOException {
+    var pieceSource = new UniformPieceSource(1);
+    Path path = folder.resolve("save.tsav");
+    SavedGame.write(path, playedEngine(8, 8, pieceSource), pieceSource, 100);
+
+    GameEngine engine = playedEngine(5, 5, pieceSource);
+    SavedGame.write(path, engine, pieceSource, 200);
+
+    SavedGame saved = SavedGame.read(path);
+    assertEquals(5, saved.getCols());
+    assertEquals(200, saved.getTimeRemaining());
+    assertEquals(SaveFormat.HEADER_SIZE + 5 * 5, Files.size(path));
+    assertFalse(Files.exists(folder.resolve("save.tsav.tmp")));
+  }
+
+  /**
+   * Only games with seeded pieces can be saved
+   */
+  @Test
+  void writeRejectsUnseededPieces() {
+    PieceSource pieceSource = () -> GamePiece.createPiece(3);
+    GameEngine engine = playedEngine(5, 5, pieceSource);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> SavedGame.write(folder.resolve("save.tsav"), engine, pieceSource, 0));
+  }
+
+  /**
+   * A save cannot be restored into a game with a different size of grid
+   */
+  @Test
+  void restoreRejectsOtherSizes() throws IOException {
+    var pieceSource = new UniformPieceSource(3);
+    Path path = folder.resolve("save.tsav");
+    SavedGame.write(path, playedEngine(5, 5, pieceSource), pieceSource, 0);
+    SavedGame saved = SavedGame.read(path);
+
+    var other = new GameEngine(6, 6, new UniformPieceSource(3));
+    assertThrows(IllegalArgumentException.class, () -> saved.restore(other));
+  }
+
+  /**
+   * Files too short to hold a header, or without the magic number, are not saves
+   */
+  @Test
+  void readRejectsOtherFiles() throws IOException {
+    Path empty = Files.write(folder.resolve("empty.tsav"), new byte[0]);
+    Path shortFile = Files.write(folder.resolve("short.tsav"),
+        Arrays.copyOf(validSave(), SaveFormat.HEADER_SIZE - 1));
+    Path replay = folder.resolve("replay.tsav");
+    Files.write(replay, modified(buffer -> buffer.putInt(SaveFormat.MAGIC_OFFSET, 0x54525059)));
+
+    assertThrows(IOException.class, () -> SavedGame.read(empty));
+    assertThrows(IOException.class, () -> SavedGame.read(shortFile));
+    assertThrows(IOException.class, () -> SavedGame.read(replay));
+    assertThrows(IOException.class, () -> SavedGame.read(folder.resolve("missing.tsav")));
+  }
+
+  /**
+   * A save of another version of the format is rejected
+   */
+  @Test
+  void readRejectsOtherVersions() throws IOException {
+    Path path = Files.write(folder.resolve("save.tsav"),
+        modified(buffer -> buffer.put(SaveFormat.VERSION_OFFSET, (byte) 2)));
+
+    var e = assertThrows(IOException.class, () -> SavedGame.read(path));
+    assertTrue(e.getMessage().contains("version 2"));
+  }
+
+  /**
+   * A save with any value out of range is rejected as damaged rather than failing when restored
+   */
+  @Test
+  void readRejectsDamagedSaves() throws IOException {
+    checkDamaged(buffer -> buffer.putShort(SaveFormat.COLS_OFFSET, (short) 0));
+    checkDamaged(buffer -> buffer.putShort(SaveFormat.COLS_OFFSET, (short) 6));
+    checkDamaged(buffer -> buffer.putShort(SaveFormat.ROWS_OFFSET, (short) -5));
+    checkDamaged(buffer -> buffer.put(SaveFormat.KIND_OFFSET, (byte) 9));
+    checkDamaged(buffer -> buffer.put(SaveFormat.CURRENT_OFFSET, (byte) -1));
+    checkDamaged(buffer -> buffer.put(SaveFormat.FOLLOWING_OFFSET,
+        (byte) (GamePiece.PIECES * GamePiece.ROTATIONS)));
+    checkDamaged(buffer -> buffer.putInt(SaveFormat.SCORE_OFFSET, -10));
+    checkDamaged(buffer -> buffer.putInt(SaveFormat.LIVES_OFFSET, -1));
+    checkDamaged(buffer -> buffer.putInt(SaveFormat.MULTIPLIER_OFFSET, 0));
+    checkDamaged(buffer -> buffer.putInt(SaveFormat.TIMER_OFFSET, -1));
+    checkDamaged(buffer -> buffer.put(SaveFormat.HEADER_SIZE + 3, (byte) (GamePiece.PIECES + 1)));
+
+    //The bag must hold every piece exactly once, with the next piece inside it
+    checkDamaged(
+        buffer -> buffer.put(SaveFormat.BAG_OFFSET + 1, buffer.get(SaveFormat.BAG_OFFSET)));
+    checkDamaged(buffer -> buffer.put(SaveFormat.BAG_NEXT_OFFSET, (byte) (GamePiece.PIECES + 1)));
+  }
+
+  /**
+   * A save with extra bytes after the grid is rejected
+   */
+  @Test
+  void readRejectsTrailingBytes() throws IOException {
+    byte[] bytes = validSave();
+    Path path = Files.write(folder.resolve("save.tsav"), Arrays.copyOf(bytes, bytes.length + 1));
+
+    assertThrows(IOException.class, () -> SavedGame.read(path));
+  }
+
+  /**
+   * Check that changing a valid save makes it damaged
+   *
+   * @param change change to make to the contents of the save
+   */
+  private void checkDamaged(Consumer<ByteBuffer> change) throws IOException {
+    Path path = Files.write(folder.resolve("damaged.tsav"), modified(change));
+
+    var e = assertThrows(IOException.class, () -> SavedGame.read(path));
+    assertTrue(e.getMessage().endsWith("is damaged"), e.getMessage());
+  }
+
+  /**
+   * Get the contents of a valid save of a bag game with one change made
+   *
+   * @param change change to make to the contents
+   * @return the changed contents
+   */
+  private byte[] modified(Consumer<ByteBuffer> change) throws IOException {
+    byte[] bytes = validSave();
+    change.accept(ByteBuffer.wrap(bytes));
+    return bytes;
+  }
+
+  /**
+   * Write a valid save of a 5 x 5 bag game and get its contents
+   *
+   * @return contents of the save
+   */
+  private byte[] validSave() throws IOException {
+    var pieceSource = new BagPieceSource(11);
+    Path path = folder.resolve("valid.tsav");
+    SavedGame.write(path, playedEngine(5, 5, pieceSource), pieceSource, 1_000);
+    return Files.readAllBytes(path);
+  }
+
+  /**
+   * Create an engine part-way through a game, with some blocks filled and none of the values at
+   * their starting values
+   *
+   * @param cols        number of columns
+   * @param rows        number of rows
+   * @param pieceSource source of the pieces
+   * @return the engine
+   */
+  private static GameEngine playedEngine(int cols, int rows, PieceSource pieceSource) {
+    var engine = new GameEngine(cols, rows, pieceSource);
+    engine.start();
+    engine.getGrid().set(0, 0, 4);
+    engine.getGrid().set(cols - 1, rows - 1, 15);
+    engine.getGrid().set(2, 1, 1);
+    engine.nextPiece();
+    engine.nextPiece();
+    engine.restore(1_230, 1, 2, 3, engine.getCurrentPiece().rotate(), engine.getFollowingPiece());
+    return engine;
+  }
+
+  /**
+   * Check a saved game holds the same values as the engine it was saved from
+   *
+   * @param engine engine which was saved
+   * @param saved  saved game read back
+   */
+  private static void checkValues(GameEngine engine, SavedGame saved) {
+    assertEquals(engine.getCols(), saved.getCols());
+    assertEquals(engine.getRows(), saved.getRows());
+    assertEquals(engine.getScore(), saved.getScore());
+    assertEquals(engine.getLevel(), saved.getLevel());
+    assertEquals(engine.getLives(), saved.getLives());
+    assertEquals(engine.getMultiplier(), saved.getMultiplier());
+    assertSame(engine.getCurrentPiece(), saved.getCurrentPiece());
+    assertSame(engine.getFollowingPiece(), saved.getFollowingPiece());
+  }
+
+  /**
+   * Check a restored piece source deals the same pieces as the source which was saved
+   *
+   * @param expected piece source which was saved
+   * @param actual   piece source created from the save
+   */
+  private static void checkPieces(PieceSource expected, PieceSource actual) {
+    for (int i = 0; i < 3 * GamePiece.PIECES; i++) {
+      assertSame(expected.nextPiece(), actual.nextPiece(), "Piece " + i);
+    }
+  }
+
+  /**
+   * Check a saved game restores the grid and values of the engine it was saved from
+   *
+   * @param engine engine which was saved
+   * @param saved  saved game read back
+   */
+  private static void checkRestore(GameEngine engine, SavedGame saved) {
+    var restored = new GameEngine(saved.getCols(), saved.getRows(), saved.createPieceSource());
+    restored.start();
+    saved.restore(restored);
+
+    for (int y = 0; y < engine.getRows(); y++) {
+      for (int x = 0; x < engine.getCols(); x++) {
+        assertEquals(engine.getGrid().get(x, y), restored.getGrid().get(x, y));
+      }
+    }
+    assertEquals(engine.getScore(), restored.getScore());
+    assertEquals(engine.getLives(), restored.getLives());
+    assertSame(engine.getCurrentPiece(), restored.getCurrentPiece());
+    assertSame(engine.getFollowingPiece(), restored.getFollowingPiece());
+  }
+}